@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useState, useEffect } from 'react';
 import './App.css';
 import TopicSelectionPage from './components/TopicSelectionPage';
 import QuestPage from './components/QuestPage';
@@ -9,8 +9,34 @@ import StudyMaterial from './components/StudyMaterial';
 function App() {
   const [selectedTopicId, setSelectedTopicId] = useState(null);
   const [reward, setReward] = useState(null);
+  const [dashboard, setDashboard] = useState(null);
+  const [loading, setLoading] = useState(true);
+  const [error, setError] = useState(null);
   const userId = 'user-1'; // Hardcoded user ID for now
 
+  useEffect(() => {
+    const fetchDashboard = async () => {
+      setLoading(true);
+      try {
+        // One request returns the user's badges and, for the selected topic,
+        // its quests and tasks with the user's task statuses
+        const query = selectedTopicId ? `?topicId=${selectedTopicId}` : '';
+        const response = await fetch(`/api/users/${userId}/dashboard${query}`);
+        if (!response.ok) {
+          throw new Error('Failed to fetch dashboard');
+        }
+        setDashboard(await response.json());
+        setError(null);
+      } catch (error) {
+        setError(error.message);
+      } finally {
+        setLoading(false);
+      }
+    };
+
+    fetchDashboard();
+  }, [userId, selectedTopicId]);
+
   // Function to award a reward (for demonstration purposes)
   const awardReward = () => {
     setReward({
@@ -31,8 +57,8 @@ function App() {
       </header>
       <main>
         <TopicSelectionPage onSelectTopic={setSelectedTopicId} />
-        <QuestPage topicId={selectedTopicId} />
-        <BadgeDisplay userId={userId} />
+        <QuestPage topicId={selectedTopicId} dashboard={dashboard} loading={loading} error={error} />
+        <BadgeDisplay badges={dashboard ? dashboard.badges : []} loading={loading} error={error} />
         <StudyMaterial />
         <RewardModal reward={reward} onClose={closeRewardModal} />
       </main>
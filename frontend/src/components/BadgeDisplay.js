@@ -1,35 +1,8 @@
-import React, { useState, useEffect } from 'react';
+import React from 'react';
 import './BadgeDisplay.css';
 
-const BadgeDisplay = ({ userId }) => {
-  const [badges, setBadges] = useState([]);
-  const [loading, setLoading] = useState(true);
-  const [error, setError] = useState(null);
-
-  useEffect(() => {
-    if (!userId) {
-      setLoading(false);
-      return;
-    }
-
-    const fetchBadges = async () => {
-      try {
-        const response = await fetch(`/api/users/${userId}/badges`);
-        if (!response.ok) {
-          throw new Error('Network response was not ok');
-        }
-        const data = await response.json();
-        setBadges(data);
-      } catch (error) {
-        setError(error.message);
-      } finally {
-        setLoading(false);
-      }
-    };
-
-    fetchBadges();
-  }, [userId]);
-
+// Badges come from the dashboard response fetched by App
+const BadgeDisplay = ({ badges, loading, error }) => {
   if (loading) {
     return <div>Loading badges...</div>;
   }
@@ -38,10 +11,6 @@ const BadgeDisplay = ({ userId }) => {
     return <div>Error: {error}</div>;
   }
 
-  if (!userId) {
-    return null;
-  }
-
   return (
     <div className="badge-display">
       <h2>Your Badges</h2>
@@ -9,12 +9,19 @@ const TopicSelectionPage = ({ onSelectTopic }) => {
   useEffect(() => {
     const fetchTopics = async () => {
       try {
-        const response = await fetch('/api/topics');
-        if (!response.ok) {
-          throw new Error('Network response was not ok');
-        }
-        const data = await response.json();
-        setTopics(data);
+        // /api/topics is keyset-paginated: follow X-Next-Cursor until the last page
+        const all = [];
+        let cursor = null;
+        do {
+          const query = cursor ? `?limit=100&cursor=${encodeURIComponent(cursor)}` : '?limit=100';
+          const response = await fetch(`/api/topics${query}`);
+          if (!response.ok) {
+            throw new Error('Network response was not ok');
+          }
+          all.push(...(await response.json()));
+          cursor = response.headers.get('X-Next-Cursor');
+        } while (cursor);
+        setTopics(all);
       } catch (error) {
         setError(error.message);
       } finally {
@@ -1,5 +1,6 @@
 package com.project.project_portal.config;
 
+import com.project.project_portal.handler.KeysetPagination;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.reactive.CorsWebFilter;
@@ -37,6 +38,7 @@ public class CorsConfig {
         ));
         corsConfig.setAllowedMethods(java.util.Arrays.asList("*"));
         corsConfig.setAllowedHeaders(java.util.Arrays.asList("*"));
+        corsConfig.setExposedHeaders(java.util.Arrays.asList(KeysetPagination.NEXT_CURSOR_HEADER));
         corsConfig.setAllowCredentials(true);
         corsConfig.setMaxAge(3600L);  // Cache CORS preflight response for 1 hour
 
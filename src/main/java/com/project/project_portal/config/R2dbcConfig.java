@@ -0,0 +1,52 @@
+package com.project.project_portal.config;
+
+import com.project.project_portal.dto.ProgressStatus;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+
+import java.util.List;
+
+/**
+ * R2dbcConfig registers the converters between the Java types of the DTOs and
+ * their compact column encodings.
+ *
+ * Provides:
+ * - ProgressStatus stored as its SMALLINT code in the progress tables
+ */
+@Configuration
+public class R2dbcConfig {
+
+    /**
+     * Replaces Spring Boot's default conversions with the PostgreSQL dialect
+     * conversions plus the application's converters.
+     *
+     * @return R2dbcCustomConversions used by all repositories
+     */
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions() {
+        return R2dbcCustomConversions.of(PostgresDialect.INSTANCE, List.of(
+                new ProgressStatusWritingConverter(),
+                new ProgressStatusReadingConverter()));
+    }
+
+    @WritingConverter
+    static class ProgressStatusWritingConverter implements Converter<ProgressStatus, Short> {
+        @Override
+        public Short convert(ProgressStatus source) {
+            return source.getCode();
+        }
+    }
+
+    @ReadingConverter
+    static class ProgressStatusReadingConverter implements Converter<Short, ProgressStatus> {
+        @Override
+        public ProgressStatus convert(Short source) {
+            return ProgressStatus.fromCode(source);
+        }
+    }
+}
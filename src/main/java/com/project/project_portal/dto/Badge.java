@@ -14,6 +14,9 @@ public class Badge {
     private String name;
     private String description;
     private String iconUrl;
+    private String ruleMetric;
+    private String ruleThreshold;
+    private Integer ruleValue;
 
     public Badge() {}
 
@@ -0,0 +1,105 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A task completion waiting for badge evaluation.
+ * Written to the badge_award_outbox table by complete_task and consumed
+ * by BadgeAwardPipeline.
+ */
+@Getter
+@Setter
+@Table("badge_award_outbox")
+public class BadgeAwardEvent {
+
+    @Id
+    private Long id;
+    private String userId;
+    private Integer completedTasks;
+    private Integer completedQuests;
+    private Boolean questCompleted;
+    private Integer totalXp;
+    private Integer gainedXp;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+
+    // Set on merged events only: the counts before the earliest merged completion
+    // and the outbox rows the event stands for
+    @Transient
+    private Integer completedTasksBefore;
+    @Transient
+    private Integer completedQuestsBefore;
+    @Transient
+    private List<Long> mergedIds;
+
+    public BadgeAwardEvent() {
+    }
+
+    public BadgeAwardEvent(Long id, String userId, Integer completedTasks, Integer completedQuests,
+                           Boolean questCompleted, Integer totalXp, Integer gainedXp) {
+        this.id = id;
+        this.userId = userId;
+        this.completedTasks = completedTasks;
+        this.completedQuests = completedQuests;
+        this.questCompleted = questCompleted;
+        this.totalXp = totalXp;
+        this.gainedXp = gainedXp;
+    }
+
+    /**
+     * @return the user's completed task count before the completion(s) this event covers
+     */
+    public int tasksBefore() {
+        return completedTasksBefore != null ? completedTasksBefore : completedTasks - 1;
+    }
+
+    /**
+     * @return the user's completed quest count before the completion(s) this event covers
+     */
+    public int questsBefore() {
+        if (completedQuestsBefore != null) {
+            return completedQuestsBefore;
+        }
+        return Boolean.TRUE.equals(questCompleted) ? completedQuests - 1 : completedQuests;
+    }
+
+    /**
+     * @return the IDs of the outbox rows this event covers
+     */
+    public List<Long> outboxIds() {
+        return mergedIds != null ? mergedIds : List.of(id);
+    }
+
+    /**
+     * Folds another event of the same user into this one, so that the result
+     * spans from the earlier of the two starting points to the later of the two
+     * end points. The counters only grow, so events can be merged in any order.
+     *
+     * @param other Another event of the same user
+     * @return this event
+     */
+    public BadgeAwardEvent mergeWith(BadgeAwardEvent other) {
+        int xpBefore = Math.min(totalXp - gainedXp, other.totalXp - other.gainedXp);
+        List<Long> ids = mergedIds != null ? mergedIds : new ArrayList<>(List.of(id));
+        ids.addAll(other.outboxIds());
+
+        completedTasksBefore = Math.min(tasksBefore(), other.tasksBefore());
+        completedQuestsBefore = Math.min(questsBefore(), other.questsBefore());
+        mergedIds = ids;
+        id = Math.max(id, other.id);
+        completedTasks = Math.max(completedTasks, other.completedTasks);
+        completedQuests = Math.max(completedQuests, other.completedQuests);
+        questCompleted = completedQuests > completedQuestsBefore;
+        totalXp = Math.max(totalXp, other.totalXp);
+        gainedXp = totalXp - xpBefore;
+        return this;
+    }
+}
@@ -0,0 +1,10 @@
+package com.project.project_portal.dto;
+
+/**
+ * Progress metrics a badge rule can be defined on.
+ */
+public enum BadgeMetric {
+    COMPLETED_TASKS,
+    COMPLETED_QUESTS,
+    TOTAL_XP
+}
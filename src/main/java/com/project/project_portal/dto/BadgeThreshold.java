@@ -0,0 +1,10 @@
+package com.project.project_portal.dto;
+
+/**
+ * How a badge rule's threshold is resolved.
+ * AT_LEAST compares against the rule value, ALL against the catalog total for the metric.
+ */
+public enum BadgeThreshold {
+    AT_LEAST,
+    ALL
+}
@@ -0,0 +1,24 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Result row of the complete_tasks database function: the completion of one
+ * (user, task) pair of a batch, or the error that pair raised.
+ */
+@Getter
+@Setter
+public class BatchedTaskCompletion extends TaskCompletion {
+
+    private Integer ord;
+    private String errorState;
+    private String errorMessage;
+
+    public BatchedTaskCompletion() {
+    }
+
+    public boolean failed() {
+        return errorState != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One line of a bulk completion import: a task a user has completed elsewhere.
+ */
+@Getter
+@Setter
+public class CompletionImportRecord {
+
+    private String userId;
+    private String taskId;
+
+    public CompletionImportRecord() {
+    }
+}
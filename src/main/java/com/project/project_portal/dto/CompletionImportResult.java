@@ -0,0 +1,37 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The outcome of one import record, streamed back in completion order.
+ * line is the record's 1-based position in the request body.
+ */
+@Getter
+@Setter
+public class CompletionImportResult {
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String ALREADY_COMPLETED = "ALREADY_COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private long line;
+    private String userId;
+    private String taskId;
+    private String outcome;
+    private Integer gainedXp;
+    private String message;
+
+    public CompletionImportResult() {
+    }
+
+    public CompletionImportResult(long line, String userId, String taskId, String outcome,
+                                  Integer gainedXp, String message) {
+        this.line = line;
+        this.userId = userId;
+        this.taskId = taskId;
+        this.outcome = outcome;
+        this.gainedXp = gainedXp;
+        this.message = message;
+    }
+}
@@ -0,0 +1,35 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a user's learning page renders, assembled in one response:
+ * the user, completion statistics, earned badges and, when a topic is
+ * selected, the topic tree with the user's status for each of its tasks.
+ */
+@Getter
+@Setter
+public class DashboardView {
+
+    private User user;
+    private Map<String, Object> completionStatus;
+    private List<EarnedBadge> badges;
+    private TopicTreeView topic;
+    private Map<String, ProgressStatus> taskStatuses;
+
+    public DashboardView() {
+    }
+
+    public DashboardView(User user, Map<String, Object> completionStatus, List<EarnedBadge> badges,
+                         TopicTreeView topic, Map<String, ProgressStatus> taskStatuses) {
+        this.user = user;
+        this.completionStatus = completionStatus;
+        this.badges = badges;
+        this.topic = topic;
+        this.taskStatuses = taskStatuses;
+    }
+}
@@ -0,0 +1,31 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A badge as earned by a user: the badge details plus when it was awarded.
+ */
+@Getter
+@Setter
+public class EarnedBadge {
+
+    private String id;
+    private String name;
+    private String description;
+    private String iconUrl;
+    private LocalDateTime earnedAt;
+
+    public EarnedBadge() {
+    }
+
+    public EarnedBadge(Badge badge, LocalDateTime earnedAt) {
+        this.id = badge.getId();
+        this.name = badge.getName();
+        this.description = badge.getDescription();
+        this.iconUrl = badge.getIconUrl();
+        this.earnedAt = earnedAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * The response recorded for an Idempotency-Key, replayed to retries of the
+ * same request. requestFingerprint identifies the request the key was first
+ * used with (method, path and query).
+ */
+@Getter
+@Setter
+@Table("idempotency_keys")
+public class IdempotentResponse {
+
+    @Id
+    private String idempotencyKey;
+    private String requestFingerprint;
+    private Integer statusCode;
+    private String responseBody;
+    private LocalDateTime createdAt;
+
+    public IdempotentResponse() {
+    }
+
+    public IdempotentResponse(String requestFingerprint, Integer statusCode, String responseBody) {
+        this.requestFingerprint = requestFingerprint;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+    }
+
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list.
+ * nextKey is the sort key of the last item when more items follow, otherwise null.
+ */
+@Getter
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final String nextKey;
+
+    public KeysetPage(List<T> items, String nextKey) {
+        this.items = items;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * Builds a page from a lookahead fetch of up to {@code limit + 1} rows;
+     * the extra row only signals that another page exists.
+     *
+     * @param rows The fetched rows, in key order
+     * @param limit The requested page size
+     * @param key Extracts the sort key of a row
+     * @return KeysetPage with at most limit items
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> key) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, key.apply(items.get(limit - 1)));
+    }
+}
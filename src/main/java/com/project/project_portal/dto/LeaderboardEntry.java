@@ -0,0 +1,25 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A user's position on a leaderboard.
+ */
+@Getter
+@Setter
+public class LeaderboardEntry {
+
+    private int rank;
+    private String userId;
+    private long xp;
+
+    public LeaderboardEntry() {
+    }
+
+    public LeaderboardEntry(int rank, String userId, long xp) {
+        this.rank = rank;
+        this.userId = userId;
+        this.xp = xp;
+    }
+}
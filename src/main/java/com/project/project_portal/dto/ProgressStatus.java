@@ -0,0 +1,33 @@
+package com.project.project_portal.dto;
+
+/**
+ * Status of a user's progress on a task or quest.
+ *
+ * Stored as a SMALLINT code in the progress tables and exposed by name in the
+ * REST API. The codes are part of the schema (complete_task and the progress
+ * queries compare against them) and must not be renumbered.
+ */
+public enum ProgressStatus {
+    NOT_STARTED(0),
+    IN_PROGRESS(1),
+    COMPLETED(2);
+
+    private final short code;
+
+    ProgressStatus(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static ProgressStatus fromCode(short code) {
+        for (ProgressStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown progress status code: " + code);
+    }
+}
@@ -0,0 +1,22 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A task of a quest together with one user's progress on it.
+ * Tasks the user has not started report NOT_STARTED and 0 XP.
+ */
+@Getter
+@Setter
+public class QuestTaskProgress {
+
+    private String taskId;
+    private String taskTitle;
+    private Integer orderIndex;
+    private ProgressStatus status;
+    private Integer gainedXp;
+
+    public QuestTaskProgress() {
+    }
+}
@@ -0,0 +1,42 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * A user's progress on a quest and on each of its tasks, in task order.
+ */
+@Getter
+@Setter
+public class QuestWithTasksView {
+
+    private String questId;
+    private QuestProgressView questProgress;
+    private List<QuestTaskProgress> tasks;
+
+    public QuestWithTasksView() {
+    }
+
+    public QuestWithTasksView(String questId, QuestProgressView questProgress, List<QuestTaskProgress> tasks) {
+        this.questId = questId;
+        this.questProgress = questProgress;
+        this.tasks = tasks;
+    }
+
+    @Getter
+    @Setter
+    public static class QuestProgressView {
+        private ProgressStatus status;
+        private Integer gainedXp;
+
+        public QuestProgressView() {
+        }
+
+        public QuestProgressView(ProgressStatus status, Integer gainedXp) {
+            this.status = status;
+            this.gainedXp = gainedXp;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result row of the complete_task database function.
+ * Carries the updated task progress together with the side effects
+ * (user XP, quest status, milestone counts) applied in the same call.
+ */
+@Getter
+@Setter
+public class TaskCompletion {
+
+    private String id;
+    private String userId;
+    private String taskId;
+    private ProgressStatus status;
+    private Integer gainedXp;
+    private LocalDateTime updatedAt;
+    private Boolean newlyCompleted;
+    private String questId;
+    private Boolean questCompleted;
+    private Integer totalXp;
+    private Integer completedTasks;
+    private Integer completedQuests;
+    private Long outboxId;
+
+    public TaskCompletion() {
+    }
+
+    public boolean completedNow() {
+        return Boolean.TRUE.equals(newlyCompleted);
+    }
+
+    public boolean questCompletedNow() {
+        return Boolean.TRUE.equals(questCompleted);
+    }
+
+    public BadgeAwardEvent toBadgeAwardEvent() {
+        return new BadgeAwardEvent(outboxId, userId, completedTasks, completedQuests,
+                questCompleted, totalXp, gainedXp);
+    }
+
+    public UserTaskProgress toTaskProgress() {
+        UserTaskProgress progress = new UserTaskProgress(userId, taskId, status, gainedXp, updatedAt);
+        progress.setId(id);
+        return progress;
+    }
+}
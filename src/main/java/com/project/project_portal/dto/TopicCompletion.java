@@ -0,0 +1,33 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A user's completion of one topic: completed tasks and quests against the
+ * topic's totals, and the share of its tasks completed as a whole percentage.
+ */
+@Getter
+@Setter
+public class TopicCompletion {
+
+    private String topicId;
+    private int completedTasks;
+    private int totalTasks;
+    private int completedQuests;
+    private int totalQuests;
+    private int percentComplete;
+
+    public TopicCompletion() {
+    }
+
+    public TopicCompletion(String topicId, int completedTasks, int totalTasks,
+                           int completedQuests, int totalQuests) {
+        this.topicId = topicId;
+        this.completedTasks = completedTasks;
+        this.totalTasks = totalTasks;
+        this.completedQuests = completedQuests;
+        this.totalQuests = totalQuests;
+        this.percentComplete = totalTasks == 0 ? 0 : completedTasks * 100 / totalTasks;
+    }
+}
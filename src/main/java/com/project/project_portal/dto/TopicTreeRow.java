@@ -0,0 +1,26 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One row of the quests LEFT JOIN tasks query behind the topic tree.
+ * Task columns are null for a quest without tasks.
+ */
+@Getter
+@Setter
+public class TopicTreeRow {
+
+    private String questId;
+    private String questName;
+    private String questDescription;
+    private Integer questOrderIndex;
+    private String taskId;
+    private String taskTitle;
+    private String taskDescription;
+    private Integer taskOrderIndex;
+    private Integer taskXpReward;
+
+    public TopicTreeRow() {
+    }
+}
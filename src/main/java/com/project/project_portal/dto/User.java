@@ -4,6 +4,7 @@ package com.project.project_portal.dto;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 @Getter
 @Setter
@@ -15,6 +16,8 @@ public class User {
     private String name;
     private String email;
     private Integer totalXp;
+    @Version
+    private Long version;
 
     public User() {
     }
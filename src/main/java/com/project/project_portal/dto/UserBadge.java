@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 @Setter
 @Getter
-@Table("user_badges")
+@Table("user_badges_view")
 public class UserBadge {
 
     @Id
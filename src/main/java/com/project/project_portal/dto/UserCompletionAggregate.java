@@ -0,0 +1,22 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Per-user completion figures read in one aggregate query:
+ * the user's XP, progress counters and number of earned badges.
+ */
+@Getter
+@Setter
+public class UserCompletionAggregate {
+
+    private String userId;
+    private Integer totalXp;
+    private Integer completedTasks;
+    private Integer completedQuests;
+    private Long badgesEarned;
+
+    public UserCompletionAggregate() {
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A user's XP within some scope (a quest or a topic), as read to seed a leaderboard.
+ */
+@Getter
+@Setter
+public class UserXp {
+
+    private String userId;
+    private Long xp;
+
+    public UserXp() {
+    }
+}
@@ -0,0 +1,24 @@
+package com.project.project_portal.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Table("xp_ledger")
+public class XpLedgerEntry {
+
+    @Id
+    private Long id;
+    private String userId;
+    private String taskId;
+    private Integer delta;
+    private LocalDateTime createdAt;
+
+    public XpLedgerEntry() {
+    }
+}
@@ -3,6 +3,7 @@ package com.project.project_portal.exception;
 
 import com.project.project_portal.dto.ErrorResponse;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -31,8 +32,13 @@ public class GlobalErrorHandler implements ErrorWebExceptionHandler {
      */
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
-        // Set response status to 500 Internal Server Error
-        exchange.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+        // Version conflicts are 409 Conflict, rejected mutations 503 Service Unavailable;
+        // anything else is 500 Internal Server Error
+        exchange.getResponse().setStatusCode(ex instanceof OptimisticLockingFailureException
+                ? HttpStatus.CONFLICT
+                : ex instanceof MutationRejectedException
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.INTERNAL_SERVER_ERROR);
         exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
 
         ErrorResponse errorResponse = new ErrorResponse(ex.getMessage());
@@ -0,0 +1,13 @@
+package com.project.project_portal.exception;
+
+/**
+ * MutationRejectedException signals that a progress mutation was not accepted
+ * because its user's mutation lane is full. Nothing was written, so the client
+ * can retry the request; handlers answer it with 503 Service Unavailable.
+ */
+public class MutationRejectedException extends RuntimeException {
+
+    public MutationRejectedException(String message) {
+        super(message);
+    }
+}
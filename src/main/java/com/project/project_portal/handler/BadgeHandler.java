@@ -96,9 +96,8 @@ public class BadgeHandler {
 
     public Mono<ServerResponse> getUserBadges(ServerRequest request) {
         String userId = request.pathVariable("userId");
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(service.getUserBadges(userId), Badge.class);
+        return KeysetPagination.respond(request,
+                (afterKey, limit) -> service.getUserBadges(userId, afterKey, limit));
     }
 
     public Mono<ServerResponse> awardBadge(ServerRequest request) {
@@ -0,0 +1,58 @@
+package com.project.project_portal.handler;
+
+import com.project.project_portal.dto.DashboardView;
+import com.project.project_portal.service.DashboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * DashboardHandler serves the aggregated data of a user's learning page,
+ * replacing the separate user, badge, completion status and per-quest task
+ * requests the page would otherwise make.
+ *
+ * Delegates all business logic to DashboardService.
+ */
+@Tag(name = "Dashboard", description = "Aggregated user dashboard endpoints")
+@Component
+public class DashboardHandler {
+
+    private final DashboardService service;
+
+    public DashboardHandler(DashboardService service) {
+        this.service = service;
+    }
+
+    /**
+     * Retrieves a user's dashboard.
+     * Query parameters: topicId (optional) to include that topic's tree and task statuses
+     *
+     * @param request ServerRequest with userId path variable and optional topicId query param
+     * @return Mono<ServerResponse> with DashboardView or 404 if the user or topic is not found
+     */
+    @Operation(
+            summary = "Get user dashboard",
+            description = "Retrieve user, completion status, badges and optionally a topic tree with task statuses in one call",
+            tags = "Dashboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Dashboard retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DashboardView.class)))
+    @ApiResponse(responseCode = "404", description = "User or topic not found")
+    public Mono<ServerResponse> getDashboard(ServerRequest request) {
+        String userId = request.pathVariable("userId");
+        String topicId = request.queryParam("topicId").orElse(null);
+
+        return service.getDashboard(userId, topicId)
+                .flatMap(dashboard -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(dashboard))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.project_portal.handler;
+
+import com.project.project_portal.dto.ErrorResponse;
+import com.project.project_portal.dto.KeysetPage;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.BiFunction;
+
+/**
+ * KeysetPagination implements the shared request/response contract of all list endpoints.
+ *
+ * Query parameters: cursor (opaque token from a previous page, omitted for the
+ * first page) and limit (default 20, at most 100). The response body is the
+ * JSON array of the page; the X-Next-Cursor header carries the token for the
+ * next page and is absent on the last page.
+ */
+public final class KeysetPagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Reads cursor and limit from the request, loads the page and writes it out.
+     * Malformed cursors and limits are answered with 400.
+     *
+     * @param request ServerRequest with optional cursor and limit query params
+     * @param loader Loads a page given the decoded key ("" for the first page) and the limit
+     * @return Mono<ServerResponse> with the page items and next cursor header
+     */
+    public static <T> Mono<ServerResponse> respond(ServerRequest request,
+                                                   BiFunction<String, Integer, Mono<KeysetPage<T>>> loader) {
+        return Mono.defer(() -> loader.apply(decode(request), limit(request)))
+                .flatMap(page -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+                    if (page.getNextKey() != null) {
+                        response.header(NEXT_CURSOR_HEADER, encode(page.getNextKey()));
+                    }
+                    return response.bodyValue(page.getItems());
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new ErrorResponse(e.getMessage())));
+    }
+
+    private static int limit(ServerRequest request) {
+        int limit = request.queryParam("limit").map(Integer::parseInt).orElse(DEFAULT_LIMIT);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    private static String decode(ServerRequest request) {
+        return request.queryParam("cursor")
+                .map(cursor -> {
+                    try {
+                        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid cursor");
+                    }
+                })
+                .orElse("");
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,221 @@
+package com.project.project_portal.handler;
+
+import com.project.project_portal.dto.ErrorResponse;
+import com.project.project_portal.dto.LeaderboardEntry;
+import com.project.project_portal.service.LeaderboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * LeaderboardHandler serves the global XP ranking (the top users, a user's
+ * rank and the users ranked around them) and the per-topic and per-quest
+ * rankings by XP earned within the topic or quest.
+ *
+ * Delegates all business logic to LeaderboardService.
+ */
+@Tag(name = "Leaderboard", description = "XP ranking endpoints")
+@Component
+public class LeaderboardHandler {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+    private static final int DEFAULT_RADIUS = 5;
+    private static final int MAX_RADIUS = 50;
+
+    private final LeaderboardService service;
+
+    public LeaderboardHandler(LeaderboardService service) {
+        this.service = service;
+    }
+
+    /**
+     * Retrieves the highest ranked users.
+     * Query parameters: limit (default 10, at most 100)
+     *
+     * @param request ServerRequest with optional limit query param
+     * @return Mono<ServerResponse> with the entries in rank order
+     */
+    @Operation(
+            summary = "Get top users by XP",
+            description = "Retrieve the highest ranked users of the global XP leaderboard",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Leaderboard retrieved successfully",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = LeaderboardEntry.class))))
+    @ApiResponse(responseCode = "400", description = "Invalid limit")
+    public Mono<ServerResponse> getTop(ServerRequest request) {
+        return entries(Mono.fromSupplier(() -> service.getTop(
+                intParam(request, "limit", DEFAULT_LIMIT, 1, MAX_LIMIT))));
+    }
+
+    /**
+     * Retrieves a user's rank and XP.
+     *
+     * @param request ServerRequest with userId path variable
+     * @return Mono<ServerResponse> with LeaderboardEntry or 404 if the user is not ranked
+     */
+    @Operation(
+            summary = "Get user rank",
+            description = "Retrieve a user's position on the global XP leaderboard",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Rank retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LeaderboardEntry.class)))
+    @ApiResponse(responseCode = "404", description = "User not found")
+    public Mono<ServerResponse> getRank(ServerRequest request) {
+        return entry(service.getRank(request.pathVariable("userId")));
+    }
+
+    /**
+     * Retrieves the users ranked around a user, including the user.
+     * Query parameters: radius (default 5, at most 50) entries above and below
+     *
+     * @param request ServerRequest with userId path variable and optional radius query param
+     * @return Mono<ServerResponse> with the entries in rank order or 404 if the user is not ranked
+     */
+    @Operation(
+            summary = "Get leaderboard neighbours",
+            description = "Retrieve the users ranked directly above and below a user",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Neighbours retrieved successfully",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = LeaderboardEntry.class))))
+    @ApiResponse(responseCode = "400", description = "Invalid radius")
+    @ApiResponse(responseCode = "404", description = "User not found")
+    public Mono<ServerResponse> getNeighbours(ServerRequest request) {
+        String userId = request.pathVariable("userId");
+        return entries(Mono.defer(() -> service.getNeighbours(userId,
+                intParam(request, "radius", DEFAULT_RADIUS, 0, MAX_RADIUS))));
+    }
+
+    /**
+     * Retrieves the users who earned the most XP in a topic.
+     * Query parameters: limit (default 10, at most 100)
+     *
+     * @param request ServerRequest with topicId path variable and optional limit query param
+     * @return Mono<ServerResponse> with the entries in rank order or 404 if the topic is not found
+     */
+    @Operation(
+            summary = "Get top users of a topic",
+            description = "Retrieve the users ranked highest by XP earned across a topic's quests",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Topic leaderboard retrieved successfully",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = LeaderboardEntry.class))))
+    @ApiResponse(responseCode = "400", description = "Invalid limit")
+    @ApiResponse(responseCode = "404", description = "Topic not found")
+    public Mono<ServerResponse> getTopicTop(ServerRequest request) {
+        String topicId = request.pathVariable("topicId");
+        return entries(Mono.defer(() -> service.getTopicTop(topicId,
+                intParam(request, "limit", DEFAULT_LIMIT, 1, MAX_LIMIT))));
+    }
+
+    /**
+     * Retrieves a user's rank within a topic.
+     *
+     * @param request ServerRequest with topicId and userId path variables
+     * @return Mono<ServerResponse> with LeaderboardEntry or 404 if the topic is not found or the user is not ranked
+     */
+    @Operation(
+            summary = "Get user rank in a topic",
+            description = "Retrieve a user's position by XP earned across a topic's quests",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Rank retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LeaderboardEntry.class)))
+    @ApiResponse(responseCode = "404", description = "Topic not found or user not ranked")
+    public Mono<ServerResponse> getTopicRank(ServerRequest request) {
+        return entry(service.getTopicRank(request.pathVariable("topicId"), request.pathVariable("userId")));
+    }
+
+    /**
+     * Retrieves the users who earned the most XP in a quest.
+     * Query parameters: limit (default 10, at most 100)
+     *
+     * @param request ServerRequest with questId path variable and optional limit query param
+     * @return Mono<ServerResponse> with the entries in rank order or 404 if the quest is not found
+     */
+    @Operation(
+            summary = "Get top users of a quest",
+            description = "Retrieve the users ranked highest by XP earned in a quest",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Quest leaderboard retrieved successfully",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = LeaderboardEntry.class))))
+    @ApiResponse(responseCode = "400", description = "Invalid limit")
+    @ApiResponse(responseCode = "404", description = "Quest not found")
+    public Mono<ServerResponse> getQuestTop(ServerRequest request) {
+        String questId = request.pathVariable("questId");
+        return entries(Mono.defer(() -> service.getQuestTop(questId,
+                intParam(request, "limit", DEFAULT_LIMIT, 1, MAX_LIMIT))));
+    }
+
+    /**
+     * Retrieves a user's rank within a quest.
+     *
+     * @param request ServerRequest with questId and userId path variables
+     * @return Mono<ServerResponse> with LeaderboardEntry or 404 if the quest is not found or the user is not ranked
+     */
+    @Operation(
+            summary = "Get user rank in a quest",
+            description = "Retrieve a user's position by XP earned in a quest",
+            tags = "Leaderboard"
+    )
+    @ApiResponse(responseCode = "200", description = "Rank retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LeaderboardEntry.class)))
+    @ApiResponse(responseCode = "404", description = "Quest not found or user not ranked")
+    public Mono<ServerResponse> getQuestRank(ServerRequest request) {
+        return entry(service.getQuestRank(request.pathVariable("questId"), request.pathVariable("userId")));
+    }
+
+    private static Mono<ServerResponse> entries(Mono<List<LeaderboardEntry>> entries) {
+        return entries
+                .flatMap(list -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(list))
+                .switchIfEmpty(ServerResponse.notFound().build())
+                .onErrorResume(IllegalArgumentException.class, LeaderboardHandler::badRequest);
+    }
+
+    private static Mono<ServerResponse> entry(Mono<LeaderboardEntry> entry) {
+        return entry
+                .flatMap(found -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(found))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue, int min, int max) {
+        int value;
+        try {
+            value = request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+        }
+        return value;
+    }
+
+    private static Mono<ServerResponse> badRequest(IllegalArgumentException e) {
+        return ServerResponse.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(e.getMessage()));
+    }
+}
@@ -1,21 +1,35 @@
 package com.project.project_portal.handler;
 
+import com.project.project_portal.dto.CompletionImportResult;
 import com.project.project_portal.dto.ErrorResponse;
+import com.project.project_portal.dto.IdempotentResponse;
+import com.project.project_portal.dto.TopicCompletion;
 import com.project.project_portal.dto.UserTaskProgress;
-import com.project.project_portal.dto.UserQuestProgress;
+import com.project.project_portal.exception.MutationRejectedException;
+import com.project.project_portal.service.CompletionImportService;
+import com.project.project_portal.service.IdempotencyService;
 import com.project.project_portal.service.ProgressDomainService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
 
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Function;
+
 /**
  * ProgressHandler manages all HTTP request handling for game progress operations.
  *
@@ -26,15 +40,29 @@ import reactor.core.publisher.Mono;
  * - Completion status queries
  *
  * All game state updates are delegated to ProgressDomainService for consistency.
+ * Task start/complete and mastery awards accept an Idempotency-Key header so
+ * that client retries are answered with the first response.
  */
 @Tag(name = "Progress", description = "Game progress and task/quest management endpoints")
 @Component
 public class ProgressHandler {
 
+    // Seconds a client is asked to wait before retrying a rejected mutation
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     private final ProgressDomainService progressDomainService;
+    private final CompletionImportService completionImportService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public ProgressHandler(ProgressDomainService progressDomainService) {
+    public ProgressHandler(ProgressDomainService progressDomainService,
+                           CompletionImportService completionImportService,
+                           IdempotencyService idempotencyService,
+                           ObjectMapper objectMapper) {
         this.progressDomainService = progressDomainService;
+        this.completionImportService = completionImportService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -53,19 +81,14 @@ public class ProgressHandler {
     @ApiResponse(responseCode = "200", description = "Task started successfully",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserTaskProgress.class)))
     @ApiResponse(responseCode = "400", description = "Invalid request or task not found")
+    @ApiResponse(responseCode = "503", description = "Too many pending updates for the user; retry after Retry-After seconds")
     public Mono<ServerResponse> startTask(
             @Parameter(description = "Task ID to start", required = true) ServerRequest request) {
         String taskId = request.pathVariable("taskId");
         String userId = request.queryParam("userId")
                 .orElseThrow(() -> new IllegalArgumentException("userId is required"));
 
-        return progressDomainService.startTask(userId, taskId)
-                .flatMap(p -> ServerResponse.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(p))
-                .onErrorResume(e -> ServerResponse.badRequest()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(new ErrorResponse(e.getMessage())));
+        return respond(request, progressDomainService.startTask(userId, taskId), Throwable::getMessage);
     }
 
     /**
@@ -83,19 +106,39 @@ public class ProgressHandler {
     @ApiResponse(responseCode = "200", description = "Task completed successfully",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserTaskProgress.class)))
     @ApiResponse(responseCode = "400", description = "Invalid request or task not started")
+    @ApiResponse(responseCode = "503", description = "Too many pending updates for the user; retry after Retry-After seconds")
     public Mono<ServerResponse> completeTask(
             @Parameter(description = "Task ID to complete", required = true) ServerRequest request) {
         String taskId = request.pathVariable("taskId");
         String userId = request.queryParam("userId")
                 .orElseThrow(() -> new IllegalArgumentException("userId is required"));
 
-        return progressDomainService.completeTask(userId, taskId)
-                .flatMap(p -> ServerResponse.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(p))
-                .onErrorResume(e -> ServerResponse.badRequest()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(new ErrorResponse(e.getMessage())));
+        return respond(request, progressDomainService.completeTask(userId, taskId), Throwable::getMessage);
+    }
+
+    /**
+     * Imports completions in bulk from an NDJSON body of {"userId", "taskId"} lines.
+     * Streams one result per line back as NDJSON while the import runs; a line
+     * that is not a valid record gets a FAILED result instead of ending the import.
+     *
+     * @param request ServerRequest with an application/x-ndjson body
+     * @return Mono<ServerResponse> streaming CompletionImportResult lines
+     */
+    @Operation(
+            summary = "Import completions in bulk",
+            description = "Complete tasks for many users from an NDJSON stream of {userId, taskId} records. "
+                    + "Tasks the user has not started are started first. "
+                    + "Results are streamed back per record; badges are evaluated once per user at the end.",
+            tags = "Progress"
+    )
+    @ApiResponse(responseCode = "200", description = "Import results, one NDJSON line per record",
+            content = @Content(mediaType = "application/x-ndjson",
+                    schema = @Schema(implementation = CompletionImportResult.class)))
+    public Mono<ServerResponse> importCompletions(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(completionImportService.importCompletions(request.bodyToFlux(String.class)),
+                        CompletionImportResult.class);
     }
 
     /**
@@ -133,31 +176,45 @@ public class ProgressHandler {
     }
 
     /**
-     * Retrieves all quest progress records for a user.
+     * Retrieves a user's quest progress records with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
      *
-     * @param request ServerRequest with userId path variable
-     * @return Mono<ServerResponse> with Flux of UserQuestProgress
+     * @param request ServerRequest with userId path variable and optional cursor and limit
+     * @return Mono<ServerResponse> with the UserQuestProgress records of the requested page
      */
     public Mono<ServerResponse> getAllUserQuestProgress(ServerRequest request) {
         String userId = request.pathVariable("userId");
 
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(progressDomainService.getAllUserQuestProgress(userId), UserQuestProgress.class);
+        return KeysetPagination.respond(request, (afterQuestId, limit) ->
+                progressDomainService.getAllUserQuestProgress(userId, afterQuestId, limit));
     }
 
     /**
-     * Retrieves all task progress records for a user.
+     * Retrieves a user's task progress records with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
      *
-     * @param request ServerRequest with userId path variable
-     * @return Mono<ServerResponse> with Flux of UserTaskProgress
+     * @param request ServerRequest with userId path variable and optional cursor and limit
+     * @return Mono<ServerResponse> with the UserTaskProgress records of the requested page
      */
     public Mono<ServerResponse> getAllUserTaskProgress(ServerRequest request) {
         String userId = request.pathVariable("userId");
 
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(progressDomainService.getAllUserTaskProgress(userId), UserTaskProgress.class);
+        return KeysetPagination.respond(request, (afterTaskId, limit) ->
+                progressDomainService.getAllUserTaskProgress(userId, afterTaskId, limit));
+    }
+
+    /**
+     * Retrieves the XP history of a user from the XP ledger, newest first, with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
+     *
+     * @param request ServerRequest with userId path variable and optional cursor and limit
+     * @return Mono<ServerResponse> with the XpLedgerEntry records of the requested page
+     */
+    public Mono<ServerResponse> getUserXpHistory(ServerRequest request) {
+        String userId = request.pathVariable("userId");
+
+        return KeysetPagination.respond(request, (beforeId, limit) ->
+                progressDomainService.getUserXpHistory(userId, beforeId.isEmpty() ? null : Long.valueOf(beforeId), limit));
     }
 
     /**
@@ -207,6 +264,30 @@ public class ProgressHandler {
                         .bodyValue(new ErrorResponse(e.toString())));
     }
 
+    /**
+     * Retrieves a user's completion of every topic.
+     * Shows completed tasks and quests against each topic's totals and the percentage complete.
+     *
+     * @param request ServerRequest with userId path variable
+     * @return Mono<ServerResponse> with the TopicCompletion list in topic ID order
+     */
+    @Operation(
+            summary = "Get per-topic completion",
+            description = "Get completed tasks, completed quests and percent complete for every topic",
+            tags = "Progress"
+    )
+    @ApiResponse(responseCode = "200", description = "Topic completion retrieved successfully",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = TopicCompletion.class))))
+    public Mono<ServerResponse> getUserTopicCompletion(ServerRequest request) {
+        String userId = request.pathVariable("userId");
+
+        return progressDomainService.getUserTopicCompletion(userId)
+                .flatMap(topics -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(topics));
+    }
+
     /**
      * Awards mastery badges when user completes all content.
      * Checks for "Legend Master" (all tasks+quests) and "Java Master" (all quests).
@@ -217,13 +298,70 @@ public class ProgressHandler {
     public Mono<ServerResponse> awardMasteryBadges(ServerRequest request) {
         String userId = request.pathVariable("userId");
 
-        return progressDomainService.awardMasteryBadges(userId)
-                .then(progressDomainService.getUserCompletionStatus(userId))
-                .flatMap(status -> ServerResponse.ok()
+        return respond(request, progressDomainService.awardMasteryBadges(userId)
+                .then(progressDomainService.getUserCompletionStatus(userId)), Throwable::toString);
+    }
+
+    /**
+     * Answers a progress mutation with 200 and its result, or 400 and the error
+     * message. With an Idempotency-Key header the response is recorded, and
+     * retries with the same key get the recorded response without running the
+     * mutation again; reusing a key for a different request is a 422. A
+     * mutation rejected by a full mutation lane is a 503 and is never recorded,
+     * so a retry with the same key runs it.
+     *
+     * @param request The mutation request
+     * @param result The mutation's result
+     * @param errorMessage Renders a mutation error for the 400 body
+     * @return Mono<ServerResponse> with the JSON response
+     */
+    private Mono<ServerResponse> respond(ServerRequest request, Mono<?> result,
+                                         Function<Throwable, String> errorMessage) {
+        String key = request.headers().firstHeader(IdempotencyService.IDEMPOTENCY_KEY_HEADER);
+        if (key == null || key.isBlank()) {
+            return result
+                    .flatMap(body -> ServerResponse.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(body))
+                    .onErrorResume(MutationRejectedException.class, ProgressHandler::retryLater)
+                    .onErrorResume(e -> ServerResponse.badRequest()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(new ErrorResponse(errorMessage.apply(e))));
+        }
+
+        String fingerprint = request.methodName() + " " + request.uri().getRawPath()
+                + "?" + Objects.toString(request.uri().getRawQuery(), "");
+        Mono<IdempotentResponse> response = result
+                .map(body -> new IdempotentResponse(fingerprint, HttpStatus.OK.value(), toJson(body)))
+                .onErrorResume(e -> !(e instanceof MutationRejectedException), e -> Mono.fromSupplier(() ->
+                        new IdempotentResponse(fingerprint, HttpStatus.BAD_REQUEST.value(),
+                                toJson(new ErrorResponse(errorMessage.apply(e))))));
+
+        return idempotencyService.execute(key, fingerprint, response)
+                .flatMap(recorded -> ServerResponse.status(recorded.getStatusCode())
                         .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(status))
-                .onErrorResume(e -> ServerResponse.badRequest()
+                        .bodyValue(recorded.getResponseBody()))
+                .onErrorResume(MutationRejectedException.class, ProgressHandler::retryLater)
+                .onErrorResume(IllegalStateException.class, e -> ServerResponse.unprocessableEntity()
                         .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(new ErrorResponse(e.toString())));
+                        .bodyValue(new ErrorResponse(e.getMessage())));
+    }
+
+    /**
+     * Answers a mutation rejected by a full mutation lane with 503 and a Retry-After header.
+     */
+    static Mono<ServerResponse> retryLater(MutationRejectedException e) {
+        return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(e.getMessage()));
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
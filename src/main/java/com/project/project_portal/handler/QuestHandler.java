@@ -33,21 +33,21 @@ public class QuestHandler {
     }
 
     /**
-     * Retrieves all quests in the system.
+     * Retrieves quests with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
      *
-     * @param request ServerRequest
-     * @return Mono<ServerResponse> with Flux<Quest>
+     * @param request ServerRequest with optional cursor and limit query params
+     * @return Mono<ServerResponse> with the quests of the requested page
      */
     @Operation(
             summary = "Get all quests",
-            description = "Retrieve list of all available quests",
+            description = "Retrieve a page of available quests; the X-Next-Cursor header holds the cursor of the next page",
             tags = "Quests"
     )
     @ApiResponse(responseCode = "200", description = "Quests retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
     public Mono<ServerResponse> getAllQuests(ServerRequest request) {
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(service.getAllQuests(), Quest.class);
+        return KeysetPagination.respond(request, service::getAllQuests);
     }
 
     /**
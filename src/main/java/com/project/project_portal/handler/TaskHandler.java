@@ -33,21 +33,21 @@ public class TaskHandler {
     }
 
     /**
-     * Retrieves all tasks in the system.
+     * Retrieves tasks with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
      *
-     * @param request ServerRequest
-     * @return Mono<ServerResponse> with Flux<Task>
+     * @param request ServerRequest with optional cursor and limit query params
+     * @return Mono<ServerResponse> with the tasks of the requested page
      */
     @Operation(
             summary = "Get all tasks",
-            description = "Retrieve list of all available tasks",
+            description = "Retrieve a page of available tasks; the X-Next-Cursor header holds the cursor of the next page",
             tags = "Tasks"
     )
     @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
     public Mono<ServerResponse> getAllTasks(ServerRequest request) {
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(service.getAllTasks(), Task.class);
+        return KeysetPagination.respond(request, service::getAllTasks);
     }
 
     /**
@@ -37,25 +37,21 @@ public class TopicHandler {
     }
 
     /**
-     * Retrieves all topics with pagination support.
-     * Query parameters: page (default 0), size (default 10)
+     * Retrieves topics with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
      *
-     * @param request ServerRequest with optional page and size query params
-     * @return Mono<ServerResponse> with Flux<Topic> for requested page
+     * @param request ServerRequest with optional cursor and limit query params
+     * @return Mono<ServerResponse> with the topics of the requested page
      */
     @Operation(
             summary = "Get all topics",
-            description = "Retrieve paginated list of learning topics",
+            description = "Retrieve a page of learning topics; the X-Next-Cursor header holds the cursor of the next page",
             tags = "Topics"
     )
     @ApiResponse(responseCode = "200", description = "Topics retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
     public Mono<ServerResponse> getAllTopics(ServerRequest request) {
-        int page = request.queryParam("page").map(Integer::parseInt).orElse(0);
-        int size = request.queryParam("size").map(Integer::parseInt).orElse(10);
-
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(service.getAllTopics(page, size), Topic.class);
+        return KeysetPagination.respond(request, service::getAllTopics);
     }
 
     /**
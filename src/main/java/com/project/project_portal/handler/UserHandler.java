@@ -34,15 +34,14 @@ public class UserHandler {
     }
 
     /**
-     * Retrieves all users in the system.
+     * Retrieves users with keyset pagination.
+     * Query parameters: cursor (from X-Next-Cursor), limit (default 20)
      *
-     * @param request ServerRequest
-     * @return Mono<ServerResponse> with Flux<User>
+     * @param request ServerRequest with optional cursor and limit query params
+     * @return Mono<ServerResponse> with the users of the requested page
      */
     public Mono<ServerResponse> getAllUsers(ServerRequest request) {
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(service.getAllUsers(), User.class);
+        return KeysetPagination.respond(request, service::getAllUsers);
     }
 
     /**
@@ -1,29 +1,29 @@
 package com.project.project_portal.handler;
 
 import com.project.project_portal.dto.UserQuestProgress;
+import com.project.project_portal.service.ProgressDomainService;
 import com.project.project_portal.service.UserQuestProgressService;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Flux;
 
 @Component
 public class UserQuestProgressHandler {
 
     private final UserQuestProgressService service;
+    private final ProgressDomainService progressDomainService;
 
-    public UserQuestProgressHandler(UserQuestProgressService service) {
+    public UserQuestProgressHandler(UserQuestProgressService service, ProgressDomainService progressDomainService) {
         this.service = service;
+        this.progressDomainService = progressDomainService;
     }
 
     public Mono<ServerResponse> getProgressForUser(ServerRequest request) {
         String userId = request.pathVariable("userId");
-        Flux<UserQuestProgress> progress = service.getByUser(userId);
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(progress, UserQuestProgress.class);
+        return KeysetPagination.respond(request,
+                (afterQuestId, limit) -> progressDomainService.getAllUserQuestProgress(userId, afterQuestId, limit));
     }
 
     public Mono<ServerResponse> getProgressForUserAndQuest(ServerRequest request) {
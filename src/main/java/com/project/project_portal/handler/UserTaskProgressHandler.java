@@ -2,13 +2,13 @@ package com.project.project_portal.handler;
 
 import com.project.project_portal.dto.ErrorResponse;
 import com.project.project_portal.dto.UserTaskProgress;
+import com.project.project_portal.exception.MutationRejectedException;
 import com.project.project_portal.service.UserTaskProgressService;
 import com.project.project_portal.service.ProgressDomainService;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
@@ -36,6 +36,7 @@ public class UserTaskProgressHandler {
                 .flatMap(progress -> ServerResponse.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .bodyValue(progress))
+                .onErrorResume(MutationRejectedException.class, ProgressHandler::retryLater)
                 .onErrorResume(e -> ServerResponse.badRequest()
                         .contentType(MediaType.APPLICATION_JSON)
                         .bodyValue(new ErrorResponse(e.getMessage())));
@@ -43,10 +44,8 @@ public class UserTaskProgressHandler {
 
     public Mono<ServerResponse> getProgressForUser(ServerRequest request) {
         String userId = request.pathVariable("userId");
-        Flux<UserTaskProgress> progress = service.getByUser(userId);
-        return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(progress, UserTaskProgress.class);
+        return KeysetPagination.respond(request,
+                (afterTaskId, limit) -> progressDomainService.getAllUserTaskProgress(userId, afterTaskId, limit));
     }
 
     public Mono<ServerResponse> getProgressForUserAndTask(ServerRequest request) {
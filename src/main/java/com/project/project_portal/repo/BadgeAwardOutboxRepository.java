@@ -0,0 +1,23 @@
+package com.project.project_portal.repo;
+
+import com.project.project_portal.dto.BadgeAwardEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface BadgeAwardOutboxRepository extends ReactiveCrudRepository<BadgeAwardEvent, Long> {
+
+    @Query("SELECT * FROM badge_award_outbox WHERE processed_at IS NULL " +
+            "AND created_at < NOW() - make_interval(secs => :minAgeSeconds) ORDER BY id LIMIT :limit")
+    Flux<BadgeAwardEvent> findPending(long minAgeSeconds, int limit);
+
+    @Modifying
+    @Query("UPDATE badge_award_outbox SET processed_at = NOW() WHERE id = ANY(:ids)")
+    Mono<Integer> markProcessed(Long[] ids);
+
+    @Modifying
+    @Query("DELETE FROM badge_award_outbox WHERE processed_at < NOW() - make_interval(secs => :retentionSeconds)")
+    Mono<Integer> deleteProcessed(long retentionSeconds);
+}
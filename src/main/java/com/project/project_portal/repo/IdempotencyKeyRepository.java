@@ -0,0 +1,25 @@
+package com.project.project_portal.repo;
+
+import com.project.project_portal.dto.IdempotentResponse;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface IdempotencyKeyRepository extends ReactiveCrudRepository<IdempotentResponse, String> {
+
+    @Query("SELECT * FROM idempotency_keys WHERE idempotency_key = :idempotencyKey " +
+            "AND created_at > NOW() - make_interval(secs => :ttlSeconds)")
+    Mono<IdempotentResponse> findFresh(String idempotencyKey, long ttlSeconds);
+
+    @Modifying
+    @Query("INSERT INTO idempotency_keys (idempotency_key, request_fingerprint, status_code, response_body) " +
+            "VALUES (:idempotencyKey, :requestFingerprint, :statusCode, :responseBody) " +
+            "ON CONFLICT (idempotency_key) DO UPDATE SET request_fingerprint = EXCLUDED.request_fingerprint, " +
+            "status_code = EXCLUDED.status_code, response_body = EXCLUDED.response_body, created_at = NOW()")
+    Mono<Integer> upsert(String idempotencyKey, String requestFingerprint, int statusCode, String responseBody);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE created_at < NOW() - make_interval(secs => :ttlSeconds)")
+    Mono<Integer> deleteExpired(long ttlSeconds);
+}
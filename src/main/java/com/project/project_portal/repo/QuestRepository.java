@@ -7,4 +7,4 @@ import reactor.core.publisher.Flux;
 public interface QuestRepository extends ReactiveCrudRepository<Quest, String> {
 
     Flux<Quest> findByTopicIdOrderByOrderIndexAsc(String topicId);
-}
\ No newline at end of file
+}
@@ -1,10 +1,25 @@
 package com.project.project_portal.repo;
 
 import com.project.project_portal.dto.Topic;
+import com.project.project_portal.dto.TopicTreeRow;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 
 public interface TopicRepository extends ReactiveCrudRepository<Topic, String> {
 
     Flux<Topic> findAll();
-}
\ No newline at end of file
+
+    /**
+     * Fetches all quests of a topic with their tasks in one ordered join:
+     * quests by order_index, and tasks by order_index within each quest.
+     * Used for topics the content catalog does not have yet.
+     */
+    @Query("SELECT q.id AS quest_id, q.name AS quest_name, q.description AS quest_description, " +
+            "q.order_index AS quest_order_index, t.id AS task_id, t.title AS task_title, " +
+            "t.description AS task_description, t.order_index AS task_order_index, t.xp_reward AS task_xp_reward " +
+            "FROM quests q LEFT JOIN tasks t ON t.quest_id = q.id " +
+            "WHERE q.topic_id = :topicId " +
+            "ORDER BY q.order_index, q.id, t.order_index, t.id")
+    Flux<TopicTreeRow> findTreeRows(String topicId);
+}
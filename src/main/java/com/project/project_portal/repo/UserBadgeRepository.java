@@ -1,15 +1,54 @@
 package com.project.project_portal.repo;
 
 import com.project.project_portal.dto.UserBadge;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 public interface UserBadgeRepository extends ReactiveCrudRepository<UserBadge, String> {
     Flux<UserBadge> findByUserId(String userId);
+    Flux<UserBadge> findByUserIdOrderByEarnedAtAsc(String userId);
     Mono<UserBadge> findByUserIdAndBadgeId(String userId, String badgeId);
 
-    @Query("DELETE FROM user_badges WHERE user_id = :userId AND badge_id = :badgeId")
+    /**
+     * Keyset page of a user's badge awards in award order, (earned_at, id) after
+     * the given award. The user's awards are read through the (user_key, earned_at) index.
+     */
+    @Query("SELECT * FROM user_badges_view WHERE user_id = :userId " +
+            "AND (earned_at, id) > (:afterEarnedAt, :afterId) " +
+            "ORDER BY earned_at, id LIMIT :limit")
+    Flux<UserBadge> findPageByUserId(String userId, LocalDateTime afterEarnedAt, String afterId, int limit);
+
+    @Query("DELETE FROM user_badges ub USING users u, badges b " +
+            "WHERE ub.user_key = u.row_key AND ub.badge_key = b.row_key AND u.id = :userId AND b.id = :badgeId")
     Mono<Void> deleteByUserIdAndBadgeId(String userId, String badgeId);
-}
\ No newline at end of file
+
+    /**
+     * Awards the given badges to one user in one statement and returns only the
+     * newly created rows; badges the user already has are skipped, as are
+     * unknown users and badges.
+     */
+    @Query("WITH awarded AS (" +
+            "INSERT INTO user_badges (user_key, badge_key, earned_at) " +
+            "SELECT u.row_key, b.row_key, NOW() FROM unnest(CAST(:badgeIds AS VARCHAR[])) AS a(badge_id) " +
+            "JOIN badges b ON b.id = a.badge_id JOIN users u ON u.id = :userId " +
+            "ON CONFLICT (user_key, badge_key) DO NOTHING RETURNING id, badge_key, earned_at) " +
+            "SELECT a.id, u.id AS user_id, b.id AS badge_id, a.earned_at FROM awarded a " +
+            "JOIN badges b ON b.row_key = a.badge_key JOIN users u ON u.id = :userId")
+    Flux<UserBadge> insertForUser(String userId, String[] badgeIds);
+
+    /**
+     * Awards many (user, badge) pairs in one statement; pairs already awarded are
+     * skipped, as are unknown users and badges. Both arrays must have the same length.
+     */
+    @Modifying
+    @Query("INSERT INTO user_badges (user_key, badge_key, earned_at) " +
+            "SELECT u.row_key, b.row_key, NOW() FROM unnest(CAST(:userIds AS VARCHAR[]), CAST(:badgeIds AS VARCHAR[])) AS a(user_id, badge_id) " +
+            "JOIN users u ON u.id = a.user_id JOIN badges b ON b.id = a.badge_id " +
+            "ON CONFLICT (user_key, badge_key) DO NOTHING")
+    Mono<Integer> insertAll(String[] userIds, String[] badgeIds);
+}
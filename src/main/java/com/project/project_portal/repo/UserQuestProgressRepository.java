@@ -1,6 +1,9 @@
 package com.project.project_portal.repo;
 
 import com.project.project_portal.dto.UserQuestProgress;
+import com.project.project_portal.dto.UserXp;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -8,4 +11,45 @@ import reactor.core.publisher.Mono;
 public interface UserQuestProgressRepository extends ReactiveCrudRepository<UserQuestProgress, String> {
     Mono<UserQuestProgress> findByUserIdAndQuestId(String userId, String questId);
     Flux<UserQuestProgress> findByUserId(String userId);
-}
\ No newline at end of file
+
+    /**
+     * Keyset page of a user's quest progress ordered by quest ID. The user's rows
+     * are read through the (user_key, quest_key) unique index and sorted by quest ID.
+     */
+    @Query("SELECT * FROM user_quest_progress_view WHERE user_id = :userId AND quest_id > :afterQuestId " +
+            "ORDER BY quest_id LIMIT :limit")
+    Flux<UserQuestProgress> findPageByUserId(String userId, String afterQuestId, int limit);
+
+    /**
+     * Creates the IN_PROGRESS (1) quest progress row for the quest of the given task
+     * if it does not exist yet; an existing row is left untouched. Fails if the
+     * user does not exist.
+     */
+    @Modifying
+    @Query("INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp) " +
+            "SELECT (SELECT u.row_key FROM users u WHERE u.id = :userId), q.row_key, 1, 0 " +
+            "FROM tasks t JOIN quests q ON q.id = t.quest_id WHERE t.id = :taskId " +
+            "ON CONFLICT (user_key, quest_key) DO NOTHING")
+    Mono<Integer> insertStartedForTask(String userId, String taskId);
+
+    /**
+     * Streams the XP of every user who gained XP in one quest, used to seed the
+     * quest leaderboard.
+     */
+    @Query("SELECT u.id AS user_id, uqp.gained_xp::BIGINT AS xp FROM quests q " +
+            "JOIN user_quest_progress uqp ON uqp.quest_key = q.row_key " +
+            "JOIN users u ON u.row_key = uqp.user_key " +
+            "WHERE q.id = :questId AND uqp.gained_xp > 0")
+    Flux<UserXp> findXpByQuestId(String questId);
+
+    /**
+     * Streams the XP of every user who gained XP across the quests of one topic,
+     * used to seed the topic leaderboard.
+     */
+    @Query("SELECT u.id AS user_id, x.xp FROM (" +
+            "SELECT uqp.user_key, SUM(uqp.gained_xp)::BIGINT AS xp FROM quests q " +
+            "JOIN user_quest_progress uqp ON uqp.quest_key = q.row_key " +
+            "WHERE q.topic_id = :topicId AND uqp.gained_xp > 0 GROUP BY uqp.user_key) x " +
+            "JOIN users u ON u.row_key = x.user_key")
+    Flux<UserXp> findXpByTopicId(String topicId);
+}
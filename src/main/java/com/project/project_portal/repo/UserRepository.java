@@ -1,10 +1,55 @@
-
 package com.project.project_portal.repo;
 
 import com.project.project_portal.dto.User;
+import com.project.project_portal.dto.UserCompletionAggregate;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface UserRepository extends ReactiveCrudRepository<User, String> {
     Mono<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Keyset page of users ordered by ID, starting after the given ID.
+     */
+    @Query("SELECT * FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<User> findPageAfter(String afterId, int limit);
+
+    /**
+     * Streams the ID and XP of every user, used to rebuild the XP leaderboard.
+     */
+    @Query("SELECT id, total_xp FROM users")
+    Flux<User> findAllXp();
+
+    /**
+     * Reads a user's XP, completion counters and earned badge count in one query.
+     * Emits nothing if the user does not exist.
+     */
+    @Query("SELECT u.id AS user_id, u.total_xp, " +
+            "COALESCE(c.completed_tasks, 0) AS completed_tasks, " +
+            "COALESCE(c.completed_quests, 0) AS completed_quests, " +
+            "(SELECT COUNT(*) FROM user_badges ub WHERE ub.user_key = u.row_key) AS badges_earned " +
+            "FROM users u LEFT JOIN user_progress_counters c ON c.user_id = u.id " +
+            "WHERE u.id = :userId")
+    Mono<UserCompletionAggregate> findCompletionAggregate(String userId);
+
+    /**
+     * Atomically adds XP to a user and appends the change to the XP ledger in one statement.
+     * Emits the new total, or nothing if the user does not exist.
+     */
+    @Query("WITH ledger AS (INSERT INTO xp_ledger (user_id, task_id, delta) " +
+            "SELECT id, :taskId, :delta FROM users WHERE id = :userId) " +
+            "UPDATE users SET total_xp = total_xp + :delta WHERE id = :userId RETURNING total_xp")
+    Mono<Integer> incrementTotalXp(String userId, String taskId, int delta);
+
+    /**
+     * Updates the profile fields only, leaving total_xp to the atomic XP path.
+     * Applies only if the row still has the expected version; returns 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE users SET name = :name, email = :email, version = version + 1 " +
+            "WHERE id = :id AND version = :version")
+    Mono<Integer> updateProfile(String id, String name, String email, long version);
+}
@@ -1,6 +1,10 @@
 package com.project.project_portal.repo;
 
+import com.project.project_portal.dto.BatchedTaskCompletion;
+import com.project.project_portal.dto.QuestTaskProgress;
+import com.project.project_portal.dto.TaskCompletion;
 import com.project.project_portal.dto.UserTaskProgress;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -8,4 +12,75 @@ import reactor.core.publisher.Mono;
 public interface UserTaskProgressRepository extends ReactiveCrudRepository<UserTaskProgress, String> {
     Mono<UserTaskProgress> findByUserIdAndTaskId(String userId, String taskId);
     Flux<UserTaskProgress> findByUserId(String userId);
-}
\ No newline at end of file
+
+    /**
+     * Keyset page of a user's task progress ordered by task ID. The user's rows
+     * are read through the (user_key, task_key) unique index and sorted by task ID.
+     */
+    @Query("SELECT * FROM user_task_progress_view WHERE user_id = :userId AND task_id > :afterTaskId " +
+            "ORDER BY task_id LIMIT :limit")
+    Flux<UserTaskProgress> findPageByUserId(String userId, String afterTaskId, int limit);
+
+    /**
+     * Streams the task ID and status of every task a user has started, used to
+     * build the user's completion bitmaps.
+     */
+    @Query("SELECT t.id AS task_id, utp.status FROM users u " +
+            "JOIN user_task_progress utp ON utp.user_key = u.row_key " +
+            "JOIN tasks t ON t.row_key = utp.task_key " +
+            "WHERE u.id = :userId")
+    Flux<UserTaskProgress> findStatusesByUserId(String userId);
+
+    /**
+     * Lists the tasks of a quest in order with the user's progress on each,
+     * defaulting to NOT_STARTED (status code 0) for tasks without a progress row.
+     */
+    @Query("SELECT t.id AS task_id, t.title AS task_title, t.order_index, " +
+            "COALESCE(utp.status, 0) AS status, COALESCE(utp.gained_xp, 0) AS gained_xp " +
+            "FROM tasks t LEFT JOIN user_task_progress utp ON utp.task_key = t.row_key " +
+            "AND utp.user_key = (SELECT u.row_key FROM users u WHERE u.id = :userId) " +
+            "WHERE t.quest_id = :questId " +
+            "ORDER BY t.order_index, t.id")
+    Flux<QuestTaskProgress> findQuestTaskProgress(String userId, String questId);
+
+    /**
+     * Creates the task progress row as IN_PROGRESS, or returns the existing row.
+     * Rows in any status other than IN_PROGRESS (1) or COMPLETED (2) are moved to IN_PROGRESS;
+     * rows already started or completed are read back without being rewritten, so repeated
+     * starts do not bump their version. The read-back sees the statement's snapshot, which is
+     * enough because the user's mutation lane never runs two starts of the user at once.
+     * Emits nothing if the task does not exist; fails if the user does not exist.
+     */
+    @Query("WITH target AS (" +
+            "SELECT (SELECT u.row_key FROM users u WHERE u.id = :userId) AS user_key, t.row_key AS task_key " +
+            "FROM tasks t WHERE t.id = :taskId), " +
+            "written AS (" +
+            "INSERT INTO user_task_progress (user_key, task_key, status, gained_xp, updated_at) " +
+            "SELECT user_key, task_key, 1, 0, NOW() FROM target " +
+            "ON CONFLICT (user_key, task_key) DO UPDATE SET status = EXCLUDED.status, updated_at = EXCLUDED.updated_at " +
+            "WHERE user_task_progress.status NOT IN (1, 2) " +
+            "RETURNING id, status, gained_xp, updated_at, version) " +
+            "SELECT id, :userId AS user_id, :taskId AS task_id, status, gained_xp, updated_at, version FROM written " +
+            "UNION ALL " +
+            "SELECT utp.id, :userId AS user_id, :taskId AS task_id, utp.status, utp.gained_xp, utp.updated_at, utp.version " +
+            "FROM target tg JOIN user_task_progress utp ON utp.user_key = tg.user_key AND utp.task_key = tg.task_key " +
+            "WHERE NOT EXISTS (SELECT 1 FROM written)")
+    Mono<UserTaskProgress> upsertStarted(String userId, String taskId);
+
+    @Query("SELECT * FROM complete_task(:userId, :taskId)")
+    Mono<TaskCompletion> completeTask(String userId, String taskId);
+
+    /**
+     * Completes the (userIds[i], taskIds[i]) pairs in one statement, one result
+     * row per pair. Both arrays must have the same length.
+     */
+    @Query("SELECT * FROM complete_tasks(CAST(:userIds AS VARCHAR[]), CAST(:taskIds AS VARCHAR[]))")
+    Flux<BatchedTaskCompletion> completeTasks(String[] userIds, String[] taskIds);
+
+    /**
+     * Like {@link #completeTasks}, but first starts the pairs that have no
+     * progress row yet, so completions synced from outside do not need a start.
+     */
+    @Query("SELECT * FROM complete_tasks(CAST(:userIds AS VARCHAR[]), CAST(:taskIds AS VARCHAR[]), TRUE)")
+    Flux<BatchedTaskCompletion> startAndCompleteTasks(String[] userIds, String[] taskIds);
+}
@@ -0,0 +1,16 @@
+package com.project.project_portal.repo;
+
+import com.project.project_portal.dto.XpLedgerEntry;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+public interface XpLedgerRepository extends ReactiveCrudRepository<XpLedgerEntry, Long> {
+
+    /**
+     * Keyset page of a user's ledger entries, newest first, starting below the given entry ID.
+     */
+    @Query("SELECT * FROM xp_ledger WHERE user_id = :userId AND id < :beforeId " +
+            "ORDER BY id DESC LIMIT :limit")
+    Flux<XpLedgerEntry> findPageByUserId(String userId, long beforeId, int limit);
+}
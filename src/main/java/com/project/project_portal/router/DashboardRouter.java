@@ -0,0 +1,19 @@
+package com.project.project_portal.router;
+
+import com.project.project_portal.handler.DashboardHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+public class DashboardRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> dashboardRoutes(DashboardHandler handler) {
+        return route(GET("/api/users/{userId}/dashboard"), handler::getDashboard);
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.project_portal.router;
+
+import com.project.project_portal.handler.LeaderboardHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+public class LeaderboardRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> leaderboardRoutes(LeaderboardHandler handler) {
+        return route(GET("/api/leaderboard"), handler::getTop)
+                .andRoute(GET("/api/leaderboard/users/{userId}"), handler::getRank)
+                .andRoute(GET("/api/leaderboard/users/{userId}/neighbours"), handler::getNeighbours)
+                .andRoute(GET("/api/leaderboard/topics/{topicId}"), handler::getTopicTop)
+                .andRoute(GET("/api/leaderboard/topics/{topicId}/users/{userId}"), handler::getTopicRank)
+                .andRoute(GET("/api/leaderboard/quests/{questId}"), handler::getQuestTop)
+                .andRoute(GET("/api/leaderboard/quests/{questId}/users/{userId}"), handler::getQuestRank);
+    }
+}
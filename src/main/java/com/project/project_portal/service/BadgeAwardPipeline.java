@@ -0,0 +1,224 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.BadgeAwardEvent;
+import com.project.project_portal.dto.BadgeMetric;
+import com.project.project_portal.repo.BadgeAwardOutboxRepository;
+import com.project.project_portal.repo.UserBadgeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BadgeAwardPipeline evaluates badge rules off the task completion request path.
+ *
+ * complete_task writes a badge_award_outbox row in the completion transaction and
+ * ProgressDomainService publishes the same event here. Events flow through a
+ * bounded queue and are evaluated in batches: one multi-row insert into
+ * user_badges and one update marking the outbox rows processed per batch.
+ *
+ * Events that do not fit in the queue, or whose batch fails, stay pending in the
+ * outbox and are picked up by the periodic sweep (which also replays events
+ * left over from a crash on startup). Each sweep drains the outbox page by page
+ * until nothing is pending. Awards are idempotent, so an event that is
+ * evaluated twice does no harm. Processed outbox rows are purged once they are
+ * older than outbox-retention.
+ */
+@Component
+public class BadgeAwardPipeline implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(BadgeAwardPipeline.class);
+
+    private final BadgeCatalog badgeCatalog;
+    private final UserBadgeRepository userBadgeRepository;
+    private final BadgeAwardOutboxRepository outboxRepository;
+    private final ContentCatalog contentCatalog;
+
+    private final int batchSize;
+    private final Duration batchMaxWait;
+    private final Duration sweepInterval;
+    private final Duration outboxRetention;
+    private final Duration purgeInterval;
+
+    private final Sinks.Many<BadgeAwardEvent> sink;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public BadgeAwardPipeline(BadgeCatalog badgeCatalog,
+                              UserBadgeRepository userBadgeRepository,
+                              BadgeAwardOutboxRepository outboxRepository,
+                              ContentCatalog contentCatalog,
+                              @Value("${progress.badges.queue-capacity:1024}") int queueCapacity,
+                              @Value("${progress.badges.batch-size:100}") int batchSize,
+                              @Value("${progress.badges.batch-max-wait:200ms}") Duration batchMaxWait,
+                              @Value("${progress.badges.sweep-interval:30s}") Duration sweepInterval,
+                              @Value("${progress.badges.outbox-retention:7d}") Duration outboxRetention,
+                              @Value("${progress.badges.purge-interval:1h}") Duration purgeInterval) {
+        this.badgeCatalog = badgeCatalog;
+        this.userBadgeRepository = userBadgeRepository;
+        this.outboxRepository = outboxRepository;
+        this.contentCatalog = contentCatalog;
+        this.batchSize = batchSize;
+        this.batchMaxWait = batchMaxWait;
+        this.sweepInterval = sweepInterval;
+        this.outboxRetention = outboxRetention;
+        this.purgeInterval = purgeInterval;
+        // Multicast without auto-cancel keeps the queue alive when the consumer resubscribes
+        this.sink = Sinks.many().multicast().onBackpressureBuffer(queueCapacity, false);
+    }
+
+    /**
+     * Starts the batch consumer, the outbox sweep and the outbox purge once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(sink.asFlux()
+                .bufferTimeout(batchSize, batchMaxWait, true)
+                .concatMap(this::processBatch)
+                .doOnError(e -> logger.error("Badge batch consumer failed, resubscribing; lost events are left for the sweep", e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+                        .maxBackoff(Duration.ofSeconds(5))
+                        .transientErrors(true))
+                .subscribe());
+
+        subscriptions.add(Flux.interval(Duration.ZERO, sweepInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> sweep())
+                .subscribe());
+
+        subscriptions.add(Flux.interval(purgeInterval, purgeInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> outboxRepository.deleteProcessed(outboxRetention.toSeconds())
+                        .onErrorResume(e -> {
+                            logger.warn("Badge outbox purge failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe());
+    }
+
+    /**
+     * Hands a committed completion to the pipeline without waiting for evaluation.
+     * If the queue is full the event is left for the outbox sweep.
+     *
+     * @param event The outbox event written by complete_task
+     */
+    public void publish(BadgeAwardEvent event) {
+        Sinks.EmitResult result;
+        do {
+            result = sink.tryEmitNext(event);
+        } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+
+        if (result.isFailure()) {
+            logger.warn("Badge queue rejected outbox event {} ({}); leaving it for the sweep", event.getId(), result);
+        }
+    }
+
+    /**
+     * Evaluates events on the caller's subscription rather than through the
+     * queue, in batches of batch-size. Used by bulk imports, whose events would
+     * overflow the queue. Failed batches are left for the outbox sweep.
+     *
+     * @param events The events to evaluate
+     * @return Mono<Void> completing when every batch has been written
+     */
+    public Mono<Void> evaluate(Flux<BadgeAwardEvent> events) {
+        return events.buffer(batchSize)
+                .concatMap(this::processBatch)
+                .then();
+    }
+
+    /**
+     * Evaluates pending outbox events a page at a time until none are left, or
+     * until a page fails and is left for the next sweep.
+     *
+     * @return Mono<Void> completing when the outbox is drained
+     */
+    private Mono<Void> sweep() {
+        return Mono.defer(() -> outboxRepository.findPending(sweepInterval.toSeconds(), batchSize).collectList())
+                .flatMap(pending -> pending.isEmpty() ? Mono.just(false) : processBatch(pending))
+                .repeat()
+                .takeWhile(Boolean::booleanValue)
+                .then()
+                .onErrorResume(e -> {
+                    logger.warn("Badge outbox sweep failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.dispose();
+    }
+
+    /**
+     * Evaluates a batch of events and writes all resulting awards in one statement.
+     *
+     * @param events The events to evaluate
+     * @return Mono<Boolean> true once the batch is written and marked processed, false if it failed
+     */
+    private Mono<Boolean> processBatch(List<BadgeAwardEvent> events) {
+        return Mono.defer(() -> {
+            long totalTasks = totalFor(BadgeMetric.COMPLETED_TASKS);
+            long totalQuests = totalFor(BadgeMetric.COMPLETED_QUESTS);
+            List<String> userIds = new ArrayList<>();
+            List<String> badgeIds = new ArrayList<>();
+            List<Long> eventIds = new ArrayList<>();
+
+            for (BadgeAwardEvent event : events) {
+                eventIds.addAll(event.outboxIds());
+                for (String badgeId : crossedBadgeIds(event, totalTasks, totalQuests)) {
+                    userIds.add(event.getUserId());
+                    badgeIds.add(badgeId);
+                }
+            }
+
+            Mono<Integer> awards = badgeIds.isEmpty()
+                    ? Mono.just(0)
+                    : userBadgeRepository.insertAll(userIds.toArray(String[]::new), badgeIds.toArray(String[]::new));
+
+            return awards.then(outboxRepository.markProcessed(eventIds.toArray(Long[]::new)));
+        })
+                .thenReturn(true)
+                .onErrorResume(e -> {
+                    logger.warn("Badge batch of {} events failed, leaving it for the sweep: {}", events.size(), e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * Returns the badges whose rule threshold the completion(s) of an event crossed.
+     */
+    private List<String> crossedBadgeIds(BadgeAwardEvent event, long totalTasks, long totalQuests) {
+        List<String> crossed = new ArrayList<>();
+        crossed.addAll(badgeCatalog.crossedBadgeIds(BadgeMetric.COMPLETED_TASKS,
+                event.tasksBefore(), event.getCompletedTasks(), totalTasks));
+        crossed.addAll(badgeCatalog.crossedBadgeIds(BadgeMetric.COMPLETED_QUESTS,
+                event.questsBefore(), event.getCompletedQuests(), totalQuests));
+        crossed.addAll(badgeCatalog.crossedBadgeIds(BadgeMetric.TOTAL_XP,
+                event.getTotalXp() - event.getGainedXp(), event.getTotalXp(), -1));
+        return crossed;
+    }
+
+    /**
+     * Returns the catalog total an ALL rule on the metric is measured against,
+     * or -1 when no such rule exists.
+     */
+    private long totalFor(BadgeMetric metric) {
+        if (!badgeCatalog.requiresTotal(metric)) {
+            return -1;
+        }
+        return metric == BadgeMetric.COMPLETED_TASKS ? contentCatalog.getTaskCount() : contentCatalog.getQuestCount();
+    }
+}
@@ -0,0 +1,170 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.Badge;
+import com.project.project_portal.dto.BadgeMetric;
+import com.project.project_portal.dto.BadgeThreshold;
+import com.project.project_portal.repo.BadgeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BadgeCatalog keeps an in-memory, immutable snapshot of all badges and
+ * their award rules, compiled into an index keyed by metric.
+ *
+ * AT_LEAST rules are stored in a threshold-sorted map per metric, so a
+ * progress change from {@code before} to {@code after} only looks at the
+ * rules whose threshold lies in (before, after]. The snapshot is loaded at
+ * startup and swapped atomically by {@link #reload()} whenever badges change.
+ */
+@Component
+public class BadgeCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(BadgeCatalog.class);
+
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+
+    private final BadgeRepository badgeRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.compile(List.of()));
+
+    public BadgeCatalog(BadgeRepository badgeRepository) {
+        this.badgeRepository = badgeRepository;
+    }
+
+    /**
+     * Loads the catalog once the application (and its migrations) are ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload().block(LOAD_TIMEOUT);
+    }
+
+    /**
+     * Re-reads all badges and atomically swaps in a freshly compiled snapshot.
+     *
+     * @return Mono<Void> completing once the new snapshot is visible
+     */
+    public Mono<Void> reload() {
+        return badgeRepository.findAll()
+                .collectList()
+                .map(Snapshot::compile)
+                .doOnNext(compiled -> {
+                    snapshot.set(compiled);
+                    logger.info("Badge catalog loaded: {} badges", compiled.badgesById.size());
+                })
+                .then();
+    }
+
+    /**
+     * Returns the badge with the given ID from the in-memory catalog.
+     *
+     * @param badgeId The badge ID
+     * @return the badge, or null if it is not in the catalog
+     */
+    public Badge getBadge(String badgeId) {
+        return snapshot.get().badgesById.get(badgeId);
+    }
+
+    /**
+     * Tells whether the metric has ALL rules, which need the catalog total to evaluate.
+     *
+     * @param metric The metric that changed
+     * @return true if evaluating the metric requires its total
+     */
+    public boolean requiresTotal(BadgeMetric metric) {
+        return !snapshot.get().allRules.getOrDefault(metric, List.of()).isEmpty();
+    }
+
+    /**
+     * Returns the IDs of badges whose threshold was crossed when the metric moved
+     * from {@code before} to {@code after}.
+     *
+     * @param metric The metric that changed
+     * @param before The metric value before the change
+     * @param after The metric value after the change
+     * @param total The catalog total for the metric, used by ALL rules (ignored if negative)
+     * @return badge IDs to award, empty if no threshold was crossed
+     */
+    public List<String> crossedBadgeIds(BadgeMetric metric, long before, long after, long total) {
+        if (after <= before) {
+            return List.of();
+        }
+        Snapshot current = snapshot.get();
+        List<String> crossed = new ArrayList<>();
+
+        NavigableMap<Long, List<String>> thresholds = current.atLeastRules.get(metric);
+        if (thresholds != null) {
+            thresholds.subMap(before, false, after, true).values().forEach(crossed::addAll);
+        }
+        if (total > 0 && before < total && total <= after) {
+            crossed.addAll(current.allRules.getOrDefault(metric, List.of()));
+        }
+        return crossed;
+    }
+
+    /**
+     * Immutable compiled view of the badges table.
+     */
+    private static final class Snapshot {
+
+        private final Map<String, Badge> badgesById;
+        private final Map<BadgeMetric, NavigableMap<Long, List<String>>> atLeastRules;
+        private final Map<BadgeMetric, List<String>> allRules;
+
+        private Snapshot(Map<String, Badge> badgesById,
+                         Map<BadgeMetric, NavigableMap<Long, List<String>>> atLeastRules,
+                         Map<BadgeMetric, List<String>> allRules) {
+            this.badgesById = badgesById;
+            this.atLeastRules = atLeastRules;
+            this.allRules = allRules;
+        }
+
+        private static Snapshot compile(Collection<Badge> badges) {
+            Map<String, Badge> badgesById = new LinkedHashMap<>();
+            Map<BadgeMetric, NavigableMap<Long, List<String>>> atLeastRules = new EnumMap<>(BadgeMetric.class);
+            Map<BadgeMetric, List<String>> allRules = new EnumMap<>(BadgeMetric.class);
+
+            for (Badge badge : badges) {
+                badgesById.put(badge.getId(), badge);
+                if (badge.getRuleMetric() == null || badge.getRuleThreshold() == null) {
+                    continue;
+                }
+                try {
+                    BadgeMetric metric = BadgeMetric.valueOf(badge.getRuleMetric());
+                    BadgeThreshold threshold = BadgeThreshold.valueOf(badge.getRuleThreshold());
+                    if (threshold == BadgeThreshold.ALL) {
+                        allRules.computeIfAbsent(metric, m -> new ArrayList<>()).add(badge.getId());
+                    } else if (badge.getRuleValue() != null) {
+                        atLeastRules.computeIfAbsent(metric, m -> new TreeMap<>())
+                                .computeIfAbsent(badge.getRuleValue().longValue(), v -> new ArrayList<>())
+                                .add(badge.getId());
+                    }
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Ignoring invalid rule on badge {}: {}", badge.getId(), e.getMessage());
+                }
+            }
+
+            atLeastRules.replaceAll((metric, rules) -> {
+                rules.replaceAll((value, ids) -> List.copyOf(ids));
+                return Collections.unmodifiableNavigableMap(rules);
+            });
+            allRules.replaceAll((metric, ids) -> List.copyOf(ids));
+            return new Snapshot(Collections.unmodifiableMap(badgesById), atLeastRules, allRules);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.project.project_portal.service;
 
 import com.project.project_portal.dto.Badge;
+import com.project.project_portal.dto.EarnedBadge;
+import com.project.project_portal.dto.KeysetPage;
 import com.project.project_portal.dto.UserBadge;
 import com.project.project_portal.repo.BadgeRepository;
 import com.project.project_portal.repo.UserBadgeRepository;
@@ -8,6 +10,12 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -22,12 +30,20 @@ import java.util.UUID;
 @Service
 public class BadgeService {
 
+    // Award keys are "<earned_at>|<award ID>"; the first page starts before any award
+    private static final String AWARD_KEY_SEPARATOR = "|";
+    private static final LocalDateTime FIRST_AWARD_KEY_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+
     private final BadgeRepository badgeRepository;
     private final UserBadgeRepository userBadgeRepository;
+    private final BadgeCatalog badgeCatalog;
 
-    public BadgeService(BadgeRepository badgeRepository, UserBadgeRepository userBadgeRepository) {
+    public BadgeService(BadgeRepository badgeRepository,
+                        UserBadgeRepository userBadgeRepository,
+                        BadgeCatalog badgeCatalog) {
         this.badgeRepository = badgeRepository;
         this.userBadgeRepository = userBadgeRepository;
+        this.badgeCatalog = badgeCatalog;
     }
 
     /**
@@ -51,6 +67,7 @@ public class BadgeService {
 
     /**
      * Creates a new badge with auto-generated ID if not provided.
+     * Reloads the badge catalog so the badge's award rule takes effect immediately.
      *
      * @param badge The badge to create
      * @return Mono<Badge> with persisted data
@@ -59,47 +76,103 @@ public class BadgeService {
         if (badge.getId() == null) {
             badge.setId(UUID.randomUUID().toString());
         }
-        return badgeRepository.save(badge);
+        return badgeRepository.save(badge)
+                .flatMap(saved -> badgeCatalog.reload().thenReturn(saved));
+    }
+
+    /**
+     * Retrieves all badges earned by a specific user, in award order.
+     * Reads the user's awards in one query and resolves badge details from
+     * the in-memory badge catalog.
+     *
+     * @param userId The user ID
+     * @return Flux<EarnedBadge> of all badges the user has earned, with earned time
+     */
+    public Flux<EarnedBadge> getUserBadges(String userId) {
+        return userBadgeRepository.findByUserIdOrderByEarnedAtAsc(userId)
+                .mapNotNull(ub -> {
+                    Badge badge = badgeCatalog.getBadge(ub.getBadgeId());
+                    return badge == null ? null : new EarnedBadge(badge, ub.getEarnedAt());
+                });
     }
 
     /**
-     * Retrieves all badges earned by a specific user.
+     * Retrieves one keyset page of the badges earned by a user, in award order
+     * like {@link #getUserBadges(String)}. The key of an award is its earned
+     * time and award ID, so awards made at the same instant still page apart.
+     * The page is cut on the award rows, so awards of badges missing from the
+     * catalog shorten a page without ending the listing.
      *
      * @param userId The user ID
-     * @return Flux<Badge> of all badges the user has earned
+     * @param afterKey The award key of the last award of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<EarnedBadge>> of badges the user has earned, with earned time
+     * @throws IllegalArgumentException if afterKey is not an award key
      */
-    public Flux<Badge> getUserBadges(String userId) {
-        return userBadgeRepository.findByUserId(userId)
-                .flatMap(ub -> badgeRepository.findById(ub.getBadgeId()));
+    public Mono<KeysetPage<EarnedBadge>> getUserBadges(String userId, String afterKey, int limit) {
+        LocalDateTime afterEarnedAt = FIRST_AWARD_KEY_TIME;
+        String afterId = "";
+        if (!afterKey.isEmpty()) {
+            int separator = afterKey.indexOf(AWARD_KEY_SEPARATOR);
+            try {
+                afterEarnedAt = LocalDateTime.parse(afterKey.substring(0, Math.max(separator, 0)));
+            } catch (DateTimeParseException e) {
+                return Mono.error(new IllegalArgumentException("Invalid cursor"));
+            }
+            afterId = afterKey.substring(separator + 1);
+        }
+        return userBadgeRepository.findPageByUserId(userId, afterEarnedAt, afterId, limit + 1)
+                .collectList()
+                .map(rows -> {
+                    KeysetPage<UserBadge> page = KeysetPage.of(rows, limit,
+                            ub -> ub.getEarnedAt() + AWARD_KEY_SEPARATOR + ub.getId());
+                    List<EarnedBadge> items = new ArrayList<>(page.getItems().size());
+                    for (UserBadge ub : page.getItems()) {
+                        Badge badge = badgeCatalog.getBadge(ub.getBadgeId());
+                        if (badge != null) {
+                            items.add(new EarnedBadge(badge, ub.getEarnedAt()));
+                        }
+                    }
+                    return new KeysetPage<>(items, page.getNextKey());
+                });
     }
 
     /**
      * Awards a badge to a user if they don't already have it.
-     * Validates badge exists before awarding.
+     * Validates the badge against the in-memory badge catalog.
      * Uses database UNIQUE constraint to prevent duplicates.
      *
      * @param userId The user to award badge to
      * @param badgeId The badge ID to award
-     * @return Mono<UserBadge> with award details
+     * @return Mono<UserBadge> with award details (the existing award if already earned)
      * @throws IllegalArgumentException if badge doesn't exist
      */
     public Mono<UserBadge> awardBadgeToUser(String userId, String badgeId) {
-        // First verify badge exists to catch invalid badge IDs early
-        return badgeRepository.findById(badgeId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Badge not found: " + badgeId)))
-                .flatMap(badge ->
-                    userBadgeRepository.findByUserIdAndBadgeId(userId, badgeId)
-                            .switchIfEmpty(
-                                Mono.defer(() -> {
-                                    UserBadge userBadge = new UserBadge(
-                                        userId,
-                                        badgeId,
-                                        LocalDateTime.now()
-                                    );
-                                    return userBadgeRepository.save(userBadge);
-                                })
-                            )
-                );
+        return awardBadgesToUser(userId, List.of(badgeId))
+                .next()
+                .switchIfEmpty(Mono.defer(() -> userBadgeRepository.findByUserIdAndBadgeId(userId, badgeId)));
+    }
+
+    /**
+     * Awards several badges to a user in a single INSERT ... ON CONFLICT DO NOTHING statement.
+     * Badge IDs are validated against the in-memory badge catalog, not the database.
+     *
+     * @param userId The user to award badges to
+     * @param badgeIds The badge IDs to award
+     * @return Flux<UserBadge> of the newly created awards (already earned badges are skipped)
+     * @throws IllegalArgumentException if any badge doesn't exist
+     */
+    public Flux<UserBadge> awardBadgesToUser(String userId, Collection<String> badgeIds) {
+        Set<String> distinctIds = new LinkedHashSet<>(badgeIds);
+        if (distinctIds.isEmpty()) {
+            return Flux.empty();
+        }
+        for (String badgeId : distinctIds) {
+            if (badgeCatalog.getBadge(badgeId) == null) {
+                return Flux.error(new IllegalArgumentException("Badge not found: " + badgeId));
+            }
+        }
+        return userBadgeRepository.insertForUser(userId, distinctIds.toArray(String[]::new));
     }
 
     /**
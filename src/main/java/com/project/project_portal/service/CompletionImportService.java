@@ -0,0 +1,244 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.BadgeAwardEvent;
+import com.project.project_portal.dto.BatchedTaskCompletion;
+import com.project.project_portal.dto.CompletionImportRecord;
+import com.project.project_portal.dto.CompletionImportResult;
+import com.project.project_portal.dto.Task;
+import com.project.project_portal.repo.UserTaskProgressRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * CompletionImportService applies completions synced from an external system
+ * (e.g. a nightly LMS dump) in bulk.
+ *
+ * Each line is parsed on its own, so a malformed line only fails that line.
+ * Records are validated against the content catalog (falling back to the
+ * database for tasks it does not have yet) and spread over
+ * parallelism lanes by user, so one user's completions are never written by
+ * two chunks at once. Each lane writes its records in chunks of chunk-size with
+ * one complete_tasks call per chunk, which starts the tasks the user has not
+ * started yet and applies the XP, quest and milestone updates of the whole
+ * chunk in a single round trip. The leaderboards and the completion index are
+ * updated as chunks commit.
+ *
+ * Badge evaluation is deferred to the end of the import: the badge events of
+ * each user are merged into one spanning all of their imported completions and
+ * evaluated once per user. It also runs when the import ends early, e.g. because
+ * the client disconnected, for the chunks that committed up to that point;
+ * completions of a chunk cut off mid-write are left to the outbox sweep.
+ */
+@Service
+public class CompletionImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompletionImportService.class);
+
+    private final UserTaskProgressRepository taskProgressRepository;
+    private final ContentCatalog contentCatalog;
+    private final CompletionIndex completionIndex;
+    private final LeaderboardService leaderboardService;
+    private final BadgeAwardPipeline badgeAwardPipeline;
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+    private final int parallelism;
+
+    public CompletionImportService(UserTaskProgressRepository taskProgressRepository,
+                                   ContentCatalog contentCatalog,
+                                   CompletionIndex completionIndex,
+                                   LeaderboardService leaderboardService,
+                                   BadgeAwardPipeline badgeAwardPipeline,
+                                   ObjectMapper objectMapper,
+                                   @Value("${progress.import.chunk-size:500}") int chunkSize,
+                                   @Value("${progress.import.parallelism:4}") int parallelism) {
+        this.taskProgressRepository = taskProgressRepository;
+        this.contentCatalog = contentCatalog;
+        this.completionIndex = completionIndex;
+        this.leaderboardService = leaderboardService;
+        this.badgeAwardPipeline = badgeAwardPipeline;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Imports a stream of NDJSON completion records.
+     *
+     * @param lines The body lines, in request order; blank lines are skipped but counted
+     * @return Flux<CompletionImportResult> with one result per record, emitted as
+     *         its chunk commits; completes after badge evaluation has finished
+     */
+    public Flux<CompletionImportResult> importCompletions(Flux<String> lines) {
+        return Flux.defer(() -> {
+            Map<String, BadgeAwardEvent> badgeEvents = new ConcurrentHashMap<>();
+
+            Flux<CompletionImportResult> results = lines.index()
+                    .filter(line -> !line.getT2().isBlank())
+                    .map(line -> parse(line.getT1() + 1, line.getT2()))
+                    .groupBy(line -> Math.floorMod(line.userId().hashCode(), parallelism))
+                    .flatMap(lane -> lane.buffer(chunkSize)
+                            .concatMap(chunk -> writeChunk(chunk, badgeEvents)), parallelism);
+
+            return results
+                    .concatWith(evaluateBadges(badgeEvents).then(Mono.empty()))
+                    .doFinally(signal -> {
+                        if (signal != SignalType.ON_COMPLETE) {
+                            evaluateBadges(badgeEvents).subscribe();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Evaluates the merged badge events collected so far. Evaluating an event
+     * twice is harmless, so an evaluation cut off by a disconnect can be rerun.
+     */
+    private Mono<Void> evaluateBadges(Map<String, BadgeAwardEvent> badgeEvents) {
+        return badgeAwardPipeline.evaluate(Flux.defer(() -> Flux.fromIterable(badgeEvents.values())))
+                .onErrorResume(e -> {
+                    logger.warn("Badge evaluation of an import failed, leaving it for the sweep: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Parses one non-blank body line; a line that is not a record is kept with its parse error.
+     */
+    private Line parse(long number, String text) {
+        try {
+            CompletionImportRecord record = objectMapper.readValue(text, CompletionImportRecord.class);
+            if (record != null) {
+                return new Line(number, record, null);
+            }
+        } catch (JsonProcessingException e) {
+            return new Line(number, new CompletionImportRecord(), "Malformed record: " + e.getOriginalMessage());
+        }
+        return new Line(number, new CompletionImportRecord(), "Malformed record: expected a JSON object");
+    }
+
+    /**
+     * Resolves the tasks of one chunk, from the content catalog or, for tasks it
+     * does not have yet, from the database, and writes the chunk.
+     */
+    private Flux<CompletionImportResult> writeChunk(List<Line> chunk, Map<String, BadgeAwardEvent> badgeEvents) {
+        return Flux.fromIterable(chunk)
+                .map(Line::taskId)
+                .filter(taskId -> !taskId.isEmpty())
+                .distinct()
+                .flatMap(contentCatalog::findTask)
+                .collectMap(Task::getId)
+                .flatMapMany(tasks -> writeChunk(chunk, tasks, badgeEvents));
+    }
+
+    /**
+     * Writes the valid records of one chunk with a single complete_tasks call
+     * and reports every record of the chunk.
+     */
+    private Flux<CompletionImportResult> writeChunk(List<Line> chunk, Map<String, Task> tasks,
+                                                    Map<String, BadgeAwardEvent> badgeEvents) {
+        List<CompletionImportResult> rejected = new ArrayList<>();
+        List<Line> valid = new ArrayList<>();
+        for (Line line : chunk) {
+            if (line.error != null) {
+                rejected.add(line.result(CompletionImportResult.FAILED, null, line.error));
+            } else if (line.userId().isEmpty() || line.taskId().isEmpty()) {
+                rejected.add(line.result(CompletionImportResult.FAILED, null, "userId and taskId are required"));
+            } else if (!tasks.containsKey(line.taskId())) {
+                rejected.add(line.result(CompletionImportResult.FAILED, null, "Task not found"));
+            } else {
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) {
+            return Flux.fromIterable(rejected);
+        }
+
+        String[] userIds = valid.stream().map(Line::userId).toArray(String[]::new);
+        String[] taskIds = valid.stream().map(Line::taskId).toArray(String[]::new);
+        Set<String> questIds = valid.stream()
+                .map(line -> tasks.get(line.taskId()).getQuestId())
+                .collect(Collectors.toSet());
+        Flux<CompletionImportResult> written = leaderboardService.trackQuestXp(questIds, taskProgressRepository.startAndCompleteTasks(userIds, taskIds)
+                .collectList()
+                .flatMapIterable(rows -> {
+                    List<CompletionImportResult> chunkResults = new ArrayList<>(rows.size());
+                    Map<String, Integer> totalXp = new HashMap<>();
+                    for (BatchedTaskCompletion row : rows) {
+                        chunkResults.add(apply(valid.get(row.getOrd() - 1), row, badgeEvents));
+                        if (row.completedNow() && row.getTotalXp() != null) {
+                            totalXp.merge(row.getUserId(), row.getTotalXp(), Math::max);
+                        }
+                    }
+                    // XP only grows within a chunk: its highest total is the user's total after the chunk
+                    totalXp.forEach(leaderboardService::recordXp);
+                    return chunkResults;
+                }))
+                .onErrorResume(e -> Flux.fromIterable(valid)
+                        .map(line -> line.result(CompletionImportResult.FAILED, null, e.getMessage())));
+
+        return Flux.fromIterable(rejected).concatWith(written);
+    }
+
+    /**
+     * Pushes one committed row to the in-memory indexes and turns it into a result.
+     */
+    private CompletionImportResult apply(Line line, BatchedTaskCompletion row, Map<String, BadgeAwardEvent> badgeEvents) {
+        if (row.failed()) {
+            return line.result(CompletionImportResult.FAILED, null, row.getErrorMessage());
+        }
+        completionIndex.record(row.getUserId(), row.getTaskId(), row.getStatus());
+        if (!row.completedNow()) {
+            return line.result(CompletionImportResult.ALREADY_COMPLETED, 0, null);
+        }
+        leaderboardService.recordQuestXp(row.getUserId(), row.getQuestId(), row.getGainedXp());
+        if (row.getOutboxId() != null) {
+            badgeEvents.merge(row.getUserId(), row.toBadgeAwardEvent(), BadgeAwardEvent::mergeWith);
+        }
+        return line.result(CompletionImportResult.COMPLETED, row.getGainedXp(), null);
+    }
+
+    /**
+     * An import record with its 1-based line number in the request body, or the
+     * reason the line could not be parsed.
+     */
+    private static final class Line {
+
+        private final long number;
+        private final CompletionImportRecord record;
+        private final String error;
+
+        private Line(long number, CompletionImportRecord record, String error) {
+            this.number = number;
+            this.record = record;
+            this.error = error;
+        }
+
+        private String userId() {
+            return record.getUserId() == null ? "" : record.getUserId();
+        }
+
+        private String taskId() {
+            return record.getTaskId() == null ? "" : record.getTaskId();
+        }
+
+        private CompletionImportResult result(String outcome, Integer gainedXp, String message) {
+            return new CompletionImportResult(number, record.getUserId(), record.getTaskId(), outcome, gainedXp, message);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.ProgressStatus;
+import com.project.project_portal.dto.Quest;
+import com.project.project_portal.dto.Topic;
+import com.project.project_portal.dto.TopicCompletion;
+import com.project.project_portal.repo.UserTaskProgressRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompletionIndex keeps, for recently active users, the tasks they have
+ * started and completed as bitmaps over the content catalog's task ordinals.
+ *
+ * A user's bitmaps are loaded from one query over their task progress rows and
+ * are then kept current by ProgressDomainService as tasks are started and
+ * completed. Quest completion, per-topic completion and task statuses are then
+ * answered with bit operations against the catalog's quest and topic masks. A
+ * quest counts as completed when all of its current tasks are.
+ *
+ * Writes that bypass ProgressDomainService must call {@link #invalidate}.
+ */
+@Component
+public class CompletionIndex {
+
+    private final UserTaskProgressRepository taskProgressRepository;
+    private final ContentCatalog contentCatalog;
+    private final GenerationalLruCache<UserCompletion> completions;
+
+    public CompletionIndex(UserTaskProgressRepository taskProgressRepository,
+                           ContentCatalog contentCatalog,
+                           @Value("${progress.completion.max-cached-users:10000}") int maxCachedUsers) {
+        this.taskProgressRepository = taskProgressRepository;
+        this.contentCatalog = contentCatalog;
+        this.completions = new GenerationalLruCache<>(maxCachedUsers);
+    }
+
+    /**
+     * Records a task progress row written by ProgressDomainService.
+     *
+     * @param userId The user ID
+     * @param taskId The task ID
+     * @param status The task's status after the write
+     */
+    public void record(String userId, String taskId, ProgressStatus status) {
+        int ordinal = contentCatalog.internTask(taskId);
+        completions.update(userId, completion -> completion.set(ordinal, status));
+    }
+
+    /**
+     * Drops a user's bitmaps after their progress was changed outside ProgressDomainService.
+     *
+     * @param userId The user ID
+     */
+    public void invalidate(String userId) {
+        completions.invalidate(userId);
+    }
+
+    /**
+     * Returns the user's status for each of the given tasks.
+     *
+     * @param userId The user ID
+     * @param taskIds The task IDs
+     * @return Mono<Map<String, ProgressStatus>> of task ID to status in the given order, NOT_STARTED for untouched tasks
+     */
+    public Mono<Map<String, ProgressStatus>> getTaskStatuses(String userId, List<String> taskIds) {
+        return completion(userId).map(completion -> {
+            Map<String, ProgressStatus> statuses = new LinkedHashMap<>();
+            for (String taskId : taskIds) {
+                statuses.put(taskId, completion.status(contentCatalog.internTask(taskId)));
+            }
+            return statuses;
+        });
+    }
+
+    /**
+     * Computes a user's completion of every topic in the catalog.
+     *
+     * @param userId The user ID
+     * @return Mono<List<TopicCompletion>> in topic ID order, counting a quest as
+     *         completed when the user completed all of its tasks
+     */
+    public Mono<List<TopicCompletion>> getTopicCompletion(String userId) {
+        return completion(userId).map(completion -> {
+            List<TopicCompletion> topics = new ArrayList<>();
+            for (Topic topic : contentCatalog.getTopics()) {
+                BitSet topicMask = contentCatalog.getTopicTaskMask(topic.getId());
+                List<Quest> quests = contentCatalog.getQuestsByTopic(topic.getId());
+                int completedQuests = 0;
+                for (Quest quest : quests) {
+                    if (completion.covers(contentCatalog.getQuestTaskMask(quest.getId()))) {
+                        completedQuests++;
+                    }
+                }
+                topics.add(new TopicCompletion(topic.getId(), completion.countCompleted(topicMask),
+                        topicMask.cardinality(), completedQuests, quests.size()));
+            }
+            return topics;
+        });
+    }
+
+    /**
+     * Returns the user's cached bitmaps, or loads them from their task progress rows.
+     */
+    private Mono<UserCompletion> completion(String userId) {
+        return completions.getOrLoad(userId, () -> {
+            UserCompletion loaded = new UserCompletion();
+            return taskProgressRepository.findStatusesByUserId(userId)
+                    .doOnNext(row -> loaded.set(contentCatalog.internTask(row.getTaskId()), row.getStatus()))
+                    .then(Mono.fromSupplier(() -> loaded));
+        });
+    }
+
+    /**
+     * The started and completed task ordinals of one user. A task is started
+     * while its progress row is IN_PROGRESS or COMPLETED; NOT_STARTED rows
+     * read as untouched.
+     */
+    private static final class UserCompletion {
+
+        private final BitSet started = new BitSet();
+        private final BitSet completed = new BitSet();
+
+        private synchronized void set(int ordinal, ProgressStatus status) {
+            started.set(ordinal, status == ProgressStatus.IN_PROGRESS || status == ProgressStatus.COMPLETED);
+            completed.set(ordinal, status == ProgressStatus.COMPLETED);
+        }
+
+        private synchronized ProgressStatus status(int ordinal) {
+            if (completed.get(ordinal)) {
+                return ProgressStatus.COMPLETED;
+            }
+            return started.get(ordinal) ? ProgressStatus.IN_PROGRESS : ProgressStatus.NOT_STARTED;
+        }
+
+        private synchronized boolean covers(BitSet mask) {
+            if (mask.isEmpty()) {
+                return false;
+            }
+            BitSet missing = (BitSet) mask.clone();
+            missing.andNot(completed);
+            return missing.isEmpty();
+        }
+
+        private synchronized int countCompleted(BitSet mask) {
+            BitSet done = (BitSet) mask.clone();
+            done.and(completed);
+            return done.cardinality();
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.Quest;
+import com.project.project_portal.dto.Task;
+import com.project.project_portal.dto.Topic;
+import com.project.project_portal.dto.TopicTreeView;
+import com.project.project_portal.repo.QuestRepository;
+import com.project.project_portal.repo.TaskRepository;
+import com.project.project_portal.repo.TopicRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * ContentCatalog keeps an immutable, versioned in-memory snapshot of all
+ * topics, quests and tasks, so catalog reads never touch the database.
+ *
+ * The snapshot is loaded at startup and fully reloaded after every topic,
+ * quest or task mutation made through this node. Content changed elsewhere
+ * (another node, or directly in the database) is picked up when a lookup
+ * misses the snapshot but finds the row in the database, which triggers a
+ * background reload. Each reload takes a version number before it reads;
+ * a finished reload only replaces the current snapshot if its version is newer,
+ * so overlapping reloads can never swap an older view back in.
+ *
+ * Every task ID is also interned to a dense int ordinal. Ordinals are never
+ * reused or reassigned across reloads, so bitmaps of task ordinals built
+ * against one snapshot stay valid against the next. Each snapshot carries the
+ * task ordinal mask of every quest and topic.
+ */
+@Component
+public class ContentCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentCatalog.class);
+
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final BitSet EMPTY_MASK = new BitSet();
+
+    private static final Comparator<Quest> QUEST_ORDER = Comparator
+            .comparing(Quest::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Quest::getId);
+
+    private static final Comparator<Task> TASK_ORDER = Comparator
+            .comparing(Task::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Task::getId);
+
+    private final TopicRepository topicRepository;
+    private final QuestRepository questRepository;
+    private final TaskRepository taskRepository;
+
+    private final Map<String, Integer> taskOrdinals = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTaskOrdinal = new AtomicInteger();
+
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    private final AtomicReference<Snapshot> snapshot =
+            new AtomicReference<>(Snapshot.compile(0, List.of(), List.of(), List.of(), this::internTask));
+
+    public ContentCatalog(TopicRepository topicRepository,
+                          QuestRepository questRepository,
+                          TaskRepository taskRepository) {
+        this.topicRepository = topicRepository;
+        this.questRepository = questRepository;
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * Loads the catalog once the application (and its migrations) are ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload().block(LOAD_TIMEOUT);
+    }
+
+    /**
+     * Re-reads all topics, quests and tasks and atomically swaps in a new snapshot.
+     *
+     * @return Mono<Void> completing once the new snapshot (or a newer one) is visible
+     */
+    public Mono<Void> reload() {
+        return Mono.defer(() -> {
+            long version = versions.incrementAndGet();
+            return Mono.zip(
+                            topicRepository.findAll().collectList(),
+                            questRepository.findAll().collectList(),
+                            taskRepository.findAll().collectList())
+                    .map(content -> Snapshot.compile(version, content.getT1(), content.getT2(), content.getT3(),
+                            this::internTask))
+                    .doOnNext(compiled -> {
+                        Snapshot current = snapshot.accumulateAndGet(compiled,
+                                (existing, candidate) -> candidate.version > existing.version ? candidate : existing);
+                        if (current == compiled) {
+                            logger.info("Content catalog v{} loaded: {} topics, {} quests, {} tasks",
+                                    version, compiled.topicsById.size(), compiled.questsById.size(),
+                                    compiled.tasksById.size());
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Reloads the catalog once the surrounding transaction has committed, or
+     * immediately when there is no transaction, so a reload never observes (or
+     * publishes) writes that may still roll back.
+     *
+     * @return Mono<Void> completing once the reload is registered or done
+     */
+    public Mono<Void> reloadAfterCommit() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(manager -> {
+                    if (!manager.isSynchronizationActive()) {
+                        return reload();
+                    }
+                    manager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return reload();
+                        }
+                    });
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(NoTransactionException.class, e -> reload());
+    }
+
+    /**
+     * Starts a reload in the background unless one requested this way is still
+     * running, so a burst of snapshot misses causes a single reload.
+     */
+    public void requestReload() {
+        if (reloadRequested.compareAndSet(false, true)) {
+            reload()
+                    .doFinally(signal -> reloadRequested.set(false))
+                    .subscribe(null, e -> logger.warn("Content catalog reload failed: {}", e.getMessage()));
+        }
+    }
+
+    /**
+     * Returns the version of the snapshot currently served.
+     *
+     * @return snapshot version, 0 before the first load
+     */
+    public long version() {
+        return snapshot.get().version;
+    }
+
+    /**
+     * Returns up to {@code count} topics whose ID sorts after the given ID.
+     *
+     * @param afterId The last ID of the previous page, "" for the first page
+     * @param count The maximum number of topics
+     * @return topics in ID order
+     */
+    public List<Topic> getTopicsAfter(String afterId, int count) {
+        return pageAfter(snapshot.get().topicsById, afterId, count);
+    }
+
+    /**
+     * Returns the topic with the given ID.
+     *
+     * @param topicId The topic ID
+     * @return the topic, or null if it is not in the catalog
+     */
+    public Topic getTopic(String topicId) {
+        return snapshot.get().topicsById.get(topicId);
+    }
+
+    /**
+     * Returns all topics.
+     *
+     * @return topics in ID order
+     */
+    public Collection<Topic> getTopics() {
+        return snapshot.get().topicsById.values();
+    }
+
+    /**
+     * Returns up to {@code count} quests whose ID sorts after the given ID.
+     *
+     * @param afterId The last ID of the previous page, "" for the first page
+     * @param count The maximum number of quests
+     * @return quests in ID order
+     */
+    public List<Quest> getQuestsAfter(String afterId, int count) {
+        return pageAfter(snapshot.get().questsById, afterId, count);
+    }
+
+    /**
+     * Returns the quest with the given ID.
+     *
+     * @param questId The quest ID
+     * @return the quest, or null if it is not in the catalog
+     */
+    public Quest getQuest(String questId) {
+        return snapshot.get().questsById.get(questId);
+    }
+
+    /**
+     * Returns the quests of a topic ordered by their sequence.
+     *
+     * @param topicId The topic ID
+     * @return immutable list of quests, empty if the topic has none
+     */
+    public List<Quest> getQuestsByTopic(String topicId) {
+        return snapshot.get().questsByTopic.getOrDefault(topicId, List.of());
+    }
+
+    /**
+     * Returns up to {@code count} tasks whose ID sorts after the given ID.
+     *
+     * @param afterId The last ID of the previous page, "" for the first page
+     * @param count The maximum number of tasks
+     * @return tasks in ID order
+     */
+    public List<Task> getTasksAfter(String afterId, int count) {
+        return pageAfter(snapshot.get().tasksById, afterId, count);
+    }
+
+    /**
+     * Returns the task with the given ID.
+     *
+     * @param taskId The task ID
+     * @return the task, or null if it is not in the catalog
+     */
+    public Task getTask(String taskId) {
+        return snapshot.get().tasksById.get(taskId);
+    }
+
+    /**
+     * Returns the task with the given ID from the snapshot, or from the database
+     * if the snapshot does not have it yet; a task found only in the database
+     * triggers a reload.
+     *
+     * @param taskId The task ID
+     * @return Mono<Task> or empty if the task does not exist
+     */
+    public Mono<Task> findTask(String taskId) {
+        return Mono.defer(() -> {
+            Task task = getTask(taskId);
+            if (task != null) {
+                return Mono.just(task);
+            }
+            return taskRepository.findById(taskId)
+                    .doOnNext(found -> requestReload());
+        });
+    }
+
+    /**
+     * Returns the tasks of a quest ordered by their sequence.
+     *
+     * @param questId The quest ID
+     * @return immutable list of tasks, empty if the quest has none
+     */
+    public List<Task> getTasksByQuest(String questId) {
+        return snapshot.get().tasksByQuest.getOrDefault(questId, List.of());
+    }
+
+    /**
+     * Returns the prebuilt tree of a topic with its quests and tasks.
+     *
+     * @param topicId The topic ID
+     * @return the topic tree, or null if the topic is not in the catalog
+     */
+    public TopicTreeView getTopicTree(String topicId) {
+        return snapshot.get().treesByTopic.get(topicId);
+    }
+
+    /**
+     * Returns the number of tasks in the catalog.
+     *
+     * @return total task count
+     */
+    public int getTaskCount() {
+        return snapshot.get().tasksById.size();
+    }
+
+    /**
+     * Returns the number of quests in the catalog.
+     *
+     * @return total quest count
+     */
+    public int getQuestCount() {
+        return snapshot.get().questsById.size();
+    }
+
+    /**
+     * Returns the ordinal of a task ID, assigning the next free one on first use.
+     *
+     * @param taskId The task ID
+     * @return the task's ordinal
+     */
+    int internTask(String taskId) {
+        return taskOrdinals.computeIfAbsent(taskId, id -> nextTaskOrdinal.getAndIncrement());
+    }
+
+    /**
+     * Returns the ordinals of a quest's tasks. The mask is shared and must not be modified.
+     *
+     * @param questId The quest ID
+     * @return the task mask, empty if the quest has no tasks or is not in the catalog
+     */
+    BitSet getQuestTaskMask(String questId) {
+        return snapshot.get().taskMaskByQuest.getOrDefault(questId, EMPTY_MASK);
+    }
+
+    /**
+     * Returns the ordinals of all tasks of a topic's quests. The mask is shared and must not be modified.
+     *
+     * @param topicId The topic ID
+     * @return the task mask, empty if the topic has no tasks or is not in the catalog
+     */
+    BitSet getTopicTaskMask(String topicId) {
+        return snapshot.get().taskMaskByTopic.getOrDefault(topicId, EMPTY_MASK);
+    }
+
+    private static <T> List<T> pageAfter(NavigableMap<String, T> byId, String afterId, int count) {
+        List<T> page = new ArrayList<>(Math.min(count, byId.size()));
+        for (T item : byId.tailMap(afterId, false).values()) {
+            if (page.size() == count) {
+                break;
+            }
+            page.add(item);
+        }
+        return page;
+    }
+
+    /**
+     * Immutable compiled view of the topics, quests and tasks tables.
+     */
+    private static final class Snapshot {
+
+        private final long version;
+        private final NavigableMap<String, Topic> topicsById;
+        private final NavigableMap<String, Quest> questsById;
+        private final NavigableMap<String, Task> tasksById;
+        private final Map<String, List<Quest>> questsByTopic;
+        private final Map<String, List<Task>> tasksByQuest;
+        private final Map<String, TopicTreeView> treesByTopic;
+        private final Map<String, BitSet> taskMaskByQuest;
+        private final Map<String, BitSet> taskMaskByTopic;
+
+        private Snapshot(long version,
+                         NavigableMap<String, Topic> topicsById,
+                         NavigableMap<String, Quest> questsById,
+                         NavigableMap<String, Task> tasksById,
+                         Map<String, List<Quest>> questsByTopic,
+                         Map<String, List<Task>> tasksByQuest,
+                         Map<String, TopicTreeView> treesByTopic,
+                         Map<String, BitSet> taskMaskByQuest,
+                         Map<String, BitSet> taskMaskByTopic) {
+            this.version = version;
+            this.topicsById = topicsById;
+            this.questsById = questsById;
+            this.tasksById = tasksById;
+            this.questsByTopic = questsByTopic;
+            this.tasksByQuest = tasksByQuest;
+            this.treesByTopic = treesByTopic;
+            this.taskMaskByQuest = taskMaskByQuest;
+            this.taskMaskByTopic = taskMaskByTopic;
+        }
+
+        private static Snapshot compile(long version, List<Topic> topics, List<Quest> quests, List<Task> tasks,
+                                        ToIntFunction<String> taskOrdinal) {
+            NavigableMap<String, Topic> topicsById = new TreeMap<>();
+            topics.forEach(topic -> topicsById.put(topic.getId(), topic));
+            NavigableMap<String, Quest> questsById = new TreeMap<>();
+            quests.forEach(quest -> questsById.put(quest.getId(), quest));
+            NavigableMap<String, Task> tasksById = new TreeMap<>();
+            tasks.forEach(task -> tasksById.put(task.getId(), task));
+
+            Map<String, List<Quest>> questsByTopic = groupSorted(quests, Quest::getTopicId, QUEST_ORDER);
+            Map<String, List<Task>> tasksByQuest = groupSorted(tasks, Task::getQuestId, TASK_ORDER);
+
+            Map<String, BitSet> taskMaskByQuest = new HashMap<>();
+            tasksByQuest.forEach((questId, questTasks) -> {
+                BitSet mask = new BitSet();
+                questTasks.forEach(task -> mask.set(taskOrdinal.applyAsInt(task.getId())));
+                taskMaskByQuest.put(questId, mask);
+            });
+
+            Map<String, TopicTreeView> treesByTopic = new HashMap<>();
+            Map<String, BitSet> taskMaskByTopic = new HashMap<>();
+            for (Topic topic : topicsById.values()) {
+                List<TopicTreeView.QuestView> questViews = new ArrayList<>();
+                BitSet topicMask = new BitSet();
+                for (Quest quest : questsByTopic.getOrDefault(topic.getId(), List.of())) {
+                    List<TopicTreeView.TaskView> taskViews = new ArrayList<>();
+                    for (Task task : tasksByQuest.getOrDefault(quest.getId(), List.of())) {
+                        taskViews.add(new TopicTreeView.TaskView(task.getId(), task.getTitle(),
+                                task.getDescription(), task.getOrderIndex(), task.getXpReward()));
+                    }
+                    questViews.add(new TopicTreeView.QuestView(quest.getId(), quest.getName(),
+                            quest.getDescription(), quest.getOrderIndex(), List.copyOf(taskViews)));
+                    topicMask.or(taskMaskByQuest.getOrDefault(quest.getId(), EMPTY_MASK));
+                }
+                treesByTopic.put(topic.getId(), new TopicTreeView(topic.getId(), topic.getName(),
+                        topic.getDescription(), List.copyOf(questViews)));
+                taskMaskByTopic.put(topic.getId(), topicMask);
+            }
+
+            return new Snapshot(version,
+                    Collections.unmodifiableNavigableMap(topicsById),
+                    Collections.unmodifiableNavigableMap(questsById),
+                    Collections.unmodifiableNavigableMap(tasksById),
+                    questsByTopic,
+                    tasksByQuest,
+                    Collections.unmodifiableMap(treesByTopic),
+                    Collections.unmodifiableMap(taskMaskByQuest),
+                    Collections.unmodifiableMap(taskMaskByTopic));
+        }
+
+        private static <T> Map<String, List<T>> groupSorted(List<T> items,
+                                                           Function<T, String> parentId,
+                                                           Comparator<T> order) {
+            Map<String, List<T>> grouped = new HashMap<>();
+            for (T item : items) {
+                grouped.computeIfAbsent(parentId.apply(item), id -> new ArrayList<>()).add(item);
+            }
+            grouped.replaceAll((id, group) -> {
+                group.sort(order);
+                return List.copyOf(group);
+            });
+            return Collections.unmodifiableMap(grouped);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.DashboardView;
+import com.project.project_portal.dto.ProgressStatus;
+import com.project.project_portal.dto.TopicTreeView;
+import com.project.project_portal.repo.UserRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DashboardService assembles the data of a user's learning page in one call.
+ *
+ * The user, completion statistics, earned badges and topic task statuses are
+ * independent queries, so they are subscribed to in parallel and zipped; the
+ * topic tree itself comes from the in-memory content catalog and the task
+ * statuses from the user's completion bitmaps.
+ */
+@Service
+public class DashboardService {
+
+    private final UserRepository userRepository;
+    private final ProgressDomainService progressDomainService;
+    private final BadgeService badgeService;
+    private final ContentCatalog contentCatalog;
+    private final CompletionIndex completionIndex;
+
+    public DashboardService(UserRepository userRepository,
+                            ProgressDomainService progressDomainService,
+                            BadgeService badgeService,
+                            ContentCatalog contentCatalog,
+                            CompletionIndex completionIndex) {
+        this.userRepository = userRepository;
+        this.progressDomainService = progressDomainService;
+        this.badgeService = badgeService;
+        this.contentCatalog = contentCatalog;
+        this.completionIndex = completionIndex;
+    }
+
+    /**
+     * Builds the dashboard of a user, optionally for a selected topic.
+     *
+     * @param userId The user ID
+     * @param topicId The selected topic ID, or null for no topic
+     * @return Mono<DashboardView> or empty if the user or the topic does not exist
+     */
+    public Mono<DashboardView> getDashboard(String userId, String topicId) {
+        TopicTreeView topic = topicId == null ? null : contentCatalog.getTopicTree(topicId);
+        if (topicId != null && topic == null) {
+            return Mono.empty();
+        }
+
+        return Mono.zip(
+                userRepository.findById(userId),
+                progressDomainService.getUserCompletionStatus(userId),
+                badgeService.getUserBadges(userId).collectList(),
+                topic == null ? Mono.just(Map.<String, ProgressStatus>of()) : getTaskStatuses(userId, topic)
+        ).map(tuple -> new DashboardView(tuple.getT1(), tuple.getT2(), tuple.getT3(), topic, tuple.getT4()));
+    }
+
+    /**
+     * Reads the user's status for every task of the topic from the user's
+     * completion bitmaps. Tasks without a progress row are reported as NOT_STARTED.
+     *
+     * @param userId The user ID
+     * @param topic The topic tree
+     * @return Mono<Map<String, ProgressStatus>> of task ID to status, in tree order
+     */
+    private Mono<Map<String, ProgressStatus>> getTaskStatuses(String userId, TopicTreeView topic) {
+        List<String> taskIds = new ArrayList<>();
+        for (TopicTreeView.QuestView quest : topic.getQuests()) {
+            for (TopicTreeView.TaskView task : quest.getTasks()) {
+                taskIds.add(task.getId());
+            }
+        }
+        return completionIndex.getTaskStatuses(userId, taskIds);
+    }
+}
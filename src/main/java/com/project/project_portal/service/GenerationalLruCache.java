@@ -0,0 +1,204 @@
+package com.project.project_portal.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * GenerationalLruCache holds values built from the database for a bounded set
+ * of keys, evicting the least recently used entry when full.
+ *
+ * Values enter the cache through {@link #getOrLoad}. While a key is being
+ * loaded it has a generation, which every change to the key that cannot be
+ * applied to a cached value bumps; the load only caches its value if the
+ * generation it started from is still current. Writes that add to a value
+ * rather than set it are bracketed by {@link #beginChange} and
+ * {@link #endChange}: a load that overlaps such a write in any way is not
+ * cached, since its snapshot may or may not include the write and the cached
+ * value would then miss or double count the addition. Generations are only
+ * tracked while a load or a bracketed change of the key is in flight.
+ * Cached values are only changed under the cache's lock, through
+ * {@link #update}.
+ *
+ * @param <V> the cached value type
+ */
+class GenerationalLruCache<V> {
+
+    private final LinkedHashMap<String, V> values;
+    private final Map<String, KeyState> states = new HashMap<>();
+
+    GenerationalLruCache(int capacity) {
+        this.values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value of a key, marking it recently used.
+     *
+     * @param key The cache key
+     * @return the value, or null if the key must be loaded
+     */
+    synchronized V get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Returns the cached value of a key, or loads it and caches it unless the
+     * key changed while loading.
+     *
+     * @param key The cache key
+     * @param loader Loads the value from the database
+     * @return Mono<V> with the cached value if present, otherwise the loaded one
+     */
+    Mono<V> getOrLoad(String key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long generation;
+            synchronized (this) {
+                V cached = values.get(key);
+                if (cached != null) {
+                    return Mono.just(cached);
+                }
+                KeyState state = states.computeIfAbsent(key, k -> new KeyState());
+                state.loads++;
+                generation = state.generation;
+            }
+            return loader.get()
+                    .map(loaded -> install(key, generation, loaded))
+                    .doFinally(signal -> endLoad(key));
+        });
+    }
+
+    /**
+     * Caches a value that is never changed in place, replacing any cached one.
+     *
+     * @param key The cache key
+     * @param value The value
+     */
+    synchronized void put(String key, V value) {
+        values.put(key, value);
+    }
+
+    /**
+     * Applies a change to the cached value of a key, or invalidates pending
+     * loads of the key if it is not cached.
+     *
+     * @param key The cache key
+     * @param change The change to apply to the cached value
+     */
+    synchronized void update(String key, Consumer<V> change) {
+        V cached = values.get(key);
+        if (cached != null) {
+            change.accept(cached);
+        } else {
+            bump(key);
+        }
+    }
+
+    /**
+     * Marks the start of a database write whose effect is added to the key's
+     * value through {@link #update}. Every call must be matched by {@link #endChange},
+     * after the write has committed and its update has been applied, or after it failed.
+     *
+     * @param key The cache key
+     */
+    synchronized void beginChange(String key) {
+        KeyState state = states.computeIfAbsent(key, k -> new KeyState());
+        state.changes++;
+        state.generation++;
+    }
+
+    /**
+     * Marks the end of a write started with {@link #beginChange}.
+     *
+     * @param key The cache key
+     */
+    synchronized void endChange(String key) {
+        KeyState state = states.get(key);
+        state.changes--;
+        state.generation++;
+        prune(key, state);
+    }
+
+    /**
+     * Drops a key whose value can no longer be maintained incrementally.
+     *
+     * @param key The cache key
+     */
+    synchronized void invalidate(String key) {
+        values.remove(key);
+        bump(key);
+    }
+
+    /**
+     * Applies a change to every cached value.
+     *
+     * @param change The change to apply
+     */
+    synchronized void forEach(Consumer<V> change) {
+        values.values().forEach(change);
+    }
+
+    /**
+     * Drops all cached values, e.g. after the content they are built from changed.
+     */
+    synchronized void clear() {
+        values.clear();
+        states.values().forEach(state -> state.generation++);
+    }
+
+    /**
+     * @return the number of keys whose generation is tracked
+     */
+    synchronized int trackedKeys() {
+        return states.size();
+    }
+
+    private synchronized V install(String key, long generation, V loaded) {
+        V cached = values.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        KeyState state = states.get(key);
+        if (state.generation == generation && state.changes == 0) {
+            values.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private synchronized void endLoad(String key) {
+        KeyState state = states.get(key);
+        state.loads--;
+        prune(key, state);
+    }
+
+    private void bump(String key) {
+        KeyState state = states.get(key);
+        if (state != null) {
+            state.generation++;
+        }
+    }
+
+    private void prune(String key, KeyState state) {
+        if (state.loads == 0 && state.changes == 0) {
+            states.remove(key);
+        }
+    }
+
+    /**
+     * The loads and bracketed changes in flight for one key.
+     */
+    private static final class KeyState {
+
+        private int loads;
+        private int changes;
+        private long generation;
+    }
+}
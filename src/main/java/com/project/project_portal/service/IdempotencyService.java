@@ -0,0 +1,154 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.IdempotentResponse;
+import com.project.project_portal.repo.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IdempotencyService answers retried mutations that carry an Idempotency-Key
+ * with the response of the first successful attempt.
+ *
+ * Recent responses are held in a bounded in-memory cache, so a retry is
+ * answered without touching the database. Responses are also written to the
+ * idempotency_keys table, which is consulted on a cache miss so that retries
+ * are still recognised after a restart or eviction. Requests that arrive while
+ * the first attempt with the same key is still running wait for and share its
+ * response. Only successful responses are recorded: a failed attempt can be
+ * retried with the same key.
+ *
+ * Entries expire after progress.idempotency.ttl; expired rows are purged
+ * periodically.
+ */
+@Service
+public class IdempotencyService implements DisposableBean {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyKeyRepository repository;
+    private final Duration ttl;
+    private final Duration purgeInterval;
+
+    private final GenerationalLruCache<CachedResponse> responses;
+    private final Map<String, Mono<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+    private Disposable purge;
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              @Value("${progress.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${progress.idempotency.max-cached-keys:100000}") int maxCachedKeys,
+                              @Value("${progress.idempotency.purge-interval:1h}") Duration purgeInterval) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.purgeInterval = purgeInterval;
+        this.responses = new GenerationalLruCache<>(maxCachedKeys);
+    }
+
+    /**
+     * Starts the periodic purge of expired keys once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        purge = Flux.interval(purgeInterval, purgeInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> repository.deleteExpired(ttl.toSeconds())
+                        .onErrorResume(e -> {
+                            logger.warn("Idempotency key purge failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (purge != null) {
+            purge.dispose();
+        }
+    }
+
+    /**
+     * Runs a mutation at most once per key, replaying the recorded response to retries.
+     *
+     * @param key The Idempotency-Key sent by the client
+     * @param fingerprint Identifies the request (method, path and query)
+     * @param action The mutation, producing the response to record
+     * @return Mono<IdempotentResponse> from the action or replayed from an earlier attempt;
+     *         errors with IllegalStateException if the key was used for a different request
+     */
+    public Mono<IdempotentResponse> execute(String key, String fingerprint, Mono<IdempotentResponse> action) {
+        return Mono.defer(() -> {
+            CachedResponse cached = responses.get(key);
+            if (cached != null && cached.isFresh()) {
+                return Mono.just(cached.response);
+            }
+            return inFlight.computeIfAbsent(key, k -> firstAttempt(k, fingerprint, action));
+        }).flatMap(response -> fingerprint.equals(response.getRequestFingerprint())
+                ? Mono.just(response)
+                : Mono.error(new IllegalStateException(
+                        IDEMPOTENCY_KEY_HEADER + " was already used for a different request")));
+    }
+
+    /**
+     * Looks the key up in the table and otherwise runs the action, recording a
+     * successful response. Shared by all requests with the key until it completes.
+     */
+    private Mono<IdempotentResponse> firstAttempt(String key, String fingerprint, Mono<IdempotentResponse> action) {
+        return repository.findFresh(key, ttl.toSeconds())
+                .switchIfEmpty(action.flatMap(response -> response.isSuccess()
+                        ? record(key, fingerprint, response)
+                        : Mono.just(response)))
+                .doOnNext(response -> {
+                    if (response.isSuccess()) {
+                        responses.put(key, new CachedResponse(response, System.nanoTime() + ttl.toNanos()));
+                    }
+                })
+                .doFinally(signal -> inFlight.remove(key))
+                .cache();
+    }
+
+    /**
+     * Writes a successful response to the table. A failed write only costs crash
+     * safety for this key, so it does not fail the request.
+     */
+    private Mono<IdempotentResponse> record(String key, String fingerprint, IdempotentResponse response) {
+        response.setIdempotencyKey(key);
+        response.setRequestFingerprint(fingerprint);
+        return repository.upsert(key, fingerprint, response.getStatusCode(), response.getResponseBody())
+                .thenReturn(response)
+                .onErrorResume(e -> {
+                    logger.warn("Could not record idempotency key {}: {}", key, e.getMessage());
+                    return Mono.just(response);
+                });
+    }
+
+    /**
+     * A recorded response and the System.nanoTime() at which it expires.
+     */
+    private static final class CachedResponse {
+
+        private final IdempotentResponse response;
+        private final long expiresAt;
+
+        private CachedResponse(IdempotentResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.LeaderboardEntry;
+import com.project.project_portal.dto.Quest;
+import com.project.project_portal.dto.UserXp;
+import com.project.project_portal.repo.UserQuestProgressRepository;
+import com.project.project_portal.repo.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * LeaderboardService serves the global XP ranking from an in-memory XpRanking,
+ * so top-N, rank and neighbour queries never sort the users table.
+ *
+ * The ranking is rebuilt at startup from one streaming scan of users and is
+ * then kept current by the services that change a user's XP, which report the
+ * absolute total returned by the database rather than a delta.
+ *
+ * Per-quest and per-topic rankings are loaded on first use from one aggregate
+ * query over the scope's quest progress, then maintained incrementally from
+ * each task completion's XP; completion writes are wrapped in trackQuestXp so
+ * that a scope loaded while they are in flight is not cached with their XP
+ * missing or counted twice. Only the most recently used scopes are kept; a
+ * cold scope is simply reloaded. All scoped rankings are dropped when the
+ * content catalog changes, since quests may have moved between topics.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+
+    private final UserRepository userRepository;
+    private final UserQuestProgressRepository questProgressRepository;
+    private final ContentCatalog contentCatalog;
+
+    private final XpRanking ranking = new XpRanking();
+    private final GenerationalLruCache<XpRanking> questRankings;
+    private final GenerationalLruCache<XpRanking> topicRankings;
+    private long scopedCatalogVersion;
+
+    public LeaderboardService(UserRepository userRepository,
+                              UserQuestProgressRepository questProgressRepository,
+                              ContentCatalog contentCatalog,
+                              @Value("${progress.leaderboard.max-cached-quests:256}") int maxCachedQuests,
+                              @Value("${progress.leaderboard.max-cached-topics:64}") int maxCachedTopics) {
+        this.userRepository = userRepository;
+        this.questProgressRepository = questProgressRepository;
+        this.contentCatalog = contentCatalog;
+        this.questRankings = new GenerationalLruCache<>(maxCachedQuests);
+        this.topicRankings = new GenerationalLruCache<>(maxCachedTopics);
+    }
+
+    /**
+     * Loads the ranking once the application (and its migrations) are ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild().block(LOAD_TIMEOUT);
+    }
+
+    /**
+     * Streams every user's XP into the ranking. Users already updated since
+     * startup keep their newer value.
+     *
+     * @return Mono<Void> completing once the scan has finished
+     */
+    public Mono<Void> rebuild() {
+        return userRepository.findAllXp()
+                .doOnNext(user -> ranking.offer(user.getId(), xpOf(user.getTotalXp())))
+                .then(Mono.fromRunnable(() -> logger.info("XP leaderboard loaded: {} users", ranking.size())));
+    }
+
+    /**
+     * Records a user's current XP total.
+     *
+     * @param userId The user ID
+     * @param totalXp The user's XP total as stored, null counting as 0
+     */
+    public void recordXp(String userId, Integer totalXp) {
+        ranking.update(userId, xpOf(totalXp));
+    }
+
+    /**
+     * Records XP a user earned by completing a task of a quest, in the quest's
+     * and the quest's topic's rankings.
+     *
+     * @param userId The user ID
+     * @param questId The quest of the completed task
+     * @param gainedXp The XP earned, null counting as 0
+     */
+    public void recordQuestXp(String userId, String questId, Integer gainedXp) {
+        if (gainedXp == null || gainedXp == 0) {
+            return;
+        }
+        syncWithCatalog();
+        questRankings.update(questId, scoped -> scoped.add(userId, gainedXp));
+        Quest quest = contentCatalog.getQuest(questId);
+        if (quest != null) {
+            topicRankings.update(quest.getTopicId(), scoped -> scoped.add(userId, gainedXp));
+        }
+    }
+
+    /**
+     * Runs a write whose committed completions are reported through
+     * {@link #recordQuestXp}. Rankings of the written quests and their topics
+     * that are loaded while the write is in flight are not cached, since the
+     * write may or may not be part of what they read.
+     *
+     * @param questIds The quests of the tasks the write may complete
+     * @param write The write, reporting its completions before it completes
+     * @return Flux<T> with the write's results
+     */
+    public <T> Flux<T> trackQuestXp(Collection<String> questIds, Flux<T> write) {
+        return Flux.using(() -> beginQuestXp(questIds), scopes -> write, this::endQuestXp);
+    }
+
+    /**
+     * Runs a single-result write like {@link #trackQuestXp(Collection, Flux)}.
+     *
+     * @param questId The quest of the task the write may complete
+     * @param write The write, reporting its completion before it completes
+     * @return Mono<T> with the write's result
+     */
+    public <T> Mono<T> trackQuestXp(String questId, Mono<T> write) {
+        return Mono.using(() -> beginQuestXp(List.of(questId)), scopes -> write, this::endQuestXp);
+    }
+
+    private Map<GenerationalLruCache<XpRanking>, Set<String>> beginQuestXp(Collection<String> questIds) {
+        syncWithCatalog();
+        Set<String> topicIds = new HashSet<>();
+        for (String questId : questIds) {
+            Quest quest = contentCatalog.getQuest(questId);
+            if (quest != null) {
+                topicIds.add(quest.getTopicId());
+            }
+        }
+        Map<GenerationalLruCache<XpRanking>, Set<String>> scopes =
+                Map.of(questRankings, new HashSet<>(questIds), topicRankings, topicIds);
+        scopes.forEach((rankings, keys) -> keys.forEach(rankings::beginChange));
+        return scopes;
+    }
+
+    private void endQuestXp(Map<GenerationalLruCache<XpRanking>, Set<String>> scopes) {
+        scopes.forEach((rankings, keys) -> keys.forEach(rankings::endChange));
+    }
+
+    /**
+     * Removes a deleted user from all rankings.
+     *
+     * @param userId The user ID
+     */
+    public void removeUser(String userId) {
+        ranking.remove(userId);
+        questRankings.forEach(scoped -> scoped.remove(userId));
+        topicRankings.forEach(scoped -> scoped.remove(userId));
+    }
+
+    /**
+     * Returns the highest ranked users.
+     *
+     * @param limit The maximum number of entries
+     * @return entries in rank order
+     */
+    public List<LeaderboardEntry> getTop(int limit) {
+        return ranking.top(limit);
+    }
+
+    /**
+     * Returns a user's rank and XP.
+     *
+     * @param userId The user ID
+     * @return Mono<LeaderboardEntry> or empty if the user is not ranked
+     */
+    public Mono<LeaderboardEntry> getRank(String userId) {
+        return Mono.justOrEmpty(ranking.entryOf(userId));
+    }
+
+    /**
+     * Returns the entries ranked directly above and below a user, including the user.
+     *
+     * @param userId The user ID
+     * @param radius The number of neighbours on each side
+     * @return Mono<List<LeaderboardEntry>> in rank order, or empty if the user is not ranked
+     */
+    public Mono<List<LeaderboardEntry>> getNeighbours(String userId, int radius) {
+        return Mono.fromSupplier(() -> ranking.around(userId, radius))
+                .filter(entries -> !entries.isEmpty());
+    }
+
+    /**
+     * Returns the users who earned the most XP in a quest.
+     *
+     * @param questId The quest ID
+     * @param limit The maximum number of entries
+     * @return Mono<List<LeaderboardEntry>> in rank order, or empty if the quest does not exist
+     */
+    public Mono<List<LeaderboardEntry>> getQuestTop(String questId, int limit) {
+        return questRanking(questId).map(scoped -> scoped.top(limit));
+    }
+
+    /**
+     * Returns a user's rank by XP earned in a quest.
+     *
+     * @param questId The quest ID
+     * @param userId The user ID
+     * @return Mono<LeaderboardEntry> or empty if the quest does not exist or the user earned no XP in it
+     */
+    public Mono<LeaderboardEntry> getQuestRank(String questId, String userId) {
+        return questRanking(questId).mapNotNull(scoped -> scoped.entryOf(userId));
+    }
+
+    /**
+     * Returns the users who earned the most XP across a topic's quests.
+     *
+     * @param topicId The topic ID
+     * @param limit The maximum number of entries
+     * @return Mono<List<LeaderboardEntry>> in rank order, or empty if the topic does not exist
+     */
+    public Mono<List<LeaderboardEntry>> getTopicTop(String topicId, int limit) {
+        return topicRanking(topicId).map(scoped -> scoped.top(limit));
+    }
+
+    /**
+     * Returns a user's rank by XP earned across a topic's quests.
+     *
+     * @param topicId The topic ID
+     * @param userId The user ID
+     * @return Mono<LeaderboardEntry> or empty if the topic does not exist or the user earned no XP in it
+     */
+    public Mono<LeaderboardEntry> getTopicRank(String topicId, String userId) {
+        return topicRanking(topicId).mapNotNull(scoped -> scoped.entryOf(userId));
+    }
+
+    private Mono<XpRanking> questRanking(String questId) {
+        if (contentCatalog.getQuest(questId) == null) {
+            return Mono.empty();
+        }
+        return scopedRanking(questRankings, questId, questProgressRepository::findXpByQuestId);
+    }
+
+    private Mono<XpRanking> topicRanking(String topicId) {
+        if (contentCatalog.getTopic(topicId) == null) {
+            return Mono.empty();
+        }
+        return scopedRanking(topicRankings, topicId, questProgressRepository::findXpByTopicId);
+    }
+
+    /**
+     * Returns the cached ranking of a scope, or loads it with one aggregate query.
+     */
+    private Mono<XpRanking> scopedRanking(GenerationalLruCache<XpRanking> rankings, String scope,
+                                          Function<String, Flux<UserXp>> loader) {
+        return Mono.defer(() -> {
+            syncWithCatalog();
+            return rankings.getOrLoad(scope, () -> {
+                XpRanking loaded = new XpRanking();
+                return loader.apply(scope)
+                        .doOnNext(row -> loaded.update(row.getUserId(), row.getXp() == null ? 0 : row.getXp()))
+                        .then(Mono.fromSupplier(() -> loaded));
+            });
+        });
+    }
+
+    /**
+     * Drops all scoped rankings when the content catalog has been reloaded since they were built.
+     */
+    private synchronized void syncWithCatalog() {
+        long version = contentCatalog.version();
+        if (version != scopedCatalogVersion) {
+            questRankings.clear();
+            topicRankings.clear();
+            scopedCatalogVersion = version;
+        }
+    }
+
+    private static long xpOf(Integer totalXp) {
+        return totalXp == null ? 0 : totalXp;
+    }
+}
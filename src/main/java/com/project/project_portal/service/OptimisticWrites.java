@@ -0,0 +1,88 @@
+package com.project.project_portal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * OptimisticWrites runs versioned writes to users and progress rows and
+ * measures how often they conflict.
+ *
+ * A write whose row version changed since it was read fails with
+ * OptimisticLockingFailureException. Read-modify-write updates go through
+ * {@link #withRetry}, which re-runs the whole read and write after a jittered
+ * backoff, a bounded number of times. Writes based on a version the client
+ * sent go through {@link #once}: retrying them cannot succeed, so the conflict
+ * is reported to the client (as 409).
+ *
+ * Per entity, progress.version.writes counts write attempts,
+ * progress.version.conflicts the attempts that hit a newer version and
+ * progress.version.retries-exhausted the updates that gave up; conflicts over
+ * writes is the conflict rate.
+ */
+@Component
+public class OptimisticWrites {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxRetries;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+
+    public OptimisticWrites(MeterRegistry meterRegistry,
+                            @Value("${progress.optimistic.max-retries:3}") int maxRetries,
+                            @Value("${progress.optimistic.min-backoff:10ms}") Duration minBackoff,
+                            @Value("${progress.optimistic.max-backoff:200ms}") Duration maxBackoff,
+                            @Value("${progress.optimistic.jitter:0.5}") double jitter) {
+        this.meterRegistry = meterRegistry;
+        this.maxRetries = maxRetries;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Runs a versioned write once.
+     *
+     * @param entity The table written, used as the metrics tag
+     * @param write Starts the write
+     * @return Mono<T> with the write's result, or its version conflict
+     */
+    public <T> Mono<T> once(String entity, Supplier<Mono<T>> write) {
+        return Mono.defer(() -> {
+            counter("progress.version.writes", entity).increment();
+            return write.get();
+        }).doOnError(OptimisticLockingFailureException.class,
+                e -> counter("progress.version.conflicts", entity).increment());
+    }
+
+    /**
+     * Runs a read-modify-write, re-running it from the read on version conflicts.
+     *
+     * @param entity The table written, used as the metrics tag
+     * @param readModifyWrite Reads the row, applies the change and writes it back
+     * @return Mono<T> with the write's result, or the last version conflict once the retries are used up
+     */
+    public <T> Mono<T> withRetry(String entity, Supplier<Mono<T>> readModifyWrite) {
+        return once(entity, readModifyWrite)
+                .retryWhen(Retry.backoff(maxRetries, minBackoff)
+                        .maxBackoff(maxBackoff)
+                        .jitter(jitter)
+                        .filter(OptimisticLockingFailureException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> {
+                            counter("progress.version.retries-exhausted", entity).increment();
+                            return signal.failure();
+                        }));
+    }
+
+    private Counter counter(String name, String entity) {
+        return meterRegistry.counter(name, "entity", entity);
+    }
+}
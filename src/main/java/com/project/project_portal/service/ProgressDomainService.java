@@ -1,19 +1,21 @@
 package com.project.project_portal.service;
 
+import com.project.project_portal.dto.KeysetPage;
+import com.project.project_portal.dto.QuestWithTasksView;
+import com.project.project_portal.dto.TaskCompletion;
+import com.project.project_portal.dto.TopicCompletion;
 import com.project.project_portal.dto.UserQuestProgress;
 import com.project.project_portal.dto.UserTaskProgress;
-import com.project.project_portal.dto.Task;
-import com.project.project_portal.dto.User;
+import com.project.project_portal.dto.XpLedgerEntry;
 import com.project.project_portal.repo.UserTaskProgressRepository;
 import com.project.project_portal.repo.UserQuestProgressRepository;
 import com.project.project_portal.repo.UserRepository;
-import com.project.project_portal.repo.TaskRepository;
-import com.project.project_portal.repo.QuestRepository;
+import com.project.project_portal.repo.XpLedgerRepository;
+import io.r2dbc.spi.R2dbcException;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,311 +31,136 @@ import java.util.Map;
 @Service
 public class ProgressDomainService {
 
-    // Constants for badge IDs
-    private static final String BADGE_FIRST_STEP = "badge-1";
-    private static final String BADGE_TASK_WARRIOR = "badge-3";
-    private static final String BADGE_TASK_LEGEND = "badge-4";
-    private static final String BADGE_QUEST_STARTER = "badge-5";
-    private static final String BADGE_QUEST_EXPLORER = "badge-6";
-    private static final String BADGE_QUEST_GOD = "badge-7";
+    // Constants for mastery badge IDs (milestone badges are driven by badge rules)
     private static final String BADGE_LEGEND_MASTER = "badge-8";
     private static final String BADGE_JAVA_MASTER = "badge-9";
 
-    // Constants for progress statuses
-    private static final String STATUS_NOT_STARTED = "NOT_STARTED";
-    private static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
-    private static final String STATUS_COMPLETED = "COMPLETED";
-
-    // Constants for milestone counts
-    private static final int MILESTONE_FIRST_TASK = 1;
-    private static final int MILESTONE_FIVE_TASKS = 5;
-    private static final int MILESTONE_TEN_TASKS = 10;
-    private static final int MILESTONE_FIRST_QUEST = 1;
-    private static final int MILESTONE_THREE_QUESTS = 3;
-    private static final int MILESTONE_ALL_QUESTS = 2; // Based on seed data having 2 quests
+    // SQLSTATE raised by the progress functions for missing rows
+    private static final String SQLSTATE_NO_DATA_FOUND = "P0002";
 
     private final UserTaskProgressRepository taskProgressRepo;
     private final UserQuestProgressRepository questProgressRepo;
     private final UserRepository userRepo;
-    private final TaskRepository taskRepo;
-    private final QuestRepository questRepo;
+    private final ContentCatalog contentCatalog;
+    private final XpLedgerRepository xpLedgerRepo;
     private final BadgeService badgeService;
+    private final BadgeAwardPipeline badgeAwardPipeline;
+    private final LeaderboardService leaderboardService;
+    private final CompletionIndex completionIndex;
+    private final TaskCompletionBatcher completionBatcher;
+    private final UserMutationLanes mutationLanes;
 
     public ProgressDomainService(
             UserTaskProgressRepository taskProgressRepo,
             UserQuestProgressRepository questProgressRepo,
             UserRepository userRepo,
-            TaskRepository taskRepo,
-            QuestRepository questRepo,
-            BadgeService badgeService) {
+            ContentCatalog contentCatalog,
+            XpLedgerRepository xpLedgerRepo,
+            BadgeService badgeService,
+            BadgeAwardPipeline badgeAwardPipeline,
+            LeaderboardService leaderboardService,
+            CompletionIndex completionIndex,
+            TaskCompletionBatcher completionBatcher,
+            UserMutationLanes mutationLanes) {
         this.taskProgressRepo = taskProgressRepo;
         this.questProgressRepo = questProgressRepo;
         this.userRepo = userRepo;
-        this.taskRepo = taskRepo;
-        this.questRepo = questRepo;
+        this.contentCatalog = contentCatalog;
+        this.xpLedgerRepo = xpLedgerRepo;
         this.badgeService = badgeService;
+        this.badgeAwardPipeline = badgeAwardPipeline;
+        this.leaderboardService = leaderboardService;
+        this.completionIndex = completionIndex;
+        this.completionBatcher = completionBatcher;
+        this.mutationLanes = mutationLanes;
     }
 
     /**
      * Starts or resumes a task for a user.
      * Creates a quest progress record if this is the first task in a quest.
+     * Both rows are written with idempotent upserts, so concurrent or repeated
+     * starts return the existing progress instead of failing. Tasks are looked
+     * up in the content catalog; only a task missing from it costs a database
+     * lookup before it is rejected. Runs on the user's mutation lane.
      *
      * @param userId The user attempting to start the task
      * @param taskId The task to start
-     * @return Mono<UserTaskProgress> with status IN_PROGRESS
+     * @return Mono<UserTaskProgress> with status IN_PROGRESS (or COMPLETED if already done)
      */
     public Mono<UserTaskProgress> startTask(String userId, String taskId) {
-        return taskRepo.findById(taskId)
+        return contentCatalog.findTask(taskId)
                 .switchIfEmpty(Mono.error(new IllegalStateException("Task not found")))
-                .flatMap(task -> ensureQuestProgressOnStart(userId, task)
-                        .then(taskProgressRepo.findByUserIdAndTaskId(userId, taskId))
-                        .flatMap(existing -> {
-                            // If already completed or in progress, just return it
-                            if (STATUS_COMPLETED.equals(existing.getStatus()) ||
-                                STATUS_IN_PROGRESS.equals(existing.getStatus())) {
-                                return Mono.just(existing);
-                            }
-                            // Any other status: set to IN_PROGRESS and update
-                            existing.setStatus(STATUS_IN_PROGRESS);
-                            existing.setUpdatedAt(LocalDateTime.now());
-                            return taskProgressRepo.save(existing);
-                        })
-                        .switchIfEmpty(Mono.defer(() -> {
-                            // No row for this user/task: create a fresh one
-                            UserTaskProgress progress = new UserTaskProgress(
-                                    userId,
-                                    taskId,
-                                    STATUS_IN_PROGRESS,
-                                    0,
-                                    LocalDateTime.now()
-                            );
-                            return taskProgressRepo.save(progress);
-                        }))
-                );
-    }
-
-    /**
-     * Ensures a quest progress record exists when a user starts a task.
-     * If the quest progress doesn't exist, creates one with IN_PROGRESS status.
-     *
-     * @param userId The user ID
-     * @param task The task being started
-     * @return Mono<UserQuestProgress> or empty Mono if task has no quest
-     */
-    private Mono<UserQuestProgress> ensureQuestProgressOnStart(String userId, Task task) {
-        String questId = task.getQuestId();
-        if (questId == null) {
-            return Mono.empty();
-        }
-
-        return questProgressRepo.findByUserIdAndQuestId(userId, questId)
-                .switchIfEmpty(Mono.defer(() -> {
-                    UserQuestProgress qp = new UserQuestProgress();
-                    qp.setUserId(userId);
-                    qp.setQuestId(questId);
-                    qp.setStatus(STATUS_IN_PROGRESS);
-                    qp.setGainedXp(0);
-                    return questProgressRepo.save(qp);
-                }));
+                .flatMap(task -> mutationLanes.submit(userId, "start:" + taskId, () ->
+                        questProgressRepo.insertStartedForTask(userId, taskId)
+                                .then(taskProgressRepo.upsertStarted(userId, taskId))
+                                .doOnNext(progress -> completionIndex.record(userId, taskId, progress.getStatus()))
+                                .switchIfEmpty(Mono.error(new IllegalStateException("Task not found")))));
     }
 
     /**
      * Marks a task as completed for a user.
-     * Updates user XP, quest progress, and awards relevant badges.
+     * The status change, XP increment, quest XP/status update and milestone
+     * counts are applied by the complete_task database function in a single
+     * round trip. Badge evaluation is handed to the BadgeAwardPipeline, so the
+     * response returns as soon as the completion has committed, and the new XP
+     * total and the XP gained in the quest are pushed to the leaderboards. Tasks
+     * are looked up in the content catalog, falling back to the database for a
+     * task the catalog does not have yet, before calling the function. With
+     * write-behind enabled the call is grouped with concurrent completions by
+     * the TaskCompletionBatcher and resolves when its batch commits. Runs on
+     * the user's mutation lane, so a user's completions never contend for the
+     * same rows, and a repeated completion of a task still queued is coalesced
+     * with it.
      *
      * @param userId The user completing the task
      * @param taskId The task to complete
      * @return Mono<UserTaskProgress> with completed status
      */
     public Mono<UserTaskProgress> completeTask(String userId, String taskId) {
-        return taskProgressRepo.findByUserIdAndTaskId(userId, taskId)
-                .switchIfEmpty(Mono.error(new IllegalStateException("Task not started")))
-                .flatMap(progress -> {
-                    if (progress.getId() == null) {
-                        return Mono.error(new IllegalStateException("Task progress has null id; recreate progress data"));
-                    }
-
-                    if (STATUS_COMPLETED.equals(progress.getStatus())) {
-                        return Mono.just(progress);
-                    }
-
-                    return taskRepo.findById(taskId)
-                            .switchIfEmpty(Mono.error(new IllegalStateException("Task not found")))
-                            .flatMap(task -> {
-                                int xpReward = task.getXpReward() == null ? 0 : task.getXpReward();
-
-                                progress.setStatus(STATUS_COMPLETED);
-                                progress.setGainedXp(xpReward);
-                                progress.setUpdatedAt(LocalDateTime.now());
-
-                                // Chain all side effects: save progress → update XP → update quest → award badges
-                                return taskProgressRepo.save(progress)
-                                        .flatMap(savedProgress ->
-                                                updateUserXp(userId, xpReward)
-                                                        .then(updateQuestProgressOnComplete(userId, task, xpReward))
-                                                        .then(awardDynamicTaskBadges(userId))
-                                                        .thenReturn(savedProgress)
-                                        );
-                            });
-                });
-    }
-
-    /**
-     * Updates quest progress when a task is completed.
-     * Accumulates XP for the quest and marks quest as COMPLETED if all tasks are done.
-     *
-     * @param userId The user ID
-     * @param task The completed task
-     * @param xpReward The XP gained from the task
-     * @return Mono<UserQuestProgress> with updated progress
-     */
-    private Mono<UserQuestProgress> updateQuestProgressOnComplete(String userId, Task task, int xpReward) {
-        String questId = task.getQuestId();
-        if (questId == null) {
-            return Mono.empty();
-        }
-
-        return questProgressRepo.findByUserIdAndQuestId(userId, questId)
-                .switchIfEmpty(Mono.defer(() -> {
-                    UserQuestProgress qp = new UserQuestProgress();
-                    qp.setUserId(userId);
-                    qp.setQuestId(questId);
-                    qp.setStatus(STATUS_IN_PROGRESS);
-                    qp.setGainedXp(xpReward);
-                    return questProgressRepo.save(qp);
-                }))
-                .flatMap(qp -> {
-                    int currentXp = qp.getGainedXp() == null ? 0 : qp.getGainedXp();
-                    qp.setGainedXp(currentXp + xpReward);
-
-                    // Check if all tasks in this quest are completed
-                    return isAllQuestTasksCompleted(userId, questId)
-                            .flatMap(allCompleted -> {
-                                if (allCompleted) {
-                                    qp.setStatus(STATUS_COMPLETED);
-                                    return questProgressRepo.save(qp)
-                                            .flatMap(saved -> awardQuestCompletionBadges(userId)
-                                                    .thenReturn(saved));
-                                } else {
-                                    return questProgressRepo.save(qp);
-                                }
-                            });
-                });
-    }
-
-    /**
-     * Checks if all tasks in a quest have been completed by the user.
-     *
-     * @param userId The user ID
-     * @param questId The quest ID
-     * @return Mono<Boolean> true if all tasks are completed
-     */
-    private Mono<Boolean> isAllQuestTasksCompleted(String userId, String questId) {
-        return taskRepo.findByQuestId(questId)
-                .flatMap(task -> taskProgressRepo.findByUserIdAndTaskId(userId, task.getId())
-                        .map(tp -> STATUS_COMPLETED.equals(tp.getStatus()))
-                        .defaultIfEmpty(false)
-                )
-                .collectList()
-                .map(results -> results.isEmpty() || results.stream().allMatch(b -> b));
-    }
-
-    /**
-     * Updates the total XP for a user by adding the earned XP.
-     *
-     * @param userId The user ID
-     * @param xpGain The amount of XP to add
-     * @return Mono<Void>
-     */
-    private Mono<Void> updateUserXp(String userId, Integer xpGain) {
-        return userRepo.findById(userId)
-                .flatMap(user -> {
-                    user.setTotalXp((user.getTotalXp() != null ? user.getTotalXp() : 0) + xpGain);
-                    return userRepo.save(user);
-                })
-                .then();
+        return contentCatalog.findTask(taskId)
+                .switchIfEmpty(Mono.error(new IllegalStateException("Task not found")))
+                .flatMap(task -> mutationLanes.submit(userId, "complete:" + taskId,
+                        () -> writeCompletion(userId, taskId, task.getQuestId())));
     }
 
     /**
-     * Awards task completion milestone badges based on the total number of completed tasks.
-     * Checks milestones: 1st, 5th, and 10th task completion.
-     *
-     * @param userId The user ID
-     * @return Mono<Void>
+     * Writes one completion and pushes it to the completion index, the
+     * leaderboards and the badge pipeline.
      */
-    private Mono<Void> awardDynamicTaskBadges(String userId) {
-        return taskProgressRepo.findByUserId(userId)
-                .filter(tp -> STATUS_COMPLETED.equals(tp.getStatus()))
-                .count()
-                .flatMap(count -> {
-                    java.util.List<Mono<Void>> badgeAwards = new java.util.ArrayList<>();
-
-                    // Award badge for first task completion
-                    if (count == MILESTONE_FIRST_TASK) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_FIRST_STEP)
-                                .onErrorResume(e -> Mono.empty())
-                                .then());
-                    }
-                    // Award badge for 5 tasks completed
-                    if (count == MILESTONE_FIVE_TASKS) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_TASK_WARRIOR)
-                                .onErrorResume(e -> Mono.empty())
-                                .then());
-                    }
-                    // Award badge for 10 tasks completed
-                    if (count == MILESTONE_TEN_TASKS) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_TASK_LEGEND)
-                                .onErrorResume(e -> Mono.empty())
-                                .then());
+    private Mono<UserTaskProgress> writeCompletion(String userId, String taskId, String questId) {
+        Mono<TaskCompletion> written = completionBatcher.isEnabled()
+                ? completionBatcher.submit(userId, taskId)
+                : taskProgressRepo.completeTask(userId, taskId);
+        return leaderboardService.trackQuestXp(questId, written
+                .onErrorMap(ProgressDomainService::translateProgressError)
+                .map(completion -> {
+                    completionIndex.record(userId, taskId, completion.getStatus());
+                    if (completion.completedNow()) {
+                        leaderboardService.recordXp(userId, completion.getTotalXp());
+                        leaderboardService.recordQuestXp(userId, completion.getQuestId(), completion.getGainedXp());
+                        if (completion.getOutboxId() != null) {
+                            badgeAwardPipeline.publish(completion.toBadgeAwardEvent());
+                        }
                     }
-
-                    if (badgeAwards.isEmpty()) {
-                        return Mono.empty();
-                    }
-
-                    return Mono.when(badgeAwards);
-                });
+                    return completion.toTaskProgress();
+                }));
     }
 
     /**
-     * Awards quest completion milestone badges based on the total number of completed quests.
-     * Checks milestones: 1st quest, 3 quests, and all quests (2 total).
+     * Maps the P0002 (no_data_found) errors raised by the progress functions
+     * back to the IllegalStateException the handlers report as 400.
      *
-     * @param userId The user ID
-     * @return Mono<Void>
+     * @param error The error raised by the repository call
+     * @return IllegalStateException for business errors, otherwise the original error
      */
-    private Mono<Void> awardQuestCompletionBadges(String userId) {
-        return questProgressRepo.findByUserId(userId)
-                .filter(qp -> STATUS_COMPLETED.equals(qp.getStatus()))
-                .count()
-                .flatMap(count -> {
-                    java.util.List<Mono<Void>> badgeAwards = new java.util.ArrayList<>();
-
-                    // Award badge for first quest completion
-                    if (count == MILESTONE_FIRST_QUEST) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_QUEST_STARTER)
-                                .onErrorResume(e -> Mono.empty())
-                                .then());
-                    }
-                    // Award badge for completing 3 quests
-                    if (count == MILESTONE_THREE_QUESTS) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_QUEST_EXPLORER)
-                                .onErrorResume(e -> Mono.empty())
-                                .then());
-                    }
-                    // Award badge for completing all quests
-                    if (count == MILESTONE_ALL_QUESTS) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_QUEST_GOD)
-                                .onErrorResume(e -> Mono.empty())
-                                .then());
-                    }
-
-                    if (badgeAwards.isEmpty()) {
-                        return Mono.empty();
-                    }
-
-                    return Mono.when(badgeAwards);
-                });
+    private static Throwable translateProgressError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof R2dbcException r2dbcException
+                    && SQLSTATE_NO_DATA_FOUND.equals(r2dbcException.getSqlState())) {
+                return new IllegalStateException(r2dbcException.getMessage());
+            }
+        }
+        return error;
     }
 
     /**
@@ -359,114 +186,116 @@ public class ProgressDomainService {
     }
 
     /**
-     * Retrieves all quest progress records for a user.
+     * Retrieves one keyset page of a user's quest progress records, ordered by quest ID.
      *
      * @param userId The user ID
-     * @return Flux<UserQuestProgress> of all quests the user has started
+     * @param afterQuestId The last quest ID of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<UserQuestProgress>> of quests the user has started
      */
-    public Flux<UserQuestProgress> getAllUserQuestProgress(String userId) {
-        return questProgressRepo.findByUserId(userId);
+    public Mono<KeysetPage<UserQuestProgress>> getAllUserQuestProgress(String userId, String afterQuestId, int limit) {
+        return questProgressRepo.findPageByUserId(userId, afterQuestId, limit + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, limit, UserQuestProgress::getQuestId));
     }
 
     /**
-     * Retrieves all task progress records for a user.
+     * Retrieves one keyset page of a user's task progress records, ordered by task ID.
      *
      * @param userId The user ID
-     * @return Flux<UserTaskProgress> of all tasks the user has interacted with
+     * @param afterTaskId The last task ID of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<UserTaskProgress>> of tasks the user has interacted with
      */
-    public Flux<UserTaskProgress> getAllUserTaskProgress(String userId) {
-        return taskProgressRepo.findByUserId(userId);
+    public Mono<KeysetPage<UserTaskProgress>> getAllUserTaskProgress(String userId, String afterTaskId, int limit) {
+        return taskProgressRepo.findPageByUserId(userId, afterTaskId, limit + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, limit, UserTaskProgress::getTaskId));
+    }
+
+    /**
+     * Retrieves one keyset page of a user's XP history from the append-only XP ledger,
+     * newest first.
+     *
+     * @param userId The user ID
+     * @param beforeId The last ledger entry ID of the previous page, or null for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<XpLedgerEntry>> of XP changes for the user
+     */
+    public Mono<KeysetPage<XpLedgerEntry>> getUserXpHistory(String userId, Long beforeId, int limit) {
+        return xpLedgerRepo.findPageByUserId(userId, beforeId == null ? Long.MAX_VALUE : beforeId, limit + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, limit, entry -> String.valueOf(entry.getId())));
     }
 
     /**
      * Provides a detailed view of a quest including all its tasks and their progress.
-     * Returns a hierarchical structure with quest progress and individual task statuses.
+     * The quest progress and the ordered tasks LEFT JOIN task progress are read
+     * in parallel, two queries regardless of the number of tasks.
      *
      * @param userId The user ID
      * @param questId The quest ID
-     * @return Mono<Map<String, Object>> with quest and task details
+     * @return Mono<QuestWithTasksView> with quest and task details, in task order
      */
-    public Mono<Map<String, Object>> getUserQuestWithTaskProgress(String userId, String questId) {
-        return questProgressRepo.findByUserIdAndQuestId(userId, questId)
-                .switchIfEmpty(Mono.error(new IllegalStateException("Quest not started")))
-                .flatMap(questProgress -> {
-                    // Get quest details
-                    return Mono.just(questProgress);
-                })
-                .flatMap(questProgress ->
-                        taskRepo.findByQuestId(questId)
-                                .flatMap(task -> taskProgressRepo.findByUserIdAndTaskId(userId, task.getId())
-                                        .map(taskProgress -> Map.of(
-                                                "taskId", task.getId(),
-                                                "taskTitle", task.getTitle(),
-                                                "status", taskProgress.getStatus(),
-                                                "gainedXp", taskProgress.getGainedXp()
-                                        ))
-                                        .switchIfEmpty(Mono.just(Map.of(
-                                                "taskId", task.getId(),
-                                                "taskTitle", task.getTitle(),
-                                                "status", STATUS_NOT_STARTED,
-                                                "gainedXp", 0
-                                        )))
-                                )
-                                .collectList()
-                                .map(taskList -> Map.of(
-                                        "questId", questId,
-                                        "questProgress", Map.of(
-                                                "status", questProgress.getStatus(),
-                                                "gainedXp", questProgress.getGainedXp()
-                                        ),
-                                        "tasks", taskList
-                                ))
-                );
+    public Mono<QuestWithTasksView> getUserQuestWithTaskProgress(String userId, String questId) {
+        return Mono.zip(
+                questProgressRepo.findByUserIdAndQuestId(userId, questId)
+                        .switchIfEmpty(Mono.error(new IllegalStateException("Quest not started"))),
+                taskProgressRepo.findQuestTaskProgress(userId, questId).collectList()
+        ).map(tuple -> new QuestWithTasksView(
+                questId,
+                new QuestWithTasksView.QuestProgressView(tuple.getT1().getStatus(), tuple.getT1().getGainedXp()),
+                tuple.getT2()
+        ));
     }
 
     /**
      * Retrieves comprehensive completion statistics for a user.
      * Includes task/quest counts, total XP, badges earned, and completion flags.
+     * The per-user figures come from one aggregate query over the user, the
+     * progress counters and the earned badges; catalog totals come from the
+     * content catalog.
      *
      * @param userId The user ID
      * @return Mono<Map<String, Object>> with user completion statistics
      */
     public Mono<Map<String, Object>> getUserCompletionStatus(String userId) {
-        return Mono.zip(
-                taskProgressRepo.findByUserId(userId)
-                        .filter(tp -> STATUS_COMPLETED.equals(tp.getStatus()))
-                        .count(),
-                questProgressRepo.findByUserId(userId)
-                        .filter(qp -> STATUS_COMPLETED.equals(qp.getStatus()))
-                        .count(),
-                userRepo.findById(userId),
-                badgeService.getUserBadges(userId).count()
-        ).flatMap(tuple -> {
-            long completedTasks = tuple.getT1();
-            long completedQuests = tuple.getT2();
-            User user = tuple.getT3();
-            long badgesEarned = tuple.getT4();
-
-            return taskRepo.findAll().count()
-                    .flatMap(totalTasks ->
-                            questRepo.findAll().count()
-                                    .map(totalQuests -> {
-                                        boolean isAllTasksCompleted = completedTasks == totalTasks && totalTasks > 0;
-                                        boolean isAllQuestsCompleted = completedQuests == totalQuests && totalQuests > 0;
-
-                                        Map<String, Object> status = new java.util.HashMap<>();
-                                        status.put("userId", userId);
-                                        status.put("totalXp", user.getTotalXp());
-                                        status.put("tasksCompleted", completedTasks);
-                                        status.put("tasksTotal", totalTasks);
-                                        status.put("questsCompleted", completedQuests);
-                                        status.put("questsTotal", totalQuests);
-                                        status.put("badgesEarned", badgesEarned);
-                                        status.put("allTasksCompleted", isAllTasksCompleted);
-                                        status.put("allQuestsCompleted", isAllQuestsCompleted);
-                                        status.put("isFullyCompleted", isAllTasksCompleted && isAllQuestsCompleted);
+        return userRepo.findCompletionAggregate(userId)
+                .map(aggregate -> {
+                    long completedTasks = aggregate.getCompletedTasks();
+                    long completedQuests = aggregate.getCompletedQuests();
+                    long totalTasks = contentCatalog.getTaskCount();
+                    long totalQuests = contentCatalog.getQuestCount();
+                    boolean isAllTasksCompleted = completedTasks == totalTasks && totalTasks > 0;
+                    boolean isAllQuestsCompleted = completedQuests == totalQuests && totalQuests > 0;
+
+                    Map<String, Object> status = new java.util.HashMap<>();
+                    status.put("userId", userId);
+                    status.put("totalXp", aggregate.getTotalXp());
+                    status.put("tasksCompleted", completedTasks);
+                    status.put("tasksTotal", totalTasks);
+                    status.put("questsCompleted", completedQuests);
+                    status.put("questsTotal", totalQuests);
+                    status.put("badgesEarned", aggregate.getBadgesEarned());
+                    status.put("allTasksCompleted", isAllTasksCompleted);
+                    status.put("allQuestsCompleted", isAllQuestsCompleted);
+                    status.put("isFullyCompleted", isAllTasksCompleted && isAllQuestsCompleted);
+
+                    return status;
+                });
+    }
 
-                                        return status;
-                                    })
-                    );
-        });
+    /**
+     * Computes a user's completion of every topic: completed tasks and quests
+     * against the topic's totals and the percentage of its tasks completed.
+     * Answered from the user's completion bitmaps, without reading progress rows
+     * once the user's bitmaps are cached.
+     *
+     * @param userId The user ID
+     * @return Mono<List<TopicCompletion>> in topic ID order
+     */
+    public Mono<List<TopicCompletion>> getUserTopicCompletion(String userId) {
+        return completionIndex.getTopicCompletion(userId);
     }
 
     /**
@@ -480,26 +309,20 @@ public class ProgressDomainService {
     public Mono<Void> awardMasteryBadges(String userId) {
         return getUserCompletionStatus(userId)
                 .flatMap(status -> {
-                    java.util.List<Mono<Void>> badgeAwards = new java.util.ArrayList<>();
+                    java.util.List<String> badgeIds = new java.util.ArrayList<>();
 
                     // Award ultimate mastery badge for completing everything
                     if ((boolean) status.get("isFullyCompleted")) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_LEGEND_MASTER)
-                                .onErrorResume(e -> Mono.empty())
-                                .then()); // Legend Master
+                        badgeIds.add(BADGE_LEGEND_MASTER); // Legend Master
                     }
                     // Award quest mastery badge
-                    if ((boolean) status.get("allQuestsCompleted") && !badgeAwards.isEmpty()) {
-                        badgeAwards.add(badgeService.awardBadgeToUser(userId, BADGE_JAVA_MASTER)
-                                .onErrorResume(e -> Mono.empty())
-                                .then()); // Java Master
-                    }
-
-                    if (badgeAwards.isEmpty()) {
-                        return Mono.empty();
+                    if ((boolean) status.get("allQuestsCompleted") && !badgeIds.isEmpty()) {
+                        badgeIds.add(BADGE_JAVA_MASTER); // Java Master
                     }
 
-                    return Mono.when(badgeAwards);
+                    return badgeService.awardBadgesToUser(userId, badgeIds)
+                            .onErrorResume(e -> Mono.empty())
+                            .then();
                 });
     }
 }
@@ -1,5 +1,6 @@
 package com.project.project_portal.service;
 
+import com.project.project_portal.dto.KeysetPage;
 import com.project.project_portal.dto.Quest;
 import com.project.project_portal.repo.QuestRepository;
 import org.springframework.stereotype.Service;
@@ -13,23 +14,29 @@ import reactor.core.publisher.Mono;
  *
  * A quest is a collection of tasks grouped by learning objective.
  * Quests serve as intermediate organizational units between Topics and Tasks.
+ *
+ * Reads are served from the ContentCatalog; mutations reload it.
  */
 @Service
 public class QuestService {
 
     private final QuestRepository repository;
+    private final ContentCatalog contentCatalog;
 
-    public QuestService(QuestRepository repository) {
+    public QuestService(QuestRepository repository, ContentCatalog contentCatalog) {
         this.repository = repository;
+        this.contentCatalog = contentCatalog;
     }
 
     /**
-     * Retrieves all quests in the system.
+     * Retrieves one keyset page of quests ordered by ID.
      *
-     * @return Flux<Quest> of all quests
+     * @param afterId The last quest ID of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<Quest>> of requested page
      */
-    public Flux<Quest> getAllQuests() {
-        return repository.findAll();
+    public Mono<KeysetPage<Quest>> getAllQuests(String afterId, int limit) {
+        return Mono.fromSupplier(() -> KeysetPage.of(contentCatalog.getQuestsAfter(afterId, limit + 1), limit, Quest::getId));
     }
 
     /**
@@ -39,7 +46,7 @@ public class QuestService {
      * @return Mono<Quest> or empty if not found
      */
     public Mono<Quest> getQuestById(String id) {
-        return repository.findById(id);
+        return Mono.justOrEmpty(contentCatalog.getQuest(id));
     }
 
     /**
@@ -49,7 +56,7 @@ public class QuestService {
      * @return Flux<Quest> ordered by orderIndex
      */
     public Flux<Quest> getQuestsByTopicId(String topicId) {
-        return repository.findByTopicIdOrderByOrderIndexAsc(topicId);
+        return Flux.fromIterable(contentCatalog.getQuestsByTopic(topicId));
     }
 
     /**
@@ -59,7 +66,8 @@ public class QuestService {
      * @return Mono<Quest> with persisted data
      */
     public Mono<Quest> createQuest(Quest quest) {
-        return repository.save(quest);
+        return repository.save(quest)
+                .flatMap(saved -> contentCatalog.reloadAfterCommit().thenReturn(saved));
     }
 
     /**
@@ -78,7 +86,8 @@ public class QuestService {
                     existing.setTopicId(quest.getTopicId());
                     existing.setOrderIndex(quest.getOrderIndex());
                     return repository.save(existing);
-                });
+                })
+                .flatMap(saved -> contentCatalog.reloadAfterCommit().thenReturn(saved));
     }
 
     /**
@@ -89,6 +98,7 @@ public class QuestService {
      * @return Mono<Void>
      */
     public Mono<Void> deleteQuest(String id) {
-        return repository.deleteById(id);
+        return repository.deleteById(id)
+                .then(contentCatalog.reloadAfterCommit());
     }
 }
\ No newline at end of file
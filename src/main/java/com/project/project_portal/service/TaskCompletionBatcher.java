@@ -0,0 +1,206 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.BatchedTaskCompletion;
+import com.project.project_portal.dto.TaskCompletion;
+import com.project.project_portal.repo.UserTaskProgressRepository;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TaskCompletionBatcher groups task completions from concurrent requests into
+ * micro-batches written with one complete_tasks call, so completion throughput
+ * grows with the batch size instead of with the number of pool connections.
+ *
+ * Completions are queued as they arrive and flushed when a batch is full or
+ * its oldest entry has waited batch-max-wait; batches are only formed as fast
+ * as they are written, so completions wait in the queue while a flush runs.
+ * The batch statement validates each pair on its own: a pair that cannot be
+ * completed reports its error to its own caller only, while a batch statement
+ * that fails errors every caller in it. Callers are resolved only
+ * after the batch statement has finished, i.e. once their completion has
+ * committed.
+ *
+ * If the batch writer itself fails, the callers whose completions it had taken
+ * off the queue are failed and the writer resubscribes to the queue. A caller
+ * that is not resolved within result-timeout gets a timeout error; its
+ * completion may still commit, and completing a task again is harmless.
+ *
+ * Batching is off unless progress.write-behind.enabled is set. When the queue
+ * is full a completion is written directly instead of waiting for room.
+ */
+@Component
+public class TaskCompletionBatcher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskCompletionBatcher.class);
+
+    private final UserTaskProgressRepository taskProgressRepository;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration batchMaxWait;
+    private final Duration resultTimeout;
+
+    private final Sinks.Many<PendingCompletion> sink;
+    private final Set<PendingCompletion> unresolved = ConcurrentHashMap.newKeySet();
+    private Disposable subscription;
+
+    public TaskCompletionBatcher(UserTaskProgressRepository taskProgressRepository,
+                                 @Value("${progress.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${progress.write-behind.queue-capacity:4096}") int queueCapacity,
+                                 @Value("${progress.write-behind.batch-size:64}") int batchSize,
+                                 @Value("${progress.write-behind.batch-max-wait:10ms}") Duration batchMaxWait,
+                                 @Value("${progress.write-behind.result-timeout:5s}") Duration resultTimeout) {
+        this.taskProgressRepository = taskProgressRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.batchMaxWait = batchMaxWait;
+        this.resultTimeout = resultTimeout;
+        // Multicast without auto-cancel keeps the queue alive when the writer resubscribes
+        this.sink = Sinks.many().multicast().onBackpressureBuffer(queueCapacity, false);
+    }
+
+    /**
+     * Starts the batch writer once the application is ready, if batching is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            subscription = sink.asFlux()
+                    .doOnNext(pending -> pending.taken = true)
+                    .bufferTimeout(batchSize, batchMaxWait, true)
+                    .concatMap(this::flush)
+                    .doOnError(e -> {
+                        logger.error("Completion batch writer failed, resubscribing", e);
+                        unresolved.stream().filter(pending -> pending.taken).forEach(pending -> pending.fail(e));
+                    })
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+                            .maxBackoff(Duration.ofSeconds(5))
+                            .transientErrors(true))
+                    .subscribe();
+        }
+    }
+
+    /**
+     * @return true when completions should be submitted here rather than written directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a task completion for the next batch.
+     *
+     * @param userId The user completing the task
+     * @param taskId The task to complete
+     * @return Mono<TaskCompletion> resolving once the batch holding the completion has committed
+     */
+    public Mono<TaskCompletion> submit(String userId, String taskId) {
+        return Mono.defer(() -> {
+            PendingCompletion pending = new PendingCompletion(userId, taskId);
+            unresolved.add(pending);
+            Sinks.EmitResult result;
+            do {
+                result = sink.tryEmitNext(pending);
+            } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+
+            if (result.isFailure()) {
+                unresolved.remove(pending);
+                logger.debug("Completion queue rejected {}/{} ({}); writing it directly", userId, taskId, result);
+                return taskProgressRepository.completeTask(userId, taskId);
+            }
+            return pending.result.asMono()
+                    .timeout(resultTimeout)
+                    .doOnError(e -> unresolved.remove(pending));
+        });
+    }
+
+    /**
+     * Stops the batch writer and fails every completion that is still queued or being written.
+     */
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        IllegalStateException shutdown = new IllegalStateException("Completion batcher is shutting down");
+        unresolved.forEach(pending -> pending.fail(shutdown));
+    }
+
+    /**
+     * Writes one batch and resolves each caller with its own row once the statement has finished.
+     * Never errors: a failed batch fails its callers.
+     *
+     * @param batch The queued completions, in arrival order
+     * @return Mono<Void> completing when every caller in the batch is resolved
+     */
+    private Mono<Void> flush(List<PendingCompletion> batch) {
+        return Mono.defer(() -> {
+            String[] userIds = new String[batch.size()];
+            String[] taskIds = new String[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                userIds[i] = batch.get(i).userId;
+                taskIds[i] = batch.get(i).taskId;
+            }
+            return taskProgressRepository.completeTasks(userIds, taskIds).collectList();
+        })
+                .doOnNext(rows -> {
+                    for (BatchedTaskCompletion row : rows) {
+                        PendingCompletion pending = batch.get(row.getOrd() - 1);
+                        if (row.failed()) {
+                            pending.fail(new R2dbcNonTransientResourceException(row.getErrorMessage(), row.getErrorState()));
+                        } else {
+                            pending.complete(row);
+                        }
+                    }
+                    IllegalStateException missing = new IllegalStateException("Task completion returned no result");
+                    batch.forEach(pending -> pending.fail(missing));
+                })
+                .then()
+                .onErrorResume(e -> {
+                    logger.warn("Completion batch of {} failed: {}", batch.size(), e.getMessage());
+                    batch.forEach(pending -> pending.fail(e));
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * One queued completion and the sink its caller is waiting on.
+     */
+    private final class PendingCompletion {
+
+        private final String userId;
+        private final String taskId;
+        private final Sinks.One<TaskCompletion> result = Sinks.one();
+        private volatile boolean taken;
+
+        private PendingCompletion(String userId, String taskId) {
+            this.userId = userId;
+            this.taskId = taskId;
+        }
+
+        private void complete(TaskCompletion completion) {
+            unresolved.remove(this);
+            result.tryEmitValue(completion);
+        }
+
+        private void fail(Throwable error) {
+            unresolved.remove(this);
+            result.tryEmitError(error);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.project.project_portal.service;
 
+import com.project.project_portal.dto.KeysetPage;
 import com.project.project_portal.dto.Task;
 import com.project.project_portal.repo.TaskRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -13,23 +15,33 @@ import reactor.core.publisher.Mono;
  *
  * A task is the smallest learning unit that users can complete.
  * Tasks are associated with quests and carry XP rewards.
+ *
+ * The cached quests.task_count, which the complete_task function uses to
+ * detect quest completion, and the users' per-quest completion counts are
+ * kept in step by database triggers on the task rows (see V27). Reads are
+ * served from the ContentCatalog, which is reloaded once a mutation has
+ * committed.
  */
 @Service
 public class TaskService {
 
     private final TaskRepository repository;
+    private final ContentCatalog contentCatalog;
 
-    public TaskService(TaskRepository repository) {
+    public TaskService(TaskRepository repository, ContentCatalog contentCatalog) {
         this.repository = repository;
+        this.contentCatalog = contentCatalog;
     }
 
     /**
-     * Retrieves all tasks in the system.
+     * Retrieves one keyset page of tasks ordered by ID.
      *
-     * @return Flux<Task> of all tasks
+     * @param afterId The last task ID of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<Task>> of requested page
      */
-    public Flux<Task> getAllTasks() {
-        return repository.findAll();
+    public Mono<KeysetPage<Task>> getAllTasks(String afterId, int limit) {
+        return Mono.fromSupplier(() -> KeysetPage.of(contentCatalog.getTasksAfter(afterId, limit + 1), limit, Task::getId));
     }
 
     /**
@@ -39,7 +51,7 @@ public class TaskService {
      * @return Mono<Task> or empty if not found
      */
     public Mono<Task> getTaskById(String id) {
-        return repository.findById(id);
+        return contentCatalog.findTask(id);
     }
 
     /**
@@ -49,7 +61,7 @@ public class TaskService {
      * @return Flux<Task> ordered by orderIndex
      */
     public Flux<Task> getTasksByQuestId(String questId) {
-        return repository.findByQuestIdOrderByOrderIndexAsc(questId);
+        return Flux.fromIterable(contentCatalog.getTasksByQuest(questId));
     }
 
     /**
@@ -58,18 +70,23 @@ public class TaskService {
      * @param task The task to create
      * @return Mono<Task> with persisted data
      */
+    @Transactional
     public Mono<Task> createTask(Task task) {
-        return repository.save(task);
+        return repository.save(task)
+                .flatMap(saved -> contentCatalog.reloadAfterCommit().thenReturn(saved));
     }
 
     /**
      * Updates an existing task.
      * Merges updated fields with existing task data.
+     * Moving a task to another quest moves it, and the users' completions of
+     * it, between the quests' counts.
      *
      * @param id The task ID to update
      * @param task The updated task data
      * @return Mono<Task> with merged data or empty if task not found
      */
+    @Transactional
     public Mono<Task> updateTask(String id, Task task) {
         return repository.findById(id)
                 .flatMap(existing -> {
@@ -79,16 +96,20 @@ public class TaskService {
                     existing.setXpReward(task.getXpReward());
                     existing.setOrderIndex(task.getOrderIndex());
                     return repository.save(existing);
-                });
+                })
+                .flatMap(saved -> contentCatalog.reloadAfterCommit().thenReturn(saved));
     }
 
     /**
-     * Deletes a task.
+     * Deletes a task together with the users' progress on it.
      *
      * @param id The task ID to delete
      * @return Mono<Void>
      */
+    @Transactional
     public Mono<Void> deleteTask(String id) {
-        return repository.deleteById(id);
+        return repository.findById(id)
+                .flatMap(repository::delete)
+                .then(contentCatalog.reloadAfterCommit());
     }
 }
\ No newline at end of file
@@ -1,19 +1,15 @@
 package com.project.project_portal.service;
 
-import com.project.project_portal.dto.Quest;
-import com.project.project_portal.dto.Task;
+import com.project.project_portal.dto.KeysetPage;
 import com.project.project_portal.dto.Topic;
+import com.project.project_portal.dto.TopicTreeRow;
 import com.project.project_portal.dto.TopicTreeView;
-import com.project.project_portal.repo.QuestRepository;
-import com.project.project_portal.repo.TaskRepository;
 import com.project.project_portal.repo.TopicRepository;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * TopicService handles topic management and content organization including:
@@ -28,30 +24,23 @@ import java.util.Comparator;
 public class TopicService {
 
     private final TopicRepository topicRepository;
-    private final QuestRepository questRepository;
-    private final TaskRepository taskRepository;
+    private final ContentCatalog contentCatalog;
 
-    public TopicService(TopicRepository topicRepository,
-                        QuestRepository questRepository,
-                        TaskRepository taskRepository) {
+    public TopicService(TopicRepository topicRepository, ContentCatalog contentCatalog) {
         this.topicRepository = topicRepository;
-        this.questRepository = questRepository;
-        this.taskRepository = taskRepository;
+        this.contentCatalog = contentCatalog;
     }
 
     /**
-     * Retrieves all topics with pagination support.
+     * Retrieves one keyset page of topics ordered by ID.
+     * Served from the in-memory content catalog.
      *
-     * @param page The page number (0-indexed)
-     * @param size The number of items per page
-     * @return Flux<Topic> of requested page
+     * @param afterId The last topic ID of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<Topic>> of requested page
      */
-    public Flux<Topic> getAllTopics(int page, int size) {
-        // Note: Pageable parameter is calculated but R2DBC reactive streams handle pagination differently
-        // Using skip() and take() for reactive pagination
-        return topicRepository.findAll()
-                .skip((long) page * size)
-                .take(size);
+    public Mono<KeysetPage<Topic>> getAllTopics(String afterId, int limit) {
+        return Mono.fromSupplier(() -> KeysetPage.of(contentCatalog.getTopicsAfter(afterId, limit + 1), limit, Topic::getId));
     }
 
     /**
@@ -61,47 +50,67 @@ public class TopicService {
      * @return Mono<Topic> or empty if not found
      */
     public Mono<Topic> getTopicById(String id) {
-        return topicRepository.findById(id);
+        return Mono.justOrEmpty(contentCatalog.getTopic(id));
     }
 
     /**
      * Builds a complete hierarchical view of a topic including all its quests and tasks.
      * Provides a tree structure suitable for displaying the learning path.
+     * Trees are prebuilt with each content catalog snapshot. A topic the
+     * catalog does not have yet is read with a single ordered quests/tasks join,
+     * grouped in one streaming pass, and triggers a catalog reload if it exists.
      *
      * @param topicId The topic ID
      * @return Mono<TopicTreeView> with full hierarchy or empty if topic not found
      */
     public Mono<TopicTreeView> getTopicTree(String topicId) {
-        return topicRepository.findById(topicId)
-                .flatMap(topic ->
-                        questRepository.findByTopicIdOrderByOrderIndexAsc(topicId)
-                                .flatMap(quest ->
-                                        taskRepository.findByQuestIdOrderByOrderIndexAsc(quest.getId())
-                                                .map(task -> new TopicTreeView.TaskView(
-                                                        task.getId(),
-                                                        task.getTitle(),
-                                                        task.getDescription(),
-                                                        task.getOrderIndex(),
-                                                        task.getXpReward()
-                                                ))
-                                                .collectList()
-                                                .map(taskViews -> new TopicTreeView.QuestView(
-                                                        quest.getId(),
-                                                        quest.getName(),
-                                                        quest.getDescription(),
-                                                        quest.getOrderIndex(),
-                                                        taskViews
-                                                ))
-                                )
-                                .sort(Comparator.comparingInt(TopicTreeView.QuestView::getOrderIndex))
-                                .collectList()
-                                .map(questViews -> new TopicTreeView(
-                                        topic.getId(),
-                                        topic.getName(),
-                                        topic.getDescription(),
-                                        questViews
-                                ))
-                );
+        return Mono.defer(() -> {
+            TopicTreeView cached = contentCatalog.getTopicTree(topicId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return Mono.zip(
+                    topicRepository.findById(topicId),
+                    topicRepository.findTreeRows(topicId)
+                            .bufferUntilChanged(TopicTreeRow::getQuestId)
+                            .map(TopicService::toQuestView)
+                            .collectList()
+            ).map(tuple -> new TopicTreeView(
+                    tuple.getT1().getId(),
+                    tuple.getT1().getName(),
+                    tuple.getT1().getDescription(),
+                    tuple.getT2()
+            )).doOnNext(tree -> contentCatalog.requestReload());
+        });
+    }
+
+    /**
+     * Builds a quest view from the consecutive join rows of one quest.
+     *
+     * @param rows The rows of a single quest, in task order
+     * @return QuestView with its tasks
+     */
+    private static TopicTreeView.QuestView toQuestView(List<TopicTreeRow> rows) {
+        TopicTreeRow quest = rows.get(0);
+        List<TopicTreeView.TaskView> taskViews = new ArrayList<>(rows.size());
+        for (TopicTreeRow row : rows) {
+            if (row.getTaskId() != null) {
+                taskViews.add(new TopicTreeView.TaskView(
+                        row.getTaskId(),
+                        row.getTaskTitle(),
+                        row.getTaskDescription(),
+                        row.getTaskOrderIndex(),
+                        row.getTaskXpReward()
+                ));
+            }
+        }
+        return new TopicTreeView.QuestView(
+                quest.getQuestId(),
+                quest.getQuestName(),
+                quest.getQuestDescription(),
+                quest.getQuestOrderIndex(),
+                taskViews
+        );
     }
 
     /**
@@ -111,7 +120,8 @@ public class TopicService {
      * @return Mono<Topic> with persisted data
      */
     public Mono<Topic> createTopic(Topic topic) {
-        return topicRepository.save(topic);
+        return topicRepository.save(topic)
+                .flatMap(saved -> contentCatalog.reloadAfterCommit().thenReturn(saved));
     }
 
     /**
@@ -128,7 +138,8 @@ public class TopicService {
                     existing.setName(topic.getName());
                     existing.setDescription(topic.getDescription());
                     return topicRepository.save(existing);
-                });
+                })
+                .flatMap(saved -> contentCatalog.reloadAfterCommit().thenReturn(saved));
     }
 
     /**
@@ -139,6 +150,7 @@ public class TopicService {
      * @return Mono<Void>
      */
     public Mono<Void> deleteTopic(String id) {
-        return topicRepository.deleteById(id);
+        return topicRepository.deleteById(id)
+                .then(contentCatalog.reloadAfterCommit());
     }
 }
\ No newline at end of file
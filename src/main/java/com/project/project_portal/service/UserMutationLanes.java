@@ -0,0 +1,154 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.exception.MutationRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * UserMutationLanes runs progress mutations one at a time per user.
+ *
+ * Users are striped over a fixed number of lanes by the hash of their ID. Each
+ * lane is a queue with a single consumer that runs its mutations in arrival
+ * order, one after the other, so two mutations of the same user never hold or
+ * wait for the same progress rows at the same time. Users on different lanes
+ * proceed in parallel.
+ *
+ * Striping trades isolation for a fixed footprint: users that share a lane
+ * wait for each other's mutations even though they touch different rows. With
+ * k users writing at the same moment, each of them shares its lane with about
+ * k / progress.lanes.count others, so the count should be a few times the
+ * number of users expected to write concurrently. An idle lane costs only a
+ * queue and a subscriber; lanes beyond that mostly wait on the connection
+ * pool, which bounds the writes that actually run in parallel.
+ *
+ * Mutations are coalesced: a mutation submitted while an identical one (same
+ * user and key) is queued or running shares that mutation's result instead of
+ * running again.
+ *
+ * A mutation that has not finished within progress.lanes.mutation-timeout is
+ * failed for its callers and its lane moves on, so one stuck write cannot hold
+ * up every user on the lane.
+ *
+ * With progress.lanes.count set to 0 mutations run directly. When a lane's
+ * queue is full a new mutation is rejected with MutationRejectedException
+ * rather than run outside the lane, which would overtake the user's queued
+ * mutations; the caller is expected to retry later.
+ */
+@Component
+public class UserMutationLanes implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserMutationLanes.class);
+
+    private final List<Sinks.Many<Mutation<?>>> lanes = new ArrayList<>();
+    private final Map<String, Mutation<?>> pending = new ConcurrentHashMap<>();
+    private final Disposable.Composite consumers = Disposables.composite();
+    private final Duration mutationTimeout;
+
+    public UserMutationLanes(@Value("${progress.lanes.count:256}") int laneCount,
+                             @Value("${progress.lanes.queue-capacity:256}") int queueCapacity,
+                             @Value("${progress.lanes.mutation-timeout:10s}") Duration mutationTimeout) {
+        this.mutationTimeout = mutationTimeout;
+        for (int i = 0; i < laneCount; i++) {
+            Sinks.Many<Mutation<?>> lane = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(queueCapacity));
+            consumers.add(lane.asFlux()
+                    .concatMap(Mutation::run)
+                    .subscribe());
+            lanes.add(lane);
+        }
+    }
+
+    /**
+     * Queues a mutation on the user's lane.
+     *
+     * @param userId The user whose progress the mutation changes
+     * @param key Identifies the mutation within the user's mutations, e.g. "complete:" + taskId
+     * @param mutation Starts the mutation; called when the mutation reaches the head of the lane
+     * @return Mono<T> with the mutation's result, shared with identical mutations queued alongside it;
+     *         errors with MutationRejectedException if the user's lane is full
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> submit(String userId, String key, Supplier<Mono<T>> mutation) {
+        if (lanes.isEmpty()) {
+            return Mono.defer(mutation);
+        }
+        return Mono.defer(() -> {
+            String pendingKey = userId + "/" + key;
+            Mutation<T> created = new Mutation<>(pendingKey, mutation);
+            Mutation<T> existing = (Mutation<T>) pending.putIfAbsent(pendingKey, created);
+            if (existing != null) {
+                return existing.result.asMono();
+            }
+
+            Sinks.Many<Mutation<?>> lane = lanes.get(Math.floorMod(userId.hashCode(), lanes.size()));
+            Sinks.EmitResult result;
+            do {
+                result = lane.tryEmitNext(created);
+            } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+
+            if (result.isFailure()) {
+                logger.debug("Lane rejected mutation {} ({})", pendingKey, result);
+                pending.remove(pendingKey, created);
+                created.result.tryEmitError(new MutationRejectedException("Too many pending progress updates, retry later"));
+            }
+            return created.result.asMono();
+        });
+    }
+
+    @Override
+    public void destroy() {
+        consumers.dispose();
+    }
+
+    /**
+     * A queued mutation and the sink its callers are waiting on.
+     */
+    private final class Mutation<T> {
+
+        private final String key;
+        private final Supplier<Mono<T>> mutation;
+        private final Sinks.One<T> result = Sinks.one();
+
+        private Mutation(String key, Supplier<Mono<T>> mutation) {
+            this.key = key;
+            this.mutation = mutation;
+        }
+
+        /**
+         * Runs the mutation and hands its outcome to the callers; never errors,
+         * so a failed or timed out mutation does not stop its lane.
+         */
+        private Mono<Void> run() {
+            return Mono.defer(mutation)
+                    .timeout(mutationTimeout)
+                    .doOnSuccess(value -> {
+                        pending.remove(key, this);
+                        if (value == null) {
+                            result.tryEmitEmpty();
+                        } else {
+                            result.tryEmitValue(value);
+                        }
+                    })
+                    .doOnError(e -> {
+                        pending.remove(key, this);
+                        result.tryEmitError(e);
+                    })
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }
+    }
+}
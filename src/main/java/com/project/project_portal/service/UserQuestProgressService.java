@@ -3,7 +3,6 @@ package com.project.project_portal.service;
 import com.project.project_portal.dto.UserQuestProgress;
 import com.project.project_portal.repo.UserQuestProgressRepository;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -16,10 +15,14 @@ import reactor.core.publisher.Mono;
 @Service
 public class UserQuestProgressService {
 
+    private static final String ENTITY = "user_quest_progress";
+
     private final UserQuestProgressRepository repository;
+    private final OptimisticWrites optimisticWrites;
 
-    public UserQuestProgressService(UserQuestProgressRepository repository) {
+    public UserQuestProgressService(UserQuestProgressRepository repository, OptimisticWrites optimisticWrites) {
         this.repository = repository;
+        this.optimisticWrites = optimisticWrites;
     }
 
     /**
@@ -33,32 +36,34 @@ public class UserQuestProgressService {
         return repository.findByUserIdAndQuestId(userId, questId);
     }
 
-    /**
-     * Retrieves all quest progress records for a user.
-     *
-     * @param userId The user ID
-     * @return Flux<UserQuestProgress> of all quests the user has started
-     */
-    public Flux<UserQuestProgress> getByUser(String userId) {
-        return repository.findByUserId(userId);
-    }
-
     /**
      * Saves or updates a quest progress record.
+     * An update carrying a version only applies if the record still has that
+     * version; one without a version overwrites the current record.
      *
      * @param progress The quest progress to save
-     * @return Mono<UserQuestProgress> with persisted data
+     * @return Mono<UserQuestProgress> with persisted data, or OptimisticLockingFailureException on a stale version
      */
     public Mono<UserQuestProgress> save(UserQuestProgress progress) {
-        return repository.save(progress);
+        if (progress.getId() == null || progress.getVersion() != null) {
+            return optimisticWrites.once(ENTITY, () -> repository.save(progress));
+        }
+        return optimisticWrites.withRetry(ENTITY, () -> repository.findById(progress.getId())
+                .map(current -> {
+                    progress.setVersion(current.getVersion());
+                    return progress;
+                })
+                .defaultIfEmpty(progress)
+                .flatMap(repository::save));
     }
 
     /**
      * Updates quest progress for a user.
-     * Merges new progress data with existing record.
+     * Merges new progress data with existing record, re-reading and merging
+     * again if the record changed in between.
      *
      * CAUTION: Direct update bypasses game logic in ProgressDomainService.
-     * Use ProgressDomainService.updateQuestProgressOnComplete() for game flow updates.
+     * Use ProgressDomainService.completeTask() for game flow updates.
      *
      * @param userId The user ID
      * @param questId The quest ID
@@ -66,11 +71,11 @@ public class UserQuestProgressService {
      * @return Mono<UserQuestProgress> or empty if record not found
      */
     public Mono<UserQuestProgress> updateProgress(String userId, String questId, UserQuestProgress progress) {
-        return repository.findByUserIdAndQuestId(userId, questId)
+        return optimisticWrites.withRetry(ENTITY, () -> repository.findByUserIdAndQuestId(userId, questId)
                 .flatMap(existing -> {
                     existing.setStatus(progress.getStatus());
                     existing.setGainedXp(progress.getGainedXp());
                     return repository.save(existing);
-                });
+                }));
     }
 }
\ No newline at end of file
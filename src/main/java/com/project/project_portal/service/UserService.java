@@ -1,11 +1,15 @@
 package com.project.project_portal.service;
 
+import com.project.project_portal.dto.KeysetPage;
 import com.project.project_portal.dto.User;
 import com.project.project_portal.repo.UserRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
+import java.util.function.Supplier;
+
 /**
  * UserService handles user management operations including:
  * - Retrieving users (by ID or email)
@@ -18,19 +22,37 @@ import reactor.core.publisher.Mono;
 @Service
 public class UserService {
 
+    private static final String ENTITY = "users";
+
     private final UserRepository repository;
+    private final LeaderboardService leaderboardService;
+    private final CompletionIndex completionIndex;
+    private final OptimisticWrites optimisticWrites;
+    private final TransactionalOperator transactionalOperator;
 
-    public UserService(UserRepository repository) {
+    public UserService(UserRepository repository,
+                       LeaderboardService leaderboardService,
+                       CompletionIndex completionIndex,
+                       OptimisticWrites optimisticWrites,
+                       TransactionalOperator transactionalOperator) {
         this.repository = repository;
+        this.leaderboardService = leaderboardService;
+        this.completionIndex = completionIndex;
+        this.optimisticWrites = optimisticWrites;
+        this.transactionalOperator = transactionalOperator;
     }
 
     /**
-     * Retrieves all users from the system.
+     * Retrieves one keyset page of users ordered by ID.
      *
-     * @return Flux<User> of all users
+     * @param afterId The last user ID of the previous page, "" for the first page
+     * @param limit The number of items per page
+     * @return Mono<KeysetPage<User>> of requested page
      */
-    public Flux<User> getAllUsers() {
-        return repository.findAll();
+    public Mono<KeysetPage<User>> getAllUsers(String afterId, int limit) {
+        return repository.findPageAfter(afterId, limit + 1)
+                .collectList()
+                .map(rows -> KeysetPage.of(rows, limit, User::getId));
     }
 
     /**
@@ -60,25 +82,50 @@ public class UserService {
      * @return Mono<User> with persisted data
      */
     public Mono<User> createUser(User user) {
-        return repository.save(user);
+        return repository.save(user)
+                .doOnNext(saved -> leaderboardService.recordXp(saved.getId(), saved.getTotalXp()));
     }
 
     /**
      * Updates an existing user's information.
-     * Merges updated fields with existing user data.
+     * Profile fields are written directly; a changed totalXp is applied as an
+     * atomic, ledger-recorded XP adjustment so concurrent completions are not lost.
+     * The profile write is conditional on the version sent with the user, or
+     * else on the version read here, in which case a concurrent change causes
+     * the update to be re-read and retried. Each attempt runs in its own
+     * transaction, so a retry starts from a fresh read and no transaction is
+     * held open during the backoff.
+     * The resulting XP total is pushed to the leaderboard.
      *
      * @param id The user ID to update
      * @param user The updated user data
      * @return Mono<User> with merged data or empty if user not found
      */
     public Mono<User> updateUser(String id, User user) {
-        return repository.findById(id)
+        Supplier<Mono<User>> update = () -> transactionalOperator.transactional(repository.findById(id)
                 .flatMap(existing -> {
-                    existing.setName(user.getName());
-                    existing.setEmail(user.getEmail());
-                    existing.setTotalXp(user.getTotalXp());
-                    return repository.save(existing);
-                });
+                    int currentXp = existing.getTotalXp() == null ? 0 : existing.getTotalXp();
+                    int xpDelta = user.getTotalXp() == null ? 0 : user.getTotalXp() - currentXp;
+                    long expectedVersion = user.getVersion() != null ? user.getVersion() : existing.getVersion();
+
+                    Mono<Integer> xpAdjustment = xpDelta == 0
+                            ? Mono.empty()
+                            : repository.incrementTotalXp(id, null, xpDelta);
+
+                    return repository.updateProfile(id, user.getName(), user.getEmail(), expectedVersion)
+                            .flatMap(updated -> updated == 0
+                                    ? Mono.error(new OptimisticLockingFailureException(
+                                            "User " + id + " was changed concurrently"))
+                                    : Mono.just(updated))
+                            .then(xpAdjustment)
+                            .then(repository.findById(id));
+                }));
+
+        Mono<User> write = user.getVersion() != null
+                ? optimisticWrites.once(ENTITY, update)
+                : optimisticWrites.withRetry(ENTITY, update);
+        return write
+                .doOnNext(updated -> leaderboardService.recordXp(updated.getId(), updated.getTotalXp()));
     }
 
     /**
@@ -88,6 +135,10 @@ public class UserService {
      * @return Mono<Void>
      */
     public Mono<Void> deleteUser(String id) {
-        return repository.deleteById(id);
+        return repository.deleteById(id)
+                .then(Mono.fromRunnable(() -> {
+                    leaderboardService.removeUser(id);
+                    completionIndex.invalidate(id);
+                }));
     }
 }
\ No newline at end of file
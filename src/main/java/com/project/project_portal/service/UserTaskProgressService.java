@@ -3,7 +3,6 @@ package com.project.project_portal.service;
 import com.project.project_portal.dto.UserTaskProgress;
 import com.project.project_portal.repo.UserTaskProgressRepository;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -16,10 +15,17 @@ import reactor.core.publisher.Mono;
 @Service
 public class UserTaskProgressService {
 
+    private static final String ENTITY = "user_task_progress";
+
     private final UserTaskProgressRepository repository;
+    private final CompletionIndex completionIndex;
+    private final OptimisticWrites optimisticWrites;
 
-    public UserTaskProgressService(UserTaskProgressRepository repository) {
+    public UserTaskProgressService(UserTaskProgressRepository repository, CompletionIndex completionIndex,
+                                   OptimisticWrites optimisticWrites) {
         this.repository = repository;
+        this.completionIndex = completionIndex;
+        this.optimisticWrites = optimisticWrites;
     }
 
     /**
@@ -33,29 +39,32 @@ public class UserTaskProgressService {
         return repository.findByUserIdAndTaskId(userId, taskId);
     }
 
-    /**
-     * Retrieves all task progress records for a user.
-     *
-     * @param userId The user ID
-     * @return Flux<UserTaskProgress> of all tasks the user has interacted with
-     */
-    public Flux<UserTaskProgress> getByUser(String userId) {
-        return repository.findByUserId(userId);
-    }
-
     /**
      * Saves or updates a task progress record.
+     * An update carrying a version only applies if the record still has that
+     * version; one without a version overwrites the current record.
      *
      * @param progress The task progress to save
-     * @return Mono<UserTaskProgress> with persisted data
+     * @return Mono<UserTaskProgress> with persisted data, or OptimisticLockingFailureException on a stale version
      */
     public Mono<UserTaskProgress> save(UserTaskProgress progress) {
-        return repository.save(progress);
+        Mono<UserTaskProgress> saveAttempt = progress.getId() == null || progress.getVersion() != null
+                ? optimisticWrites.once(ENTITY, () -> repository.save(progress))
+                : optimisticWrites.withRetry(ENTITY, () -> repository.findById(progress.getId())
+                        .map(current -> {
+                            progress.setVersion(current.getVersion());
+                            return progress;
+                        })
+                        .defaultIfEmpty(progress)
+                        .flatMap(repository::save));
+        return saveAttempt
+                .doOnNext(saved -> completionIndex.invalidate(saved.getUserId()));
     }
 
     /**
      * Updates task progress for a user.
-     * Merges new progress data with existing record.
+     * Merges new progress data with existing record, re-reading and merging
+     * again if the record changed in between.
      *
      * CAUTION: Direct update bypasses game logic in ProgressDomainService.
      * Use ProgressDomainService.completeTask() for game flow updates.
@@ -66,12 +75,13 @@ public class UserTaskProgressService {
      * @return Mono<UserTaskProgress> or empty if record not found
      */
     public Mono<UserTaskProgress> updateProgress(String userId, String taskId, UserTaskProgress progress) {
-        return repository.findByUserIdAndTaskId(userId, taskId)
-                .flatMap(existing -> {
-                    existing.setStatus(progress.getStatus());
-                    existing.setGainedXp(progress.getGainedXp());
-                    existing.setUpdatedAt(progress.getUpdatedAt());
-                    return repository.save(existing);
-                });
+        return optimisticWrites.withRetry(ENTITY, () -> repository.findByUserIdAndTaskId(userId, taskId)
+                        .flatMap(existing -> {
+                            existing.setStatus(progress.getStatus());
+                            existing.setGainedXp(progress.getGainedXp());
+                            existing.setUpdatedAt(progress.getUpdatedAt());
+                            return repository.save(existing);
+                        }))
+                .doOnNext(saved -> completionIndex.invalidate(userId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,264 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * XpRanking is an in-memory order-statistic index of users by XP.
+ *
+ * Users are kept in an indexable skip list ordered by XP descending, then user
+ * ID ascending. Every forward link stores how many entries it skips, so the
+ * rank of a user and the user at a given rank are both found in expected
+ * O(log n); top-N and neighbour lists add O(k) for the k entries returned.
+ * Ranks are 1-based positions in that order, so users with equal XP get
+ * consecutive ranks.
+ *
+ * All methods are synchronized: updates are short and the structure is
+ * shared between request threads.
+ */
+public class XpRanking {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final Map<String, Node> nodesByUser = new HashMap<>();
+    private int level = 1;
+    private int length;
+
+    /**
+     * Sets a user's XP, inserting the user if absent.
+     *
+     * @param userId The user ID
+     * @param xp The user's current XP
+     */
+    public synchronized void update(String userId, long xp) {
+        Node existing = nodesByUser.get(userId);
+        if (existing != null) {
+            if (existing.xp == xp) {
+                return;
+            }
+            delete(existing);
+        }
+        nodesByUser.put(userId, insert(userId, xp));
+    }
+
+    /**
+     * Adds a user only if the ranking does not know it yet, so a bulk load
+     * never overwrites a newer value applied by a concurrent update.
+     *
+     * @param userId The user ID
+     * @param xp The user's XP as loaded
+     */
+    public synchronized void offer(String userId, long xp) {
+        if (!nodesByUser.containsKey(userId)) {
+            nodesByUser.put(userId, insert(userId, xp));
+        }
+    }
+
+    /**
+     * Adds XP to a user, starting from 0 if the user is not ranked yet.
+     *
+     * @param userId The user ID
+     * @param delta The XP to add
+     */
+    public synchronized void add(String userId, long delta) {
+        Node existing = nodesByUser.get(userId);
+        update(userId, (existing == null ? 0 : existing.xp) + delta);
+    }
+
+    /**
+     * Removes a user from the ranking.
+     *
+     * @param userId The user ID
+     */
+    public synchronized void remove(String userId) {
+        Node existing = nodesByUser.remove(userId);
+        if (existing != null) {
+            delete(existing);
+        }
+    }
+
+    /**
+     * Returns the number of ranked users.
+     *
+     * @return ranking size
+     */
+    public synchronized int size() {
+        return length;
+    }
+
+    /**
+     * Returns a user's rank entry.
+     *
+     * @param userId The user ID
+     * @return the entry, or null if the user is not ranked
+     */
+    public synchronized LeaderboardEntry entryOf(String userId) {
+        Node node = nodesByUser.get(userId);
+        return node == null ? null : new LeaderboardEntry(rankOf(node), node.userId, node.xp);
+    }
+
+    /**
+     * Returns the highest ranked users.
+     *
+     * @param limit The maximum number of entries
+     * @return entries in rank order
+     */
+    public synchronized List<LeaderboardEntry> top(int limit) {
+        return collect(head.next[0], 1, limit);
+    }
+
+    /**
+     * Returns a user's entry surrounded by up to {@code radius} entries on each side.
+     *
+     * @param userId The user ID
+     * @param radius The number of neighbours above and below
+     * @return entries in rank order, empty if the user is not ranked
+     */
+    public synchronized List<LeaderboardEntry> around(String userId, int radius) {
+        Node node = nodesByUser.get(userId);
+        if (node == null) {
+            return List.of();
+        }
+        int rank = rankOf(node);
+        int firstRank = Math.max(1, rank - radius);
+        return collect(nodeAt(firstRank), firstRank, rank + radius - firstRank + 1);
+    }
+
+    private List<LeaderboardEntry> collect(Node from, int firstRank, int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(limit, nodesByUser.size()));
+        int rank = firstRank;
+        for (Node x = from; x != null && entries.size() < limit; x = x.next[0]) {
+            entries.add(new LeaderboardEntry(rank++, x.userId, x.xp));
+        }
+        return entries;
+    }
+
+    private Node insert(String userId, long xp) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && precedes(x.next[i], xp, userId)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = length;
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(userId, xp, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        length++;
+        return node;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && precedes(x.next[i], node.xp, node.userId)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        length--;
+    }
+
+    private int rankOf(Node node) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null
+                    && (x.next[i] == node || precedes(x.next[i], node.xp, node.userId))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        return rank;
+    }
+
+    private Node nodeAt(int rank) {
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether the node sorts strictly before (xp, userId): higher XP first,
+     * then lower user ID.
+     */
+    private static boolean precedes(Node node, long xp, String userId) {
+        return node.xp > xp || (node.xp == xp && node.userId.compareTo(userId) < 0);
+    }
+
+    private static int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextDouble() < LEVEL_PROBABILITY) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    private static final class Node {
+
+        private final String userId;
+        private final long xp;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(String userId, long xp, int level) {
+            this.userId = userId;
+            this.xp = xp;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
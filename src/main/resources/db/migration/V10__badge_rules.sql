@@ -0,0 +1,15 @@
+-- V10__badge_rules.sql
+-- Badge award rules live next to the badge definition:
+--   rule_metric    COMPLETED_TASKS | COMPLETED_QUESTS | TOTAL_XP
+--   rule_threshold AT_LEAST (metric reaches rule_value) | ALL (metric reaches the catalog total)
+ALTER TABLE badges
+    ADD COLUMN rule_metric    VARCHAR(50),
+    ADD COLUMN rule_threshold VARCHAR(20),
+    ADD COLUMN rule_value     INT;
+
+UPDATE badges SET rule_metric = 'COMPLETED_TASKS',  rule_threshold = 'AT_LEAST', rule_value = 1  WHERE id = 'badge-1';
+UPDATE badges SET rule_metric = 'COMPLETED_TASKS',  rule_threshold = 'AT_LEAST', rule_value = 5  WHERE id = 'badge-3';
+UPDATE badges SET rule_metric = 'COMPLETED_TASKS',  rule_threshold = 'AT_LEAST', rule_value = 10 WHERE id = 'badge-4';
+UPDATE badges SET rule_metric = 'COMPLETED_QUESTS', rule_threshold = 'AT_LEAST', rule_value = 1  WHERE id = 'badge-5';
+UPDATE badges SET rule_metric = 'COMPLETED_QUESTS', rule_threshold = 'AT_LEAST', rule_value = 3  WHERE id = 'badge-6';
+UPDATE badges SET rule_metric = 'COMPLETED_QUESTS', rule_threshold = 'ALL'                       WHERE id = 'badge-7';
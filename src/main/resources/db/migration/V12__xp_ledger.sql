@@ -0,0 +1,123 @@
+-- V12__xp_ledger.sql
+-- Append-only record of every XP change. users.total_xp is only ever moved by
+-- atomic increments that write a ledger row in the same statement/transaction.
+CREATE TABLE xp_ledger (
+    id         BIGSERIAL PRIMARY KEY,
+    user_id    VARCHAR(100) NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    task_id    VARCHAR(100) REFERENCES tasks(id) ON DELETE SET NULL,
+    delta      INT          NOT NULL,
+    created_at TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_xp_ledger_user_created ON xp_ledger (user_id, created_at);
+
+-- Seed the ledger with the XP already earned through completed tasks
+INSERT INTO xp_ledger (user_id, task_id, delta, created_at)
+SELECT user_id, task_id, gained_xp, updated_at
+  FROM user_task_progress
+ WHERE status = 'COMPLETED' AND gained_xp <> 0;
+
+CREATE OR REPLACE FUNCTION complete_task(p_user_id VARCHAR, p_task_id VARCHAR)
+RETURNS TABLE (
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           VARCHAR,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_progress         user_task_progress%ROWTYPE;
+    v_task             tasks%ROWTYPE;
+    v_quest_status     VARCHAR(50);
+    v_quest_done       INT;
+    v_quest_total      INT;
+    v_quest_completed  BOOLEAN := FALSE;
+    v_total_xp         INT;
+    v_completed_tasks  INT;
+    v_completed_quests INT;
+    v_outbox_id        BIGINT;
+BEGIN
+    SELECT * INTO v_progress
+      FROM user_task_progress
+     WHERE user_id = p_user_id AND task_id = p_task_id
+       FOR UPDATE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not started' USING ERRCODE = 'P0002';
+    END IF;
+
+    SELECT * INTO v_task FROM tasks WHERE id = p_task_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not found' USING ERRCODE = 'P0002';
+    END IF;
+
+    -- Already completed: report the current state without re-applying XP
+    IF v_progress.status = 'COMPLETED' THEN
+        RETURN QUERY SELECT v_progress.id, v_progress.user_id, v_progress.task_id, v_progress.status,
+                            v_progress.gained_xp, v_progress.updated_at, FALSE, v_task.quest_id,
+                            FALSE, NULL::INT, NULL::INT, NULL::INT, NULL::BIGINT;
+        RETURN;
+    END IF;
+
+    UPDATE user_task_progress
+       SET status = 'COMPLETED', gained_xp = v_task.xp_reward, updated_at = NOW()
+     WHERE id = v_progress.id
+    RETURNING * INTO v_progress;
+
+    INSERT INTO xp_ledger (user_id, task_id, delta)
+    VALUES (p_user_id, p_task_id, v_task.xp_reward);
+
+    UPDATE users
+       SET total_xp = total_xp + v_task.xp_reward
+     WHERE id = p_user_id
+    RETURNING total_xp INTO v_total_xp;
+
+    INSERT INTO user_quest_progress (user_id, quest_id, status, gained_xp, completed_tasks)
+    VALUES (p_user_id, v_task.quest_id, 'IN_PROGRESS', v_task.xp_reward, 1)
+    ON CONFLICT (user_id, quest_id) DO UPDATE
+       SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+           completed_tasks = user_quest_progress.completed_tasks + 1,
+           updated_at      = NOW()
+    RETURNING status, completed_tasks INTO v_quest_status, v_quest_done;
+
+    -- Quest is complete once its completed-task count reaches the cached task total
+    SELECT task_count INTO v_quest_total FROM quests WHERE id = v_task.quest_id;
+
+    IF v_quest_status <> 'COMPLETED' AND v_quest_done >= v_quest_total THEN
+        UPDATE user_quest_progress
+           SET status = 'COMPLETED', updated_at = NOW()
+         WHERE user_id = p_user_id AND quest_id = v_task.quest_id;
+        v_quest_completed := TRUE;
+    END IF;
+
+    INSERT INTO user_progress_counters (user_id, completed_tasks, completed_quests, total_xp)
+    VALUES (p_user_id, 1, CASE WHEN v_quest_completed THEN 1 ELSE 0 END, v_task.xp_reward)
+    ON CONFLICT (user_id) DO UPDATE
+       SET completed_tasks  = user_progress_counters.completed_tasks + EXCLUDED.completed_tasks,
+           completed_quests = user_progress_counters.completed_quests + EXCLUDED.completed_quests,
+           total_xp         = user_progress_counters.total_xp + EXCLUDED.total_xp,
+           updated_at       = NOW()
+    RETURNING completed_tasks, completed_quests INTO v_completed_tasks, v_completed_quests;
+
+    -- Badge evaluation happens asynchronously; the outbox row commits with the completion
+    INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                    total_xp, gained_xp)
+    VALUES (p_user_id, v_completed_tasks, v_completed_quests, v_quest_completed,
+            COALESCE(v_total_xp, 0), v_task.xp_reward)
+    RETURNING id INTO v_outbox_id;
+
+    RETURN QUERY SELECT v_progress.id, v_progress.user_id, v_progress.task_id, v_progress.status,
+                        v_progress.gained_xp, v_progress.updated_at, TRUE, v_task.quest_id,
+                        v_quest_completed, v_total_xp, v_completed_tasks, v_completed_quests,
+                        v_outbox_id;
+END;
+$$;
@@ -0,0 +1,6 @@
+-- V13__xp_ledger_keyset_index.sql
+-- XP history is paged newest-first by ledger ID, so index (user_id, id)
+-- instead of (user_id, created_at).
+DROP INDEX IF EXISTS idx_xp_ledger_user_created;
+
+CREATE INDEX idx_xp_ledger_user_id ON xp_ledger (user_id, id);
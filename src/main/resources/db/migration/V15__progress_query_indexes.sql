@@ -0,0 +1,21 @@
+-- V15__progress_query_indexes.sql
+-- Secondary indexes for the repository queries; V1-V5 only created the
+-- primary keys and UNIQUE constraints. QueryPlanGuardTest checks that none of
+-- the repository queries falls back to a sequential scan on a seeded database.
+
+-- findByTopicIdOrderByOrderIndexAsc and the topic leaderboard join
+CREATE INDEX idx_quests_topic_order ON quests (topic_id, order_index, id);
+
+-- findByQuestId(OrderByOrderIndexAsc) and findQuestTaskProgress (ORDER BY order_index, id)
+CREATE INDEX idx_tasks_quest_order ON tasks (quest_id, order_index, id);
+
+-- findByUserIdOrderByEarnedAtAsc: index-only, already in award order
+CREATE INDEX idx_user_badges_user_earned ON user_badges (user_id, earned_at) INCLUDE (badge_id);
+
+-- findStatusesByUserId (completion bitmaps): index-only scan of a user's rows
+CREATE INDEX idx_user_task_progress_user_status ON user_task_progress (user_id, task_id) INCLUDE (status);
+
+-- findXpByQuestId / findXpByTopicId (scoped leaderboards): only rows with XP,
+-- covering the columns the loaders read
+CREATE INDEX idx_user_quest_progress_quest_xp ON user_quest_progress (quest_id)
+    INCLUDE (user_id, gained_xp) WHERE gained_xp > 0;
@@ -0,0 +1,47 @@
+-- V16__complete_tasks_batch.sql
+-- Completes many (user, task) pairs in one statement for the write-behind
+-- batcher. Each pair runs complete_task in its own subtransaction, so a pair
+-- that fails (e.g. task not started) reports its SQLSTATE and message instead
+-- of rolling back the rest of the batch. Pairs are processed in (user, task)
+-- order so concurrent batches take row locks in the same order; ord is the
+-- pair's 1-based position in the input arrays.
+CREATE FUNCTION complete_tasks(p_user_ids VARCHAR[], p_task_ids VARCHAR[])
+RETURNS TABLE (
+    ord              INT,
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT,
+    error_state      TEXT,
+    error_message    TEXT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_pair RECORD;
+BEGIN
+    FOR v_pair IN
+        SELECT p.ord::INT AS ord, p.user_id, p.task_id
+          FROM unnest(p_user_ids, p_task_ids) WITH ORDINALITY AS p(user_id, task_id, ord)
+         ORDER BY p.user_id, p.task_id, p.ord
+    LOOP
+        BEGIN
+            RETURN QUERY SELECT v_pair.ord, c.*, NULL::TEXT, NULL::TEXT
+                           FROM complete_task(v_pair.user_id, v_pair.task_id) c;
+        EXCEPTION WHEN OTHERS THEN
+            RETURN QUERY SELECT v_pair.ord, NULL::VARCHAR, v_pair.user_id, v_pair.task_id, NULL::SMALLINT,
+                                NULL::INT, NULL::TIMESTAMPTZ, NULL::BOOLEAN, NULL::VARCHAR, NULL::BOOLEAN,
+                                NULL::INT, NULL::INT, NULL::INT, NULL::BIGINT, SQLSTATE::TEXT, SQLERRM::TEXT;
+        END;
+    END LOOP;
+END;
+$$;
@@ -0,0 +1,14 @@
+-- V17__idempotency_keys.sql
+-- Successful responses to progress mutations sent with an Idempotency-Key
+-- header. The in-memory cache answers most retries; this table lets a retry
+-- that arrives after a restart be answered without re-running the mutation.
+-- Rows older than the idempotency TTL are purged periodically.
+CREATE TABLE idempotency_keys (
+    idempotency_key     VARCHAR(255)  PRIMARY KEY,
+    request_fingerprint VARCHAR(1024) NOT NULL,
+    status_code         SMALLINT      NOT NULL,
+    response_body       TEXT          NOT NULL,
+    created_at          TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys (created_at);
@@ -0,0 +1,31 @@
+-- V18__progress_row_versions.sql
+-- Row versions for optimistic concurrency on users and progress rows. Entity
+-- saves advance the version themselves and only apply if the row still has the
+-- version they read. Every other UPDATE (complete_task, the upserts, XP
+-- increments) gets its version advanced by the trigger, so such writes also
+-- invalidate versions read before them.
+ALTER TABLE users               ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_task_progress  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_quest_progress ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE FUNCTION advance_row_version() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF NEW.version = OLD.version THEN
+        NEW.version := OLD.version + 1;
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER users_advance_version
+    BEFORE UPDATE ON users
+    FOR EACH ROW EXECUTE FUNCTION advance_row_version();
+
+CREATE TRIGGER user_task_progress_advance_version
+    BEFORE UPDATE ON user_task_progress
+    FOR EACH ROW EXECUTE FUNCTION advance_row_version();
+
+CREATE TRIGGER user_quest_progress_advance_version
+    BEFORE UPDATE ON user_quest_progress
+    FOR EACH ROW EXECUTE FUNCTION advance_row_version();
@@ -0,0 +1,4 @@
+-- V19__badge_award_outbox_purge.sql
+-- Processed outbox rows are only kept for the badge outbox retention period.
+-- This index lets the periodic purge find them without scanning pending rows.
+CREATE INDEX idx_badge_award_outbox_processed ON badge_award_outbox (processed_at) WHERE processed_at IS NOT NULL;
@@ -0,0 +1,12 @@
+-- V20__user_task_progress_covering_unique.sql
+-- V15 added idx_user_task_progress_user_status on (user_id, task_id) INCLUDE
+-- (status) next to the index behind V4's UNIQUE (user_id, task_id): two
+-- indexes with the same keys, both maintained on every progress write. The
+-- UNIQUE constraint now carries the status column itself, so one index both
+-- enforces uniqueness (and serves ON CONFLICT (user_id, task_id)) and answers
+-- findStatusesByUserId with an index-only scan.
+ALTER TABLE user_task_progress
+    DROP CONSTRAINT user_task_progress_user_id_task_id_key,
+    ADD CONSTRAINT uq_user_task_progress_user_task UNIQUE (user_id, task_id) INCLUDE (status);
+
+DROP INDEX idx_user_task_progress_user_status;
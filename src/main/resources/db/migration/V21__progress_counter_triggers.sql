@@ -0,0 +1,189 @@
+-- V21__progress_counter_triggers.sql
+-- user_progress_counters was only maintained by complete_task, so status
+-- changes written any other way (the progress CRUD endpoints, entity saves,
+-- deletes) left the counters wrong. The counters now follow the status column
+-- itself: statement-level triggers on both progress tables add or remove the
+-- rows that entered or left COMPLETED (2), grouped per user. complete_task
+-- reads the counters the triggers produced instead of upserting them, and the
+-- unused total_xp copy (users.total_xp is authoritative) is dropped.
+ALTER TABLE user_progress_counters DROP COLUMN total_xp;
+
+-- Adds one completion per entry of p_added and removes one per entry of
+-- p_removed, in user order so concurrent statements lock counters consistently.
+CREATE FUNCTION adjust_completed_counts(p_added VARCHAR[], p_removed VARCHAR[], p_quests BOOLEAN)
+RETURNS VOID
+LANGUAGE sql AS $$
+    INSERT INTO user_progress_counters (user_id, completed_tasks, completed_quests)
+    SELECT d.user_id,
+           CASE WHEN p_quests THEN 0 ELSE SUM(d.delta)::INT END,
+           CASE WHEN p_quests THEN SUM(d.delta)::INT ELSE 0 END
+      FROM (SELECT unnest(p_added) AS user_id, 1 AS delta
+            UNION ALL
+            SELECT unnest(p_removed), -1) d
+     GROUP BY d.user_id
+    HAVING SUM(d.delta) <> 0
+     ORDER BY d.user_id
+    ON CONFLICT (user_id) DO UPDATE
+       SET completed_tasks  = user_progress_counters.completed_tasks + EXCLUDED.completed_tasks,
+           completed_quests = user_progress_counters.completed_quests + EXCLUDED.completed_quests,
+           updated_at       = NOW();
+$$;
+
+-- Shared by the INSERT, UPDATE and DELETE triggers of both progress tables;
+-- transition tables can only be declared on single-event triggers.
+CREATE FUNCTION count_completed_progress() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_added   VARCHAR[] := '{}';
+    v_removed VARCHAR[] := '{}';
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        v_added := ARRAY(SELECT user_id FROM new_rows WHERE status = 2);
+    ELSIF TG_OP = 'DELETE' THEN
+        v_removed := ARRAY(SELECT user_id FROM old_rows WHERE status = 2);
+    ELSE
+        v_added := ARRAY(SELECT n.user_id FROM new_rows n JOIN old_rows o ON o.id = n.id
+                          WHERE n.status = 2 AND (o.status <> 2 OR o.user_id <> n.user_id));
+        v_removed := ARRAY(SELECT o.user_id FROM old_rows o JOIN new_rows n ON n.id = o.id
+                            WHERE o.status = 2 AND (n.status <> 2 OR n.user_id <> o.user_id));
+    END IF;
+
+    IF cardinality(v_added) + cardinality(v_removed) > 0 THEN
+        PERFORM adjust_completed_counts(v_added, v_removed, TG_TABLE_NAME = 'user_quest_progress');
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER user_task_progress_count_insert
+    AFTER INSERT ON user_task_progress REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_progress();
+CREATE TRIGGER user_task_progress_count_update
+    AFTER UPDATE ON user_task_progress REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_progress();
+CREATE TRIGGER user_task_progress_count_delete
+    AFTER DELETE ON user_task_progress REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_progress();
+
+CREATE TRIGGER user_quest_progress_count_insert
+    AFTER INSERT ON user_quest_progress REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_progress();
+CREATE TRIGGER user_quest_progress_count_update
+    AFTER UPDATE ON user_quest_progress REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_progress();
+CREATE TRIGGER user_quest_progress_count_delete
+    AFTER DELETE ON user_quest_progress REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_progress();
+
+-- Resynchronise counters that drifted before the triggers existed
+INSERT INTO user_progress_counters (user_id, completed_tasks, completed_quests)
+SELECT u.id,
+       (SELECT COUNT(*) FROM user_task_progress utp WHERE utp.user_id = u.id AND utp.status = 2),
+       (SELECT COUNT(*) FROM user_quest_progress uqp WHERE uqp.user_id = u.id AND uqp.status = 2)
+  FROM users u
+ON CONFLICT (user_id) DO UPDATE
+   SET completed_tasks  = EXCLUDED.completed_tasks,
+       completed_quests = EXCLUDED.completed_quests,
+       updated_at       = NOW();
+
+-- Same as V14 except that the counters are read rather than written
+CREATE OR REPLACE FUNCTION complete_task(p_user_id VARCHAR, p_task_id VARCHAR)
+RETURNS TABLE (
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_progress         user_task_progress%ROWTYPE;
+    v_task             tasks%ROWTYPE;
+    v_quest_status     SMALLINT;
+    v_quest_done       INT;
+    v_quest_total      INT;
+    v_quest_completed  BOOLEAN := FALSE;
+    v_total_xp         INT;
+    v_completed_tasks  INT;
+    v_completed_quests INT;
+    v_outbox_id        BIGINT;
+BEGIN
+    SELECT * INTO v_progress
+      FROM user_task_progress
+     WHERE user_id = p_user_id AND task_id = p_task_id
+       FOR UPDATE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not started' USING ERRCODE = 'P0002';
+    END IF;
+
+    SELECT * INTO v_task FROM tasks WHERE id = p_task_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not found' USING ERRCODE = 'P0002';
+    END IF;
+
+    -- Already completed: report the current state without re-applying XP
+    IF v_progress.status = 2 THEN
+        RETURN QUERY SELECT v_progress.id, v_progress.user_id, v_progress.task_id, v_progress.status,
+                            v_progress.gained_xp, v_progress.updated_at, FALSE, v_task.quest_id,
+                            FALSE, NULL::INT, NULL::INT, NULL::INT, NULL::BIGINT;
+        RETURN;
+    END IF;
+
+    UPDATE user_task_progress
+       SET status = 2, gained_xp = v_task.xp_reward, updated_at = NOW()
+     WHERE id = v_progress.id
+    RETURNING * INTO v_progress;
+
+    INSERT INTO xp_ledger (user_id, task_id, delta)
+    VALUES (p_user_id, p_task_id, v_task.xp_reward);
+
+    UPDATE users
+       SET total_xp = total_xp + v_task.xp_reward
+     WHERE id = p_user_id
+    RETURNING total_xp INTO v_total_xp;
+
+    INSERT INTO user_quest_progress (user_id, quest_id, status, gained_xp, completed_tasks)
+    VALUES (p_user_id, v_task.quest_id, 1, v_task.xp_reward, 1)
+    ON CONFLICT (user_id, quest_id) DO UPDATE
+       SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+           completed_tasks = user_quest_progress.completed_tasks + 1,
+           updated_at      = NOW()
+    RETURNING status, completed_tasks INTO v_quest_status, v_quest_done;
+
+    -- Quest is complete once its completed-task count reaches the cached task total
+    SELECT task_count INTO v_quest_total FROM quests WHERE id = v_task.quest_id;
+
+    IF v_quest_status <> 2 AND v_quest_done >= v_quest_total THEN
+        UPDATE user_quest_progress
+           SET status = 2, updated_at = NOW()
+         WHERE user_id = p_user_id AND quest_id = v_task.quest_id;
+        v_quest_completed := TRUE;
+    END IF;
+
+    -- The counter triggers have applied this completion; the row stays locked until commit
+    SELECT completed_tasks, completed_quests INTO v_completed_tasks, v_completed_quests
+      FROM user_progress_counters
+     WHERE user_id = p_user_id;
+
+    -- Badge evaluation happens asynchronously; the outbox row commits with the completion
+    INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                    total_xp, gained_xp)
+    VALUES (p_user_id, v_completed_tasks, v_completed_quests, v_quest_completed,
+            COALESCE(v_total_xp, 0), v_task.xp_reward)
+    RETURNING id INTO v_outbox_id;
+
+    RETURN QUERY SELECT v_progress.id, v_progress.user_id, v_progress.task_id, v_progress.status,
+                        v_progress.gained_xp, v_progress.updated_at, TRUE, v_task.quest_id,
+                        v_quest_completed, v_total_xp, v_completed_tasks, v_completed_quests,
+                        v_outbox_id;
+END;
+$$;
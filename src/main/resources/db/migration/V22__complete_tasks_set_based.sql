@@ -0,0 +1,159 @@
+-- V22__complete_tasks_set_based.sql
+-- complete_tasks ran complete_task once per pair, each in its own
+-- subtransaction. Batches of more than 64 pairs overflow PostgreSQL's
+-- per-backend subtransaction cache, which slows down every snapshot on the
+-- server while the transaction is open. The batch is now applied with a
+-- handful of set-based statements and no subtransactions:
+--   1. lock the batch's progress rows in (user, task) order;
+--   2. complete every not yet completed pair (the first occurrence of a
+--      repeated pair) and roll the XP up into the ledger, users and quest
+--      progress, one statement per table;
+--   3. mark the quests that reached their task count as completed;
+--   4. derive each completion's running totals in (user, task) order, write
+--      one outbox row per completion and report every pair.
+-- Pairs that cannot be completed no longer need a subtransaction: a pair
+-- without a progress row is reported as P0002 'Task not started' and simply
+-- takes no part in the rollups. Pairs already completed (before the batch or
+-- earlier in it) report their current row with newly_completed = FALSE. The
+-- progress counters are maintained by the V21 triggers.
+CREATE OR REPLACE FUNCTION complete_tasks(p_user_ids VARCHAR[], p_task_ids VARCHAR[])
+RETURNS TABLE (
+    ord              INT,
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT,
+    error_state      TEXT,
+    error_message    TEXT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_ids         VARCHAR[];
+    v_users       VARCHAR[];
+    v_tasks       VARCHAR[];
+    v_quests      VARCHAR[];
+    v_xp          INT[];
+    v_done_users  VARCHAR[];
+    v_done_quests VARCHAR[];
+BEGIN
+    PERFORM 1
+       FROM user_task_progress utp
+      WHERE (utp.user_id, utp.task_id) IN (SELECT b.user_id, b.task_id
+                                             FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id))
+      ORDER BY utp.user_id, utp.task_id
+        FOR UPDATE;
+
+    WITH pairs AS (
+        SELECT DISTINCT b.user_id, b.task_id
+          FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+    ),
+    completed AS (
+        UPDATE user_task_progress utp
+           SET status = 2, gained_xp = t.xp_reward, updated_at = NOW()
+          FROM pairs p
+          JOIN tasks t ON t.id = p.task_id
+         WHERE utp.user_id = p.user_id AND utp.task_id = p.task_id AND utp.status <> 2
+        RETURNING utp.id, utp.user_id, utp.task_id, t.quest_id, utp.gained_xp
+    ),
+    ledger AS (
+        INSERT INTO xp_ledger (user_id, task_id, delta)
+        SELECT c.user_id, c.task_id, c.gained_xp
+          FROM completed c
+         ORDER BY c.user_id, c.task_id
+    ),
+    xp AS (
+        UPDATE users u
+           SET total_xp = u.total_xp + g.xp
+          FROM (SELECT c.user_id, SUM(c.gained_xp)::INT AS xp FROM completed c GROUP BY c.user_id) g
+         WHERE u.id = g.user_id
+    ),
+    quest_xp AS (
+        INSERT INTO user_quest_progress (user_id, quest_id, status, gained_xp, completed_tasks)
+        SELECT c.user_id, c.quest_id, 1, SUM(c.gained_xp)::INT, COUNT(*)::INT
+          FROM completed c
+         GROUP BY c.user_id, c.quest_id
+         ORDER BY c.user_id, c.quest_id
+        ON CONFLICT (user_id, quest_id) DO UPDATE
+           SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+               completed_tasks = user_quest_progress.completed_tasks + EXCLUDED.completed_tasks,
+               updated_at      = NOW()
+    )
+    SELECT array_agg(c.id), array_agg(c.user_id), array_agg(c.task_id), array_agg(c.quest_id), array_agg(c.gained_xp)
+      INTO v_ids, v_users, v_tasks, v_quests, v_xp
+      FROM completed c;
+
+    -- Quests are complete once their completed-task count reaches the cached task total
+    WITH finished AS (
+        UPDATE user_quest_progress uqp
+           SET status = 2, updated_at = NOW()
+          FROM quests q
+         WHERE q.id = uqp.quest_id
+           AND (uqp.user_id, uqp.quest_id) IN (SELECT d.user_id, d.quest_id
+                                                 FROM unnest(v_users, v_quests) AS d(user_id, quest_id))
+           AND uqp.status <> 2
+           AND uqp.completed_tasks >= q.task_count
+        RETURNING uqp.user_id, uqp.quest_id
+    )
+    SELECT array_agg(f.user_id), array_agg(f.quest_id)
+      INTO v_done_users, v_done_quests
+      FROM finished f;
+
+    RETURN QUERY
+    WITH pairs AS (
+        SELECT b.ord::INT AS ord, b.user_id, b.task_id,
+               row_number() OVER (PARTITION BY b.user_id, b.task_id ORDER BY b.ord) AS occurrence
+          FROM unnest(p_user_ids, p_task_ids) WITH ORDINALITY AS b(user_id, task_id, ord)
+    ),
+    done AS (
+        SELECT d.*,
+               -- the last completion of a quest finished by this batch is the one that finished it
+               f.quest_id IS NOT NULL
+                   AND row_number() OVER (PARTITION BY d.user_id, d.quest_id ORDER BY d.task_id DESC) = 1
+                   AS quest_completed
+          FROM unnest(v_ids, v_users, v_tasks, v_quests, v_xp) AS d(id, user_id, task_id, quest_id, gained_xp)
+          LEFT JOIN unnest(v_done_users, v_done_quests) AS f(user_id, quest_id)
+                 ON f.user_id = d.user_id AND f.quest_id = d.quest_id
+    ),
+    running AS (
+        -- totals after each completion: the final totals minus everything completed after it
+        SELECT d.id, d.user_id, d.task_id, d.gained_xp, d.quest_completed,
+               (u.total_xp - COALESCE(SUM(d.gained_xp) OVER later, 0))::INT AS total_xp,
+               (c.completed_tasks - COUNT(*) OVER later)::INT AS completed_tasks,
+               (c.completed_quests - COALESCE(SUM(d.quest_completed::INT) OVER later, 0))::INT AS completed_quests
+          FROM done d
+          JOIN users u ON u.id = d.user_id
+          JOIN user_progress_counters c ON c.user_id = d.user_id
+        WINDOW later AS (PARTITION BY d.user_id ORDER BY d.task_id ROWS BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING)
+    ),
+    outbox AS (
+        -- Badge evaluation happens asynchronously; the outbox rows commit with the completions
+        INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                        total_xp, gained_xp)
+        SELECT r.user_id, r.completed_tasks, r.completed_quests, r.quest_completed, r.total_xp, r.gained_xp
+          FROM running r
+         ORDER BY r.user_id, r.task_id
+        RETURNING badge_award_outbox.id, badge_award_outbox.user_id, badge_award_outbox.completed_tasks
+    )
+    SELECT p.ord, utp.id, p.user_id, p.task_id, utp.status, utp.gained_xp, utp.updated_at,
+           r.id IS NOT NULL, t.quest_id, COALESCE(r.quest_completed, FALSE),
+           r.total_xp, r.completed_tasks, r.completed_quests, o.id,
+           CASE WHEN utp.id IS NULL THEN 'P0002'::TEXT END,
+           CASE WHEN utp.id IS NULL THEN 'Task not started'::TEXT END
+      FROM pairs p
+      LEFT JOIN user_task_progress utp ON utp.user_id = p.user_id AND utp.task_id = p.task_id
+      LEFT JOIN tasks t ON t.id = p.task_id
+      LEFT JOIN running r ON r.user_id = p.user_id AND r.task_id = p.task_id AND p.occurrence = 1
+      LEFT JOIN outbox o ON o.user_id = r.user_id AND o.completed_tasks = r.completed_tasks
+     ORDER BY p.ord;
+END;
+$$;
@@ -0,0 +1,11 @@
+-- V23__users_profile_version.sql
+-- The users version guards profile edits only. Advancing it on every UPDATE
+-- meant each task completion (an XP increment) invalidated the version a
+-- client had read, so profile edits sent with that version failed with 409
+-- after any completion. XP is applied as an atomic delta and never needs the
+-- version, so the trigger now only fires for updates of the profile columns.
+DROP TRIGGER users_advance_version ON users;
+
+CREATE TRIGGER users_advance_version
+    BEFORE UPDATE OF name, email ON users
+    FOR EACH ROW EXECUTE FUNCTION advance_row_version();
@@ -0,0 +1,476 @@
+-- V24__progress_bigint_keys.sql
+-- user_task_progress, user_quest_progress and user_badges referenced users,
+-- tasks, quests and badges by their VARCHAR(100) string IDs, so every row and
+-- every index entry of the three tables carried two UUID strings. The parents
+-- now get a BIGINT identity row_key next to their string id, and the three
+-- tables reference the parents by row key:
+--   user_task_progress  (user_key, task_key)
+--   user_quest_progress (user_key, quest_key)
+--   user_badges         (user_key, badge_key)
+-- The string IDs stay the external IDs. Queries translate them to row keys
+-- through the parents' primary keys, and back through the (row_key) INCLUDE
+-- (id) indexes. The *_view views expose the rows with string IDs for the
+-- entity mappings; inserts, updates and deletes through the two progress views
+-- are applied to the tables by INSTEAD OF triggers.
+
+-- 1. Parent row keys
+ALTER TABLE users   ADD COLUMN row_key BIGINT GENERATED ALWAYS AS IDENTITY;
+ALTER TABLE tasks   ADD COLUMN row_key BIGINT GENERATED ALWAYS AS IDENTITY;
+ALTER TABLE quests  ADD COLUMN row_key BIGINT GENERATED ALWAYS AS IDENTITY;
+ALTER TABLE badges  ADD COLUMN row_key BIGINT GENERATED ALWAYS AS IDENTITY;
+
+ALTER TABLE users   ADD CONSTRAINT uq_users_row_key  UNIQUE (row_key) INCLUDE (id);
+ALTER TABLE tasks   ADD CONSTRAINT uq_tasks_row_key  UNIQUE (row_key) INCLUDE (id);
+ALTER TABLE quests  ADD CONSTRAINT uq_quests_row_key UNIQUE (row_key) INCLUDE (id);
+ALTER TABLE badges  ADD CONSTRAINT uq_badges_row_key UNIQUE (row_key) INCLUDE (id);
+
+-- 2. Re-key the child tables. The row triggers (versions, completion counters)
+-- stay off while the key columns are backfilled: no status or version changes.
+ALTER TABLE user_task_progress DISABLE TRIGGER USER;
+ALTER TABLE user_task_progress ADD COLUMN user_key BIGINT, ADD COLUMN task_key BIGINT;
+UPDATE user_task_progress utp
+   SET user_key = u.row_key, task_key = t.row_key
+  FROM users u, tasks t
+ WHERE u.id = utp.user_id AND t.id = utp.task_id;
+-- Drops uq_user_task_progress_user_task and the foreign keys with the columns
+ALTER TABLE user_task_progress DROP COLUMN user_id, DROP COLUMN task_id;
+ALTER TABLE user_task_progress
+    ALTER COLUMN user_key SET NOT NULL,
+    ALTER COLUMN task_key SET NOT NULL,
+    ADD CONSTRAINT fk_user_task_progress_user FOREIGN KEY (user_key) REFERENCES users (row_key),
+    ADD CONSTRAINT fk_user_task_progress_task FOREIGN KEY (task_key) REFERENCES tasks (row_key),
+    ADD CONSTRAINT uq_user_task_progress_user_task UNIQUE (user_key, task_key) INCLUDE (status);
+ALTER TABLE user_task_progress ENABLE TRIGGER USER;
+
+ALTER TABLE user_quest_progress DISABLE TRIGGER USER;
+ALTER TABLE user_quest_progress ADD COLUMN user_key BIGINT, ADD COLUMN quest_key BIGINT;
+UPDATE user_quest_progress uqp
+   SET user_key = u.row_key, quest_key = q.row_key
+  FROM users u, quests q
+ WHERE u.id = uqp.user_id AND q.id = uqp.quest_id;
+-- Drops the (user_id, quest_id) unique constraint and idx_user_quest_progress_quest_xp
+ALTER TABLE user_quest_progress DROP COLUMN user_id, DROP COLUMN quest_id;
+ALTER TABLE user_quest_progress
+    ALTER COLUMN user_key SET NOT NULL,
+    ALTER COLUMN quest_key SET NOT NULL,
+    ADD CONSTRAINT fk_user_quest_progress_user FOREIGN KEY (user_key) REFERENCES users (row_key),
+    ADD CONSTRAINT fk_user_quest_progress_quest FOREIGN KEY (quest_key) REFERENCES quests (row_key),
+    ADD CONSTRAINT uq_user_quest_progress_user_quest UNIQUE (user_key, quest_key);
+CREATE INDEX idx_user_quest_progress_quest_xp ON user_quest_progress (quest_key)
+    INCLUDE (user_key, gained_xp) WHERE gained_xp > 0;
+ALTER TABLE user_quest_progress ENABLE TRIGGER USER;
+
+ALTER TABLE user_badges ADD COLUMN user_key BIGINT, ADD COLUMN badge_key BIGINT;
+UPDATE user_badges ub
+   SET user_key = u.row_key, badge_key = b.row_key
+  FROM users u, badges b
+ WHERE u.id = ub.user_id AND b.id = ub.badge_id;
+-- Drops the (user_id, badge_id) unique constraint and idx_user_badges_user_earned
+ALTER TABLE user_badges DROP COLUMN user_id, DROP COLUMN badge_id;
+ALTER TABLE user_badges
+    ALTER COLUMN user_key SET NOT NULL,
+    ALTER COLUMN badge_key SET NOT NULL,
+    ADD CONSTRAINT fk_user_badges_user FOREIGN KEY (user_key) REFERENCES users (row_key),
+    ADD CONSTRAINT fk_user_badges_badge FOREIGN KEY (badge_key) REFERENCES badges (row_key),
+    ADD CONSTRAINT uq_user_badges_user_badge UNIQUE (user_key, badge_key);
+CREATE INDEX idx_user_badges_user_earned ON user_badges (user_key, earned_at) INCLUDE (badge_key);
+
+-- 3. String-ID views for the entity mappings. The defaults mirror the tables'
+-- defaults for inserts that leave a column out.
+CREATE VIEW user_task_progress_view AS
+SELECT utp.id, u.id AS user_id, t.id AS task_id, utp.status, utp.gained_xp, utp.updated_at, utp.version
+  FROM user_task_progress utp
+  JOIN users u ON u.row_key = utp.user_key
+  JOIN tasks t ON t.row_key = utp.task_key;
+ALTER VIEW user_task_progress_view ALTER COLUMN id SET DEFAULT gen_random_uuid()::text;
+ALTER VIEW user_task_progress_view ALTER COLUMN gained_xp SET DEFAULT 0;
+ALTER VIEW user_task_progress_view ALTER COLUMN updated_at SET DEFAULT NOW();
+ALTER VIEW user_task_progress_view ALTER COLUMN version SET DEFAULT 0;
+
+CREATE VIEW user_quest_progress_view AS
+SELECT uqp.id, u.id AS user_id, q.id AS quest_id, uqp.status, uqp.gained_xp, uqp.completed_tasks,
+       uqp.updated_at, uqp.version
+  FROM user_quest_progress uqp
+  JOIN users u ON u.row_key = uqp.user_key
+  JOIN quests q ON q.row_key = uqp.quest_key;
+ALTER VIEW user_quest_progress_view ALTER COLUMN id SET DEFAULT gen_random_uuid()::text;
+ALTER VIEW user_quest_progress_view ALTER COLUMN gained_xp SET DEFAULT 0;
+ALTER VIEW user_quest_progress_view ALTER COLUMN completed_tasks SET DEFAULT 0;
+ALTER VIEW user_quest_progress_view ALTER COLUMN updated_at SET DEFAULT NOW();
+ALTER VIEW user_quest_progress_view ALTER COLUMN version SET DEFAULT 0;
+
+-- Read-only: badges are only awarded through the repository's INSERT statements
+CREATE VIEW user_badges_view AS
+SELECT ub.id, u.id AS user_id, b.id AS badge_id, ub.earned_at
+  FROM user_badges ub
+  JOIN users u ON u.row_key = ub.user_key
+  JOIN badges b ON b.row_key = ub.badge_key;
+
+CREATE FUNCTION write_user_task_progress_view() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_user_key BIGINT;
+    v_task_key BIGINT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM user_task_progress WHERE id = OLD.id;
+        RETURN OLD;
+    END IF;
+
+    SELECT row_key INTO v_user_key FROM users WHERE id = NEW.user_id;
+    SELECT row_key INTO v_task_key FROM tasks WHERE id = NEW.task_id;
+    IF v_user_key IS NULL OR v_task_key IS NULL THEN
+        RAISE EXCEPTION 'Unknown user % or task %', NEW.user_id, NEW.task_id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO user_task_progress (id, user_key, task_key, status, gained_xp, updated_at, version)
+        VALUES (NEW.id, v_user_key, v_task_key, NEW.status, NEW.gained_xp, NEW.updated_at, NEW.version)
+        RETURNING id, status, gained_xp, updated_at, version
+             INTO NEW.id, NEW.status, NEW.gained_xp, NEW.updated_at, NEW.version;
+    ELSE
+        UPDATE user_task_progress
+           SET user_key = v_user_key, task_key = v_task_key, status = NEW.status,
+               gained_xp = NEW.gained_xp, updated_at = NEW.updated_at, version = NEW.version
+         WHERE id = OLD.id
+        RETURNING status, gained_xp, updated_at, version
+             INTO NEW.status, NEW.gained_xp, NEW.updated_at, NEW.version;
+        IF NOT FOUND THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE FUNCTION write_user_quest_progress_view() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_user_key  BIGINT;
+    v_quest_key BIGINT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM user_quest_progress WHERE id = OLD.id;
+        RETURN OLD;
+    END IF;
+
+    SELECT row_key INTO v_user_key FROM users WHERE id = NEW.user_id;
+    SELECT row_key INTO v_quest_key FROM quests WHERE id = NEW.quest_id;
+    IF v_user_key IS NULL OR v_quest_key IS NULL THEN
+        RAISE EXCEPTION 'Unknown user % or quest %', NEW.user_id, NEW.quest_id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO user_quest_progress (id, user_key, quest_key, status, gained_xp, completed_tasks,
+                                         updated_at, version)
+        VALUES (NEW.id, v_user_key, v_quest_key, NEW.status, NEW.gained_xp, NEW.completed_tasks,
+                NEW.updated_at, NEW.version)
+        RETURNING id, status, gained_xp, completed_tasks, updated_at, version
+             INTO NEW.id, NEW.status, NEW.gained_xp, NEW.completed_tasks, NEW.updated_at, NEW.version;
+    ELSE
+        UPDATE user_quest_progress
+           SET user_key = v_user_key, quest_key = v_quest_key, status = NEW.status,
+               gained_xp = NEW.gained_xp, completed_tasks = NEW.completed_tasks,
+               updated_at = NEW.updated_at, version = NEW.version
+         WHERE id = OLD.id
+        RETURNING status, gained_xp, completed_tasks, updated_at, version
+             INTO NEW.status, NEW.gained_xp, NEW.completed_tasks, NEW.updated_at, NEW.version;
+        IF NOT FOUND THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER user_task_progress_view_write
+    INSTEAD OF INSERT OR UPDATE OR DELETE ON user_task_progress_view
+    FOR EACH ROW EXECUTE FUNCTION write_user_task_progress_view();
+
+CREATE TRIGGER user_quest_progress_view_write
+    INSTEAD OF INSERT OR UPDATE OR DELETE ON user_quest_progress_view
+    FOR EACH ROW EXECUTE FUNCTION write_user_quest_progress_view();
+
+-- 4. Completion counters: user_progress_counters stays keyed by the string user ID
+CREATE OR REPLACE FUNCTION count_completed_progress() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_added   VARCHAR[] := '{}';
+    v_removed VARCHAR[] := '{}';
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        v_added := ARRAY(SELECT u.id FROM new_rows n JOIN users u ON u.row_key = n.user_key
+                          WHERE n.status = 2);
+    ELSIF TG_OP = 'DELETE' THEN
+        v_removed := ARRAY(SELECT u.id FROM old_rows o JOIN users u ON u.row_key = o.user_key
+                            WHERE o.status = 2);
+    ELSE
+        v_added := ARRAY(SELECT u.id FROM new_rows n JOIN old_rows o ON o.id = n.id
+                           JOIN users u ON u.row_key = n.user_key
+                          WHERE n.status = 2 AND (o.status <> 2 OR o.user_key <> n.user_key));
+        v_removed := ARRAY(SELECT u.id FROM old_rows o JOIN new_rows n ON n.id = o.id
+                             JOIN users u ON u.row_key = o.user_key
+                            WHERE o.status = 2 AND (n.status <> 2 OR n.user_key <> o.user_key));
+    END IF;
+
+    IF cardinality(v_added) + cardinality(v_removed) > 0 THEN
+        PERFORM adjust_completed_counts(v_added, v_removed, TG_TABLE_NAME = 'user_quest_progress');
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- 5. complete_task: same steps as V21, on row keys
+CREATE OR REPLACE FUNCTION complete_task(p_user_id VARCHAR, p_task_id VARCHAR)
+RETURNS TABLE (
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_progress         user_task_progress%ROWTYPE;
+    v_task             tasks%ROWTYPE;
+    v_quest_key        BIGINT;
+    v_quest_status     SMALLINT;
+    v_quest_done       INT;
+    v_quest_total      INT;
+    v_quest_completed  BOOLEAN := FALSE;
+    v_total_xp         INT;
+    v_completed_tasks  INT;
+    v_completed_quests INT;
+    v_outbox_id        BIGINT;
+BEGIN
+    SELECT * INTO v_task FROM tasks WHERE id = p_task_id;
+
+    SELECT utp.* INTO v_progress
+      FROM users u
+      JOIN user_task_progress utp ON utp.user_key = u.row_key
+     WHERE u.id = p_user_id AND utp.task_key = v_task.row_key
+       FOR UPDATE OF utp;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not started' USING ERRCODE = 'P0002';
+    END IF;
+
+    -- Already completed: report the current state without re-applying XP
+    IF v_progress.status = 2 THEN
+        RETURN QUERY SELECT v_progress.id, p_user_id, p_task_id, v_progress.status,
+                            v_progress.gained_xp, v_progress.updated_at, FALSE, v_task.quest_id,
+                            FALSE, NULL::INT, NULL::INT, NULL::INT, NULL::BIGINT;
+        RETURN;
+    END IF;
+
+    UPDATE user_task_progress
+       SET status = 2, gained_xp = v_task.xp_reward, updated_at = NOW()
+     WHERE id = v_progress.id
+    RETURNING * INTO v_progress;
+
+    INSERT INTO xp_ledger (user_id, task_id, delta)
+    VALUES (p_user_id, p_task_id, v_task.xp_reward);
+
+    UPDATE users
+       SET total_xp = total_xp + v_task.xp_reward
+     WHERE row_key = v_progress.user_key
+    RETURNING total_xp INTO v_total_xp;
+
+    SELECT row_key, task_count INTO v_quest_key, v_quest_total FROM quests WHERE id = v_task.quest_id;
+
+    INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+    VALUES (v_progress.user_key, v_quest_key, 1, v_task.xp_reward, 1)
+    ON CONFLICT (user_key, quest_key) DO UPDATE
+       SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+           completed_tasks = user_quest_progress.completed_tasks + 1,
+           updated_at      = NOW()
+    RETURNING status, completed_tasks INTO v_quest_status, v_quest_done;
+
+    -- Quest is complete once its completed-task count reaches the cached task total
+    IF v_quest_status <> 2 AND v_quest_done >= v_quest_total THEN
+        UPDATE user_quest_progress
+           SET status = 2, updated_at = NOW()
+         WHERE user_key = v_progress.user_key AND quest_key = v_quest_key;
+        v_quest_completed := TRUE;
+    END IF;
+
+    -- The counter triggers have applied this completion; the row stays locked until commit
+    SELECT completed_tasks, completed_quests INTO v_completed_tasks, v_completed_quests
+      FROM user_progress_counters
+     WHERE user_id = p_user_id;
+
+    -- Badge evaluation happens asynchronously; the outbox row commits with the completion
+    INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                    total_xp, gained_xp)
+    VALUES (p_user_id, v_completed_tasks, v_completed_quests, v_quest_completed,
+            COALESCE(v_total_xp, 0), v_task.xp_reward)
+    RETURNING id INTO v_outbox_id;
+
+    RETURN QUERY SELECT v_progress.id, p_user_id, p_task_id, v_progress.status,
+                        v_progress.gained_xp, v_progress.updated_at, TRUE, v_task.quest_id,
+                        v_quest_completed, v_total_xp, v_completed_tasks, v_completed_quests,
+                        v_outbox_id;
+END;
+$$;
+
+-- 6. complete_tasks: same steps as V22, on row keys. The batch's string IDs are
+-- resolved once; pairs naming an unknown user or task have no progress row and
+-- are reported as P0002 'Task not started' like before.
+CREATE OR REPLACE FUNCTION complete_tasks(p_user_ids VARCHAR[], p_task_ids VARCHAR[])
+RETURNS TABLE (
+    ord              INT,
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT,
+    error_state      TEXT,
+    error_message    TEXT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_ids         VARCHAR[];
+    v_users       BIGINT[];
+    v_tasks       BIGINT[];
+    v_quests      BIGINT[];
+    v_xp          INT[];
+    v_done_users  BIGINT[];
+    v_done_quests BIGINT[];
+BEGIN
+    PERFORM 1
+       FROM user_task_progress utp
+      WHERE (utp.user_key, utp.task_key) IN (SELECT u.row_key, t.row_key
+                                               FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+                                               JOIN users u ON u.id = b.user_id
+                                               JOIN tasks t ON t.id = b.task_id)
+      ORDER BY utp.user_key, utp.task_key
+        FOR UPDATE;
+
+    WITH pairs AS (
+        SELECT DISTINCT b.user_id, b.task_id, u.row_key AS user_key, t.row_key AS task_key,
+                        q.row_key AS quest_key, t.xp_reward
+          FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+          JOIN users u ON u.id = b.user_id
+          JOIN tasks t ON t.id = b.task_id
+          JOIN quests q ON q.id = t.quest_id
+    ),
+    completed AS (
+        UPDATE user_task_progress utp
+           SET status = 2, gained_xp = p.xp_reward, updated_at = NOW()
+          FROM pairs p
+         WHERE utp.user_key = p.user_key AND utp.task_key = p.task_key AND utp.status <> 2
+        RETURNING utp.id, p.user_id, p.task_id, utp.user_key, utp.task_key, p.quest_key, utp.gained_xp
+    ),
+    ledger AS (
+        INSERT INTO xp_ledger (user_id, task_id, delta)
+        SELECT c.user_id, c.task_id, c.gained_xp
+          FROM completed c
+         ORDER BY c.user_key, c.task_key
+    ),
+    xp AS (
+        UPDATE users u
+           SET total_xp = u.total_xp + g.xp
+          FROM (SELECT c.user_key, SUM(c.gained_xp)::INT AS xp FROM completed c GROUP BY c.user_key) g
+         WHERE u.row_key = g.user_key
+    ),
+    quest_xp AS (
+        INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+        SELECT c.user_key, c.quest_key, 1, SUM(c.gained_xp)::INT, COUNT(*)::INT
+          FROM completed c
+         GROUP BY c.user_key, c.quest_key
+         ORDER BY c.user_key, c.quest_key
+        ON CONFLICT (user_key, quest_key) DO UPDATE
+           SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+               completed_tasks = user_quest_progress.completed_tasks + EXCLUDED.completed_tasks,
+               updated_at      = NOW()
+    )
+    SELECT array_agg(c.id), array_agg(c.user_key), array_agg(c.task_key), array_agg(c.quest_key),
+           array_agg(c.gained_xp)
+      INTO v_ids, v_users, v_tasks, v_quests, v_xp
+      FROM completed c;
+
+    -- Quests are complete once their completed-task count reaches the cached task total
+    WITH finished AS (
+        UPDATE user_quest_progress uqp
+           SET status = 2, updated_at = NOW()
+          FROM quests q
+         WHERE q.row_key = uqp.quest_key
+           AND (uqp.user_key, uqp.quest_key) IN (SELECT d.user_key, d.quest_key
+                                                   FROM unnest(v_users, v_quests) AS d(user_key, quest_key))
+           AND uqp.status <> 2
+           AND uqp.completed_tasks >= q.task_count
+        RETURNING uqp.user_key, uqp.quest_key
+    )
+    SELECT array_agg(f.user_key), array_agg(f.quest_key)
+      INTO v_done_users, v_done_quests
+      FROM finished f;
+
+    RETURN QUERY
+    WITH pairs AS (
+        SELECT b.ord::INT AS ord, b.user_id, b.task_id,
+               row_number() OVER (PARTITION BY b.user_id, b.task_id ORDER BY b.ord) AS occurrence
+          FROM unnest(p_user_ids, p_task_ids) WITH ORDINALITY AS b(user_id, task_id, ord)
+    ),
+    done AS (
+        SELECT d.*,
+               -- the last completion of a quest finished by this batch is the one that finished it
+               f.quest_key IS NOT NULL
+                   AND row_number() OVER (PARTITION BY d.user_key, d.quest_key ORDER BY d.task_key DESC) = 1
+                   AS quest_completed
+          FROM unnest(v_ids, v_users, v_tasks, v_quests, v_xp) AS d(id, user_key, task_key, quest_key, gained_xp)
+          LEFT JOIN unnest(v_done_users, v_done_quests) AS f(user_key, quest_key)
+                 ON f.user_key = d.user_key AND f.quest_key = d.quest_key
+    ),
+    running AS (
+        -- totals after each completion: the final totals minus everything completed after it
+        SELECT d.id, u.id AS user_id, d.task_key, d.gained_xp, d.quest_completed,
+               (u.total_xp - COALESCE(SUM(d.gained_xp) OVER later, 0))::INT AS total_xp,
+               (c.completed_tasks - COUNT(*) OVER later)::INT AS completed_tasks,
+               (c.completed_quests - COALESCE(SUM(d.quest_completed::INT) OVER later, 0))::INT AS completed_quests
+          FROM done d
+          JOIN users u ON u.row_key = d.user_key
+          JOIN user_progress_counters c ON c.user_id = u.id
+        WINDOW later AS (PARTITION BY d.user_key ORDER BY d.task_key ROWS BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING)
+    ),
+    outbox AS (
+        -- Badge evaluation happens asynchronously; the outbox rows commit with the completions
+        INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                        total_xp, gained_xp)
+        SELECT r.user_id, r.completed_tasks, r.completed_quests, r.quest_completed, r.total_xp, r.gained_xp
+          FROM running r
+         ORDER BY r.user_id, r.task_key
+        RETURNING badge_award_outbox.id, badge_award_outbox.user_id, badge_award_outbox.completed_tasks
+    )
+    SELECT p.ord, utp.id, p.user_id, p.task_id, utp.status, utp.gained_xp, utp.updated_at,
+           r.id IS NOT NULL, t.quest_id, COALESCE(r.quest_completed, FALSE),
+           r.total_xp, r.completed_tasks, r.completed_quests, o.id,
+           CASE WHEN utp.id IS NULL THEN 'P0002'::TEXT END,
+           CASE WHEN utp.id IS NULL THEN 'Task not started'::TEXT END
+      FROM pairs p
+      LEFT JOIN users u ON u.id = p.user_id
+      LEFT JOIN tasks t ON t.id = p.task_id
+      LEFT JOIN user_task_progress utp ON utp.user_key = u.row_key AND utp.task_key = t.row_key
+      LEFT JOIN running r ON r.id = utp.id AND p.occurrence = 1
+      LEFT JOIN outbox o ON o.user_id = r.user_id AND o.completed_tasks = r.completed_tasks
+     ORDER BY p.ord;
+END;
+$$;
@@ -0,0 +1,186 @@
+-- V25__complete_tasks_import.sql
+-- Two fixes to complete_tasks for the bulk completion import:
+--   1. The running totals of each completion were derived in (user, task)
+--      order while the import applies the rows in batch order, so the last
+--      total the import saw for a user was often an intermediate one. Running
+--      totals, the completion that finishes a quest and the outbox rows now
+--      follow the batch order (ord).
+--   2. A pair without a progress row failed with 'Task not started'. An LMS
+--      dump mostly holds completions of tasks never started in the portal, so
+--      the import now passes p_start_missing = TRUE: the missing progress rows
+--      are inserted as IN_PROGRESS (1) in one statement, in (user, task) order,
+--      before the batch is locked and completed. With it, a pair naming an
+--      unknown user is reported as P0002 'User not found'.
+-- In both modes a pair naming an unknown task is reported as P0002
+-- 'Task not found', as complete_task did before V24.
+-- The write-behind batcher keeps the default p_start_missing = FALSE, so a
+-- batched completion still fails like complete_task when the task was never
+-- started.
+DROP FUNCTION complete_tasks(VARCHAR[], VARCHAR[]);
+
+CREATE FUNCTION complete_tasks(p_user_ids VARCHAR[], p_task_ids VARCHAR[],
+                               p_start_missing BOOLEAN DEFAULT FALSE)
+RETURNS TABLE (
+    ord              INT,
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT,
+    error_state      TEXT,
+    error_message    TEXT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_ids         VARCHAR[];
+    v_users       BIGINT[];
+    v_tasks       BIGINT[];
+    v_quests      BIGINT[];
+    v_xp          INT[];
+    v_done_users  BIGINT[];
+    v_done_quests BIGINT[];
+BEGIN
+    IF p_start_missing THEN
+        INSERT INTO user_task_progress (user_key, task_key, status, gained_xp, updated_at)
+        SELECT DISTINCT u.row_key, t.row_key, 1::SMALLINT, 0, NOW()
+          FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+          JOIN users u ON u.id = b.user_id
+          JOIN tasks t ON t.id = b.task_id
+         ORDER BY 1, 2
+        ON CONFLICT (user_key, task_key) DO NOTHING;
+    END IF;
+
+    PERFORM 1
+       FROM user_task_progress utp
+      WHERE (utp.user_key, utp.task_key) IN (SELECT u.row_key, t.row_key
+                                               FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+                                               JOIN users u ON u.id = b.user_id
+                                               JOIN tasks t ON t.id = b.task_id)
+      ORDER BY utp.user_key, utp.task_key
+        FOR UPDATE;
+
+    WITH pairs AS (
+        SELECT DISTINCT b.user_id, b.task_id, u.row_key AS user_key, t.row_key AS task_key,
+                        q.row_key AS quest_key, t.xp_reward
+          FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+          JOIN users u ON u.id = b.user_id
+          JOIN tasks t ON t.id = b.task_id
+          JOIN quests q ON q.id = t.quest_id
+    ),
+    completed AS (
+        UPDATE user_task_progress utp
+           SET status = 2, gained_xp = p.xp_reward, updated_at = NOW()
+          FROM pairs p
+         WHERE utp.user_key = p.user_key AND utp.task_key = p.task_key AND utp.status <> 2
+        RETURNING utp.id, p.user_id, p.task_id, utp.user_key, utp.task_key, p.quest_key, utp.gained_xp
+    ),
+    ledger AS (
+        INSERT INTO xp_ledger (user_id, task_id, delta)
+        SELECT c.user_id, c.task_id, c.gained_xp
+          FROM completed c
+         ORDER BY c.user_key, c.task_key
+    ),
+    xp AS (
+        UPDATE users u
+           SET total_xp = u.total_xp + g.xp
+          FROM (SELECT c.user_key, SUM(c.gained_xp)::INT AS xp FROM completed c GROUP BY c.user_key) g
+         WHERE u.row_key = g.user_key
+    ),
+    quest_xp AS (
+        INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+        SELECT c.user_key, c.quest_key, 1, SUM(c.gained_xp)::INT, COUNT(*)::INT
+          FROM completed c
+         GROUP BY c.user_key, c.quest_key
+         ORDER BY c.user_key, c.quest_key
+        ON CONFLICT (user_key, quest_key) DO UPDATE
+           SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+               completed_tasks = user_quest_progress.completed_tasks + EXCLUDED.completed_tasks,
+               updated_at      = NOW()
+    )
+    SELECT array_agg(c.id), array_agg(c.user_key), array_agg(c.task_key), array_agg(c.quest_key),
+           array_agg(c.gained_xp)
+      INTO v_ids, v_users, v_tasks, v_quests, v_xp
+      FROM completed c;
+
+    -- Quests are complete once their completed-task count reaches the cached task total
+    WITH finished AS (
+        UPDATE user_quest_progress uqp
+           SET status = 2, updated_at = NOW()
+          FROM quests q
+         WHERE q.row_key = uqp.quest_key
+           AND (uqp.user_key, uqp.quest_key) IN (SELECT d.user_key, d.quest_key
+                                                   FROM unnest(v_users, v_quests) AS d(user_key, quest_key))
+           AND uqp.status <> 2
+           AND uqp.completed_tasks >= q.task_count
+        RETURNING uqp.user_key, uqp.quest_key
+    )
+    SELECT array_agg(f.user_key), array_agg(f.quest_key)
+      INTO v_done_users, v_done_quests
+      FROM finished f;
+
+    RETURN QUERY
+    WITH pairs AS (
+        SELECT b.ord::INT AS ord, b.user_id, b.task_id,
+               row_number() OVER (PARTITION BY b.user_id, b.task_id ORDER BY b.ord) AS occurrence
+          FROM unnest(p_user_ids, p_task_ids) WITH ORDINALITY AS b(user_id, task_id, ord)
+    ),
+    done AS (
+        -- each completion with the batch position of its pair's first occurrence
+        SELECT d.*, u.id AS user_id, p.ord,
+               -- the last completion of a quest finished by this batch is the one that finished it
+               f.quest_key IS NOT NULL
+                   AND row_number() OVER (PARTITION BY d.user_key, d.quest_key ORDER BY p.ord DESC) = 1
+                   AS quest_completed
+          FROM unnest(v_ids, v_users, v_tasks, v_quests, v_xp) AS d(id, user_key, task_key, quest_key, gained_xp)
+          JOIN users u ON u.row_key = d.user_key
+          JOIN tasks t ON t.row_key = d.task_key
+          JOIN pairs p ON p.user_id = u.id AND p.task_id = t.id AND p.occurrence = 1
+          LEFT JOIN unnest(v_done_users, v_done_quests) AS f(user_key, quest_key)
+                 ON f.user_key = d.user_key AND f.quest_key = d.quest_key
+    ),
+    running AS (
+        -- totals after each completion: the final totals minus everything completed after it
+        SELECT d.id, d.user_id, d.ord, d.gained_xp, d.quest_completed,
+               (u.total_xp - COALESCE(SUM(d.gained_xp) OVER later, 0))::INT AS total_xp,
+               (c.completed_tasks - COUNT(*) OVER later)::INT AS completed_tasks,
+               (c.completed_quests - COALESCE(SUM(d.quest_completed::INT) OVER later, 0))::INT AS completed_quests
+          FROM done d
+          JOIN users u ON u.row_key = d.user_key
+          JOIN user_progress_counters c ON c.user_id = d.user_id
+        WINDOW later AS (PARTITION BY d.user_key ORDER BY d.ord ROWS BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING)
+    ),
+    outbox AS (
+        -- Badge evaluation happens asynchronously; the outbox rows commit with the completions
+        INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                        total_xp, gained_xp)
+        SELECT r.user_id, r.completed_tasks, r.completed_quests, r.quest_completed, r.total_xp, r.gained_xp
+          FROM running r
+         ORDER BY r.user_id, r.ord
+        RETURNING badge_award_outbox.id, badge_award_outbox.user_id, badge_award_outbox.completed_tasks
+    )
+    SELECT p.ord, utp.id, p.user_id, p.task_id, utp.status, utp.gained_xp, utp.updated_at,
+           r.id IS NOT NULL, t.quest_id, COALESCE(r.quest_completed, FALSE),
+           r.total_xp, r.completed_tasks, r.completed_quests, o.id,
+           CASE WHEN utp.id IS NULL THEN 'P0002'::TEXT END,
+           CASE WHEN utp.id IS NOT NULL THEN NULL
+                WHEN t.row_key IS NULL THEN 'Task not found'::TEXT
+                WHEN u.row_key IS NULL AND p_start_missing THEN 'User not found'::TEXT
+                ELSE 'Task not started'::TEXT END
+      FROM pairs p
+      LEFT JOIN users u ON u.id = p.user_id
+      LEFT JOIN tasks t ON t.id = p.task_id
+      LEFT JOIN user_task_progress utp ON utp.user_key = u.row_key AND utp.task_key = t.row_key
+      LEFT JOIN running r ON r.id = utp.id AND p.occurrence = 1
+      LEFT JOIN outbox o ON o.user_id = r.user_id AND o.completed_tasks = r.completed_tasks
+     ORDER BY p.ord;
+END;
+$$;
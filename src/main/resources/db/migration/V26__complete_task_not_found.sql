@@ -0,0 +1,126 @@
+-- V26__complete_task_not_found.sql
+-- V24 looks the task up before the progress row, to get its row key, but it
+-- dropped the check that the task exists. An unknown task then had no progress
+-- row and was reported as 'Task not started'. It is reported as P0002
+-- 'Task not found' again, as before V24.
+--
+-- Scope of the V24 re-keying, for the record:
+--   * Only the references held by user_task_progress, user_quest_progress and
+--     user_badges moved to BIGINT row keys. These are the tables with one row
+--     per user and task, quest or badge, and their indexes were the ones that
+--     grew. users, tasks, quests and badges keep their VARCHAR primary keys,
+--     with row_key as an extra identity column, because every other table,
+--     the entities and the REST API still reference them by string ID.
+--   * The three tables also keep their own VARCHAR id primary key. The id is
+--     part of the REST contract (UserTaskProgress.id, UserQuestProgress.id),
+--     and existing ids are UUIDs that cannot be derived from a row key.
+--   * Entity saves and deletes through user_task_progress_view and
+--     user_quest_progress_view run a row-level INSTEAD OF trigger that looks up
+--     the two row keys by primary key. The hot paths (complete_task,
+--     complete_tasks, upsertStarted, badge awards) write the tables directly
+--     and do not pay for it.
+--   * ProgressKeyBenchmarkTest measures index sizes and lookup latency before
+--     and after V24 on a seeded database (KEY_BENCHMARK_DB_URL). No results are
+--     recorded yet.
+CREATE OR REPLACE FUNCTION complete_task(p_user_id VARCHAR, p_task_id VARCHAR)
+RETURNS TABLE (
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_progress         user_task_progress%ROWTYPE;
+    v_task             tasks%ROWTYPE;
+    v_quest_key        BIGINT;
+    v_quest_status     SMALLINT;
+    v_quest_done       INT;
+    v_quest_total      INT;
+    v_quest_completed  BOOLEAN := FALSE;
+    v_total_xp         INT;
+    v_completed_tasks  INT;
+    v_completed_quests INT;
+    v_outbox_id        BIGINT;
+BEGIN
+    SELECT * INTO v_task FROM tasks WHERE id = p_task_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not found' USING ERRCODE = 'P0002';
+    END IF;
+
+    SELECT utp.* INTO v_progress
+      FROM users u
+      JOIN user_task_progress utp ON utp.user_key = u.row_key
+     WHERE u.id = p_user_id AND utp.task_key = v_task.row_key
+       FOR UPDATE OF utp;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not started' USING ERRCODE = 'P0002';
+    END IF;
+
+    -- Already completed: report the current state without re-applying XP
+    IF v_progress.status = 2 THEN
+        RETURN QUERY SELECT v_progress.id, p_user_id, p_task_id, v_progress.status,
+                            v_progress.gained_xp, v_progress.updated_at, FALSE, v_task.quest_id,
+                            FALSE, NULL::INT, NULL::INT, NULL::INT, NULL::BIGINT;
+        RETURN;
+    END IF;
+
+    UPDATE user_task_progress
+       SET status = 2, gained_xp = v_task.xp_reward, updated_at = NOW()
+     WHERE id = v_progress.id
+    RETURNING * INTO v_progress;
+
+    INSERT INTO xp_ledger (user_id, task_id, delta)
+    VALUES (p_user_id, p_task_id, v_task.xp_reward);
+
+    UPDATE users
+       SET total_xp = total_xp + v_task.xp_reward
+     WHERE row_key = v_progress.user_key
+    RETURNING total_xp INTO v_total_xp;
+
+    SELECT row_key, task_count INTO v_quest_key, v_quest_total FROM quests WHERE id = v_task.quest_id;
+
+    INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+    VALUES (v_progress.user_key, v_quest_key, 1, v_task.xp_reward, 1)
+    ON CONFLICT (user_key, quest_key) DO UPDATE
+       SET gained_xp       = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+           completed_tasks = user_quest_progress.completed_tasks + 1,
+           updated_at      = NOW()
+    RETURNING status, completed_tasks INTO v_quest_status, v_quest_done;
+
+    -- Quest is complete once its completed-task count reaches the cached task total
+    IF v_quest_status <> 2 AND v_quest_done >= v_quest_total THEN
+        UPDATE user_quest_progress
+           SET status = 2, updated_at = NOW()
+         WHERE user_key = v_progress.user_key AND quest_key = v_quest_key;
+        v_quest_completed := TRUE;
+    END IF;
+
+    -- The counter triggers have applied this completion; the row stays locked until commit
+    SELECT completed_tasks, completed_quests INTO v_completed_tasks, v_completed_quests
+      FROM user_progress_counters
+     WHERE user_id = p_user_id;
+
+    -- Badge evaluation happens asynchronously; the outbox row commits with the completion
+    INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                    total_xp, gained_xp)
+    VALUES (p_user_id, v_completed_tasks, v_completed_quests, v_quest_completed,
+            COALESCE(v_total_xp, 0), v_task.xp_reward)
+    RETURNING id INTO v_outbox_id;
+
+    RETURN QUERY SELECT v_progress.id, p_user_id, p_task_id, v_progress.status,
+                        v_progress.gained_xp, v_progress.updated_at, TRUE, v_task.quest_id,
+                        v_quest_completed, v_total_xp, v_completed_tasks, v_completed_quests,
+                        v_outbox_id;
+END;
+$$;
@@ -0,0 +1,475 @@
+-- V27__quest_counter_triggers.sql
+-- quests.task_count was adjusted by TaskService and
+-- user_quest_progress.completed_tasks only by complete_task and
+-- complete_tasks. Other writes left them wrong:
+--   * deleting a task lowered task_count, but the users' completions of it
+--     stayed counted in completed_tasks;
+--   * moving a task to another quest did not move its completions, and
+--     TaskService skipped the task_count move when it had no previous quest;
+--   * a status edit through the progress endpoints (COMPLETED -> IN_PROGRESS)
+--     never decremented completed_tasks.
+-- Like the V21 per-user counters, both counters now follow the rows
+-- themselves through statement-level triggers:
+--   * tasks: task_count follows inserts, deletes and quest moves, and a quest
+--     move also moves the task's completions between the two quests;
+--   * user_task_progress: completed_tasks follows the rows that enter or
+--     leave COMPLETED (2), or change user or task while completed.
+-- Deleting a task first deletes its progress rows, which uncounts them in
+-- completed_tasks and in user_progress_counters.
+-- Quest statuses are not re-evaluated when the counts change; a quest is
+-- still completed by complete_task or complete_tasks only.
+
+-- Adds p_deltas[i] completed tasks to (p_user_keys[i], p_quest_keys[i]), creating
+-- the quest progress row for positive counts, in (user, quest) order.
+CREATE FUNCTION adjust_quest_completions(p_user_keys BIGINT[], p_quest_keys BIGINT[], p_deltas INT[])
+RETURNS VOID
+LANGUAGE sql AS $$
+    INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+    SELECT d.user_key, d.quest_key, 1, 0, SUM(d.delta)::INT
+      FROM unnest(p_user_keys, p_quest_keys, p_deltas) AS d(user_key, quest_key, delta)
+     GROUP BY d.user_key, d.quest_key
+    HAVING SUM(d.delta) > 0
+     ORDER BY d.user_key, d.quest_key
+    ON CONFLICT (user_key, quest_key) DO UPDATE
+       SET completed_tasks = user_quest_progress.completed_tasks + EXCLUDED.completed_tasks,
+           updated_at      = NOW();
+
+    UPDATE user_quest_progress uqp
+       SET completed_tasks = GREATEST(uqp.completed_tasks + d.delta, 0),
+           updated_at      = NOW()
+      FROM (SELECT r.user_key, r.quest_key, SUM(r.delta)::INT AS delta
+              FROM unnest(p_user_keys, p_quest_keys, p_deltas) AS r(user_key, quest_key, delta)
+             GROUP BY r.user_key, r.quest_key
+            HAVING SUM(r.delta) < 0) d
+     WHERE uqp.user_key = d.user_key AND uqp.quest_key = d.quest_key;
+$$;
+
+-- Counts task completions into the quest of the completed task
+CREATE FUNCTION count_completed_quest_tasks() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_user_keys  BIGINT[];
+    v_quest_keys BIGINT[];
+    v_deltas     INT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(n.user_key), array_agg(q.row_key), array_agg(1)
+          INTO v_user_keys, v_quest_keys, v_deltas
+          FROM new_rows n
+          JOIN tasks t ON t.row_key = n.task_key
+          JOIN quests q ON q.id = t.quest_id
+         WHERE n.status = 2;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(o.user_key), array_agg(q.row_key), array_agg(-1)
+          INTO v_user_keys, v_quest_keys, v_deltas
+          FROM old_rows o
+          JOIN tasks t ON t.row_key = o.task_key
+          JOIN quests q ON q.id = t.quest_id
+         WHERE o.status = 2;
+    ELSE
+        SELECT array_agg(c.user_key), array_agg(q.row_key), array_agg(c.delta)
+          INTO v_user_keys, v_quest_keys, v_deltas
+          FROM (SELECT n.user_key, n.task_key, 1 AS delta
+                  FROM new_rows n JOIN old_rows o ON o.id = n.id
+                 WHERE n.status = 2
+                   AND (o.status <> 2 OR o.user_key <> n.user_key OR o.task_key <> n.task_key)
+                UNION ALL
+                SELECT o.user_key, o.task_key, -1
+                  FROM old_rows o JOIN new_rows n ON n.id = o.id
+                 WHERE o.status = 2
+                   AND (n.status <> 2 OR n.user_key <> o.user_key OR n.task_key <> o.task_key)) c
+          JOIN tasks t ON t.row_key = c.task_key
+          JOIN quests q ON q.id = t.quest_id;
+    END IF;
+
+    IF v_user_keys IS NOT NULL THEN
+        PERFORM adjust_quest_completions(v_user_keys, v_quest_keys, v_deltas);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER user_task_progress_count_quest_insert
+    AFTER INSERT ON user_task_progress REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_quest_tasks();
+
+CREATE TRIGGER user_task_progress_count_quest_update
+    AFTER UPDATE ON user_task_progress REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_quest_tasks();
+
+CREATE TRIGGER user_task_progress_count_quest_delete
+    AFTER DELETE ON user_task_progress REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_completed_quest_tasks();
+
+-- Keeps quests.task_count in step with the tasks, and moves the completions
+-- of tasks that changed quest
+CREATE FUNCTION count_quest_tasks() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_user_keys  BIGINT[];
+    v_quest_keys BIGINT[];
+    v_deltas     INT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE quests q
+           SET task_count = q.task_count + d.added
+          FROM (SELECT n.quest_id, COUNT(*)::INT AS added FROM new_rows n GROUP BY n.quest_id) d
+         WHERE q.id = d.quest_id;
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE quests q
+           SET task_count = GREATEST(q.task_count - d.removed, 0)
+          FROM (SELECT o.quest_id, COUNT(*)::INT AS removed FROM old_rows o GROUP BY o.quest_id) d
+         WHERE q.id = d.quest_id;
+    ELSE
+        UPDATE quests q
+           SET task_count = GREATEST(q.task_count + d.delta, 0)
+          FROM (SELECT m.quest_id, SUM(m.delta)::INT AS delta
+                  FROM (SELECT n.quest_id, 1 AS delta
+                          FROM new_rows n JOIN old_rows o ON o.row_key = n.row_key
+                         WHERE o.quest_id <> n.quest_id
+                        UNION ALL
+                        SELECT o.quest_id, -1
+                          FROM old_rows o JOIN new_rows n ON n.row_key = o.row_key
+                         WHERE o.quest_id <> n.quest_id) m
+                 GROUP BY m.quest_id) d
+         WHERE q.id = d.quest_id;
+
+        SELECT array_agg(c.user_key), array_agg(c.quest_key), array_agg(c.delta)
+          INTO v_user_keys, v_quest_keys, v_deltas
+          FROM (SELECT utp.user_key, nq.row_key AS quest_key, 1 AS delta
+                  FROM new_rows n
+                  JOIN old_rows o ON o.row_key = n.row_key AND o.quest_id <> n.quest_id
+                  JOIN quests nq ON nq.id = n.quest_id
+                  JOIN user_task_progress utp ON utp.task_key = n.row_key AND utp.status = 2
+                UNION ALL
+                SELECT utp.user_key, oq.row_key, -1
+                  FROM new_rows n
+                  JOIN old_rows o ON o.row_key = n.row_key AND o.quest_id <> n.quest_id
+                  JOIN quests oq ON oq.id = o.quest_id
+                  JOIN user_task_progress utp ON utp.task_key = n.row_key AND utp.status = 2) c;
+
+        IF v_user_keys IS NOT NULL THEN
+            PERFORM adjust_quest_completions(v_user_keys, v_quest_keys, v_deltas);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER tasks_count_insert
+    AFTER INSERT ON tasks REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_quest_tasks();
+
+CREATE TRIGGER tasks_count_update
+    AFTER UPDATE ON tasks REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_quest_tasks();
+
+CREATE TRIGGER tasks_count_delete
+    AFTER DELETE ON tasks REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_quest_tasks();
+
+-- Runs while the task still exists, so the progress triggers can still map
+-- the deleted rows to the task's quest
+CREATE FUNCTION delete_task_progress() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM user_task_progress WHERE task_key = OLD.row_key;
+    RETURN OLD;
+END;
+$$;
+
+CREATE TRIGGER tasks_delete_progress
+    BEFORE DELETE ON tasks
+    FOR EACH ROW EXECUTE FUNCTION delete_task_progress();
+
+-- Resynchronise counters that drifted before the triggers existed
+UPDATE quests q
+   SET task_count = c.tasks
+  FROM (SELECT q2.id, (SELECT COUNT(*) FROM tasks t WHERE t.quest_id = q2.id)::INT AS tasks
+          FROM quests q2) c
+ WHERE c.id = q.id AND c.tasks <> q.task_count;
+
+UPDATE user_quest_progress uqp
+   SET completed_tasks = c.done
+  FROM (SELECT uqp2.id,
+               (SELECT COUNT(*)
+                  FROM user_task_progress utp
+                  JOIN tasks t ON t.row_key = utp.task_key
+                  JOIN quests q ON q.id = t.quest_id
+                 WHERE utp.user_key = uqp2.user_key
+                   AND q.row_key = uqp2.quest_key
+                   AND utp.status = 2)::INT AS done
+          FROM user_quest_progress uqp2) c
+ WHERE c.id = uqp.id AND c.done <> uqp.completed_tasks;
+
+-- complete_task and complete_tasks: same as V26 and V25, except that the quest
+-- progress upsert no longer counts the completion itself
+CREATE OR REPLACE FUNCTION complete_task(p_user_id VARCHAR, p_task_id VARCHAR)
+RETURNS TABLE (
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_progress         user_task_progress%ROWTYPE;
+    v_task             tasks%ROWTYPE;
+    v_quest_key        BIGINT;
+    v_quest_status     SMALLINT;
+    v_quest_done       INT;
+    v_quest_total      INT;
+    v_quest_completed  BOOLEAN := FALSE;
+    v_total_xp         INT;
+    v_completed_tasks  INT;
+    v_completed_quests INT;
+    v_outbox_id        BIGINT;
+BEGIN
+    SELECT * INTO v_task FROM tasks WHERE id = p_task_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not found' USING ERRCODE = 'P0002';
+    END IF;
+
+    SELECT utp.* INTO v_progress
+      FROM users u
+      JOIN user_task_progress utp ON utp.user_key = u.row_key
+     WHERE u.id = p_user_id AND utp.task_key = v_task.row_key
+       FOR UPDATE OF utp;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not started' USING ERRCODE = 'P0002';
+    END IF;
+
+    -- Already completed: report the current state without re-applying XP
+    IF v_progress.status = 2 THEN
+        RETURN QUERY SELECT v_progress.id, p_user_id, p_task_id, v_progress.status,
+                            v_progress.gained_xp, v_progress.updated_at, FALSE, v_task.quest_id,
+                            FALSE, NULL::INT, NULL::INT, NULL::INT, NULL::BIGINT;
+        RETURN;
+    END IF;
+
+    UPDATE user_task_progress
+       SET status = 2, gained_xp = v_task.xp_reward, updated_at = NOW()
+     WHERE id = v_progress.id
+    RETURNING * INTO v_progress;
+
+    INSERT INTO xp_ledger (user_id, task_id, delta)
+    VALUES (p_user_id, p_task_id, v_task.xp_reward);
+
+    UPDATE users
+       SET total_xp = total_xp + v_task.xp_reward
+     WHERE row_key = v_progress.user_key
+    RETURNING total_xp INTO v_total_xp;
+
+    SELECT row_key, task_count INTO v_quest_key, v_quest_total FROM quests WHERE id = v_task.quest_id;
+
+    -- The progress update above already counted the completion in completed_tasks
+    INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+    VALUES (v_progress.user_key, v_quest_key, 1, v_task.xp_reward, 0)
+    ON CONFLICT (user_key, quest_key) DO UPDATE
+       SET gained_xp  = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+           updated_at = NOW()
+    RETURNING status, completed_tasks INTO v_quest_status, v_quest_done;
+
+    -- Quest is complete once its completed-task count reaches the cached task total
+    IF v_quest_status <> 2 AND v_quest_done >= v_quest_total THEN
+        UPDATE user_quest_progress
+           SET status = 2, updated_at = NOW()
+         WHERE user_key = v_progress.user_key AND quest_key = v_quest_key;
+        v_quest_completed := TRUE;
+    END IF;
+
+    -- The counter triggers have applied this completion; the row stays locked until commit
+    SELECT completed_tasks, completed_quests INTO v_completed_tasks, v_completed_quests
+      FROM user_progress_counters
+     WHERE user_id = p_user_id;
+
+    -- Badge evaluation happens asynchronously; the outbox row commits with the completion
+    INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                    total_xp, gained_xp)
+    VALUES (p_user_id, v_completed_tasks, v_completed_quests, v_quest_completed,
+            COALESCE(v_total_xp, 0), v_task.xp_reward)
+    RETURNING id INTO v_outbox_id;
+
+    RETURN QUERY SELECT v_progress.id, p_user_id, p_task_id, v_progress.status,
+                        v_progress.gained_xp, v_progress.updated_at, TRUE, v_task.quest_id,
+                        v_quest_completed, v_total_xp, v_completed_tasks, v_completed_quests,
+                        v_outbox_id;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION complete_tasks(p_user_ids VARCHAR[], p_task_ids VARCHAR[],
+                               p_start_missing BOOLEAN DEFAULT FALSE)
+RETURNS TABLE (
+    ord              INT,
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           SMALLINT,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT,
+    outbox_id        BIGINT,
+    error_state      TEXT,
+    error_message    TEXT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_ids         VARCHAR[];
+    v_users       BIGINT[];
+    v_tasks       BIGINT[];
+    v_quests      BIGINT[];
+    v_xp          INT[];
+    v_done_users  BIGINT[];
+    v_done_quests BIGINT[];
+BEGIN
+    IF p_start_missing THEN
+        INSERT INTO user_task_progress (user_key, task_key, status, gained_xp, updated_at)
+        SELECT DISTINCT u.row_key, t.row_key, 1::SMALLINT, 0, NOW()
+          FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+          JOIN users u ON u.id = b.user_id
+          JOIN tasks t ON t.id = b.task_id
+         ORDER BY 1, 2
+        ON CONFLICT (user_key, task_key) DO NOTHING;
+    END IF;
+
+    PERFORM 1
+       FROM user_task_progress utp
+      WHERE (utp.user_key, utp.task_key) IN (SELECT u.row_key, t.row_key
+                                               FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+                                               JOIN users u ON u.id = b.user_id
+                                               JOIN tasks t ON t.id = b.task_id)
+      ORDER BY utp.user_key, utp.task_key
+        FOR UPDATE;
+
+    WITH pairs AS (
+        SELECT DISTINCT b.user_id, b.task_id, u.row_key AS user_key, t.row_key AS task_key,
+                        q.row_key AS quest_key, t.xp_reward
+          FROM unnest(p_user_ids, p_task_ids) AS b(user_id, task_id)
+          JOIN users u ON u.id = b.user_id
+          JOIN tasks t ON t.id = b.task_id
+          JOIN quests q ON q.id = t.quest_id
+    ),
+    completed AS (
+        UPDATE user_task_progress utp
+           SET status = 2, gained_xp = p.xp_reward, updated_at = NOW()
+          FROM pairs p
+         WHERE utp.user_key = p.user_key AND utp.task_key = p.task_key AND utp.status <> 2
+        RETURNING utp.id, p.user_id, p.task_id, utp.user_key, utp.task_key, p.quest_key, utp.gained_xp
+    ),
+    ledger AS (
+        INSERT INTO xp_ledger (user_id, task_id, delta)
+        SELECT c.user_id, c.task_id, c.gained_xp
+          FROM completed c
+         ORDER BY c.user_key, c.task_key
+    ),
+    xp AS (
+        UPDATE users u
+           SET total_xp = u.total_xp + g.xp
+          FROM (SELECT c.user_key, SUM(c.gained_xp)::INT AS xp FROM completed c GROUP BY c.user_key) g
+         WHERE u.row_key = g.user_key
+    ),
+    quest_xp AS (
+        -- completed_tasks is counted by the trigger once this statement has finished
+        INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+        SELECT c.user_key, c.quest_key, 1, SUM(c.gained_xp)::INT, 0
+          FROM completed c
+         GROUP BY c.user_key, c.quest_key
+         ORDER BY c.user_key, c.quest_key
+        ON CONFLICT (user_key, quest_key) DO UPDATE
+           SET gained_xp  = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+               updated_at = NOW()
+    )
+    SELECT array_agg(c.id), array_agg(c.user_key), array_agg(c.task_key), array_agg(c.quest_key),
+           array_agg(c.gained_xp)
+      INTO v_ids, v_users, v_tasks, v_quests, v_xp
+      FROM completed c;
+
+    -- Quests are complete once their completed-task count reaches the cached task total
+    WITH finished AS (
+        UPDATE user_quest_progress uqp
+           SET status = 2, updated_at = NOW()
+          FROM quests q
+         WHERE q.row_key = uqp.quest_key
+           AND (uqp.user_key, uqp.quest_key) IN (SELECT d.user_key, d.quest_key
+                                                   FROM unnest(v_users, v_quests) AS d(user_key, quest_key))
+           AND uqp.status <> 2
+           AND uqp.completed_tasks >= q.task_count
+        RETURNING uqp.user_key, uqp.quest_key
+    )
+    SELECT array_agg(f.user_key), array_agg(f.quest_key)
+      INTO v_done_users, v_done_quests
+      FROM finished f;
+
+    RETURN QUERY
+    WITH pairs AS (
+        SELECT b.ord::INT AS ord, b.user_id, b.task_id,
+               row_number() OVER (PARTITION BY b.user_id, b.task_id ORDER BY b.ord) AS occurrence
+          FROM unnest(p_user_ids, p_task_ids) WITH ORDINALITY AS b(user_id, task_id, ord)
+    ),
+    done AS (
+        -- each completion with the batch position of its pair's first occurrence
+        SELECT d.*, u.id AS user_id, p.ord,
+               -- the last completion of a quest finished by this batch is the one that finished it
+               f.quest_key IS NOT NULL
+                   AND row_number() OVER (PARTITION BY d.user_key, d.quest_key ORDER BY p.ord DESC) = 1
+                   AS quest_completed
+          FROM unnest(v_ids, v_users, v_tasks, v_quests, v_xp) AS d(id, user_key, task_key, quest_key, gained_xp)
+          JOIN users u ON u.row_key = d.user_key
+          JOIN tasks t ON t.row_key = d.task_key
+          JOIN pairs p ON p.user_id = u.id AND p.task_id = t.id AND p.occurrence = 1
+          LEFT JOIN unnest(v_done_users, v_done_quests) AS f(user_key, quest_key)
+                 ON f.user_key = d.user_key AND f.quest_key = d.quest_key
+    ),
+    running AS (
+        -- totals after each completion: the final totals minus everything completed after it
+        SELECT d.id, d.user_id, d.ord, d.gained_xp, d.quest_completed,
+               (u.total_xp - COALESCE(SUM(d.gained_xp) OVER later, 0))::INT AS total_xp,
+               (c.completed_tasks - COUNT(*) OVER later)::INT AS completed_tasks,
+               (c.completed_quests - COALESCE(SUM(d.quest_completed::INT) OVER later, 0))::INT AS completed_quests
+          FROM done d
+          JOIN users u ON u.row_key = d.user_key
+          JOIN user_progress_counters c ON c.user_id = d.user_id
+        WINDOW later AS (PARTITION BY d.user_key ORDER BY d.ord ROWS BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING)
+    ),
+    outbox AS (
+        -- Badge evaluation happens asynchronously; the outbox rows commit with the completions
+        INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                        total_xp, gained_xp)
+        SELECT r.user_id, r.completed_tasks, r.completed_quests, r.quest_completed, r.total_xp, r.gained_xp
+          FROM running r
+         ORDER BY r.user_id, r.ord
+        RETURNING badge_award_outbox.id, badge_award_outbox.user_id, badge_award_outbox.completed_tasks
+    )
+    SELECT p.ord, utp.id, p.user_id, p.task_id, utp.status, utp.gained_xp, utp.updated_at,
+           r.id IS NOT NULL, t.quest_id, COALESCE(r.quest_completed, FALSE),
+           r.total_xp, r.completed_tasks, r.completed_quests, o.id,
+           CASE WHEN utp.id IS NULL THEN 'P0002'::TEXT END,
+           CASE WHEN utp.id IS NOT NULL THEN NULL
+                WHEN t.row_key IS NULL THEN 'Task not found'::TEXT
+                WHEN u.row_key IS NULL AND p_start_missing THEN 'User not found'::TEXT
+                ELSE 'Task not started'::TEXT END
+      FROM pairs p
+      LEFT JOIN users u ON u.id = p.user_id
+      LEFT JOIN tasks t ON t.id = p.task_id
+      LEFT JOIN user_task_progress utp ON utp.user_key = u.row_key AND utp.task_key = t.row_key
+      LEFT JOIN running r ON r.id = utp.id AND p.occurrence = 1
+      LEFT JOIN outbox o ON o.user_id = r.user_id AND o.completed_tasks = r.completed_tasks
+     ORDER BY p.ord;
+END;
+$$;
@@ -0,0 +1,13 @@
+-- V28__completed_progress_index.sql
+-- Partial index over COMPLETED (2) task progress, keyed by task. When a task
+-- moves to another quest, the V27 tasks trigger looks up the users who
+-- completed it to move their completions between the quests. Without an index
+-- on task_key that lookup read the whole of user_task_progress.
+--
+-- The per-user lookups on COMPLETED rows need no partial index of their own.
+-- Completed tasks and quests of a user, and of a user within one quest, are
+-- bounded by the user's rows. They are served by UNIQUE (user_key, task_key)
+-- INCLUDE (status) and UNIQUE (user_key, quest_key), and QueryPlanGuardTest
+-- checks that none of them falls back to a sequential scan.
+CREATE INDEX idx_user_task_progress_completed_task ON user_task_progress (task_key)
+    INCLUDE (user_key) WHERE status = 2;
@@ -0,0 +1,115 @@
+-- V8__user_progress_counters.sql
+-- Per-user progress counters maintained by complete_task so milestone checks
+-- and completion status read O(1) state instead of counting progress rows.
+CREATE TABLE user_progress_counters (
+    user_id          VARCHAR(100) PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    completed_tasks  INT         NOT NULL DEFAULT 0,
+    completed_quests INT         NOT NULL DEFAULT 0,
+    total_xp         INT         NOT NULL DEFAULT 0,
+    updated_at       TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO user_progress_counters (user_id, completed_tasks, completed_quests, total_xp)
+SELECT u.id,
+       (SELECT count(*) FROM user_task_progress utp
+         WHERE utp.user_id = u.id AND utp.status = 'COMPLETED'),
+       (SELECT count(*) FROM user_quest_progress uqp
+         WHERE uqp.user_id = u.id AND uqp.status = 'COMPLETED'),
+       (SELECT COALESCE(sum(utp.gained_xp), 0) FROM user_task_progress utp
+         WHERE utp.user_id = u.id AND utp.status = 'COMPLETED')
+  FROM users u;
+
+DROP FUNCTION IF EXISTS complete_task(VARCHAR, VARCHAR);
+
+CREATE FUNCTION complete_task(p_user_id VARCHAR, p_task_id VARCHAR)
+RETURNS TABLE (
+    id               VARCHAR,
+    user_id          VARCHAR,
+    task_id          VARCHAR,
+    status           VARCHAR,
+    gained_xp        INT,
+    updated_at       TIMESTAMPTZ,
+    newly_completed  BOOLEAN,
+    quest_id         VARCHAR,
+    quest_completed  BOOLEAN,
+    total_xp         INT,
+    completed_tasks  INT,
+    completed_quests INT
+)
+LANGUAGE plpgsql AS $$
+#variable_conflict use_column
+DECLARE
+    v_progress         user_task_progress%ROWTYPE;
+    v_task             tasks%ROWTYPE;
+    v_quest_status     VARCHAR(50);
+    v_quest_completed  BOOLEAN := FALSE;
+    v_total_xp         INT;
+    v_completed_tasks  INT;
+    v_completed_quests INT;
+BEGIN
+    SELECT * INTO v_progress
+      FROM user_task_progress
+     WHERE user_id = p_user_id AND task_id = p_task_id
+       FOR UPDATE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not started' USING ERRCODE = 'P0002';
+    END IF;
+
+    SELECT * INTO v_task FROM tasks WHERE id = p_task_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Task not found' USING ERRCODE = 'P0002';
+    END IF;
+
+    -- Already completed: report the current state without re-applying XP
+    IF v_progress.status = 'COMPLETED' THEN
+        RETURN QUERY SELECT v_progress.id, v_progress.user_id, v_progress.task_id, v_progress.status,
+                            v_progress.gained_xp, v_progress.updated_at, FALSE, v_task.quest_id,
+                            FALSE, NULL::INT, NULL::INT, NULL::INT;
+        RETURN;
+    END IF;
+
+    UPDATE user_task_progress
+       SET status = 'COMPLETED', gained_xp = v_task.xp_reward, updated_at = NOW()
+     WHERE id = v_progress.id
+    RETURNING * INTO v_progress;
+
+    UPDATE users
+       SET total_xp = total_xp + v_task.xp_reward
+     WHERE id = p_user_id
+    RETURNING total_xp INTO v_total_xp;
+
+    INSERT INTO user_quest_progress (user_id, quest_id, status, gained_xp)
+    VALUES (p_user_id, v_task.quest_id, 'IN_PROGRESS', v_task.xp_reward)
+    ON CONFLICT (user_id, quest_id) DO UPDATE
+       SET gained_xp = user_quest_progress.gained_xp + EXCLUDED.gained_xp,
+           updated_at = NOW()
+    RETURNING status INTO v_quest_status;
+
+    -- Quest is complete once none of its tasks is left without a COMPLETED row
+    IF v_quest_status <> 'COMPLETED' AND NOT EXISTS (
+        SELECT 1
+          FROM tasks t
+          LEFT JOIN user_task_progress utp ON utp.task_id = t.id AND utp.user_id = p_user_id
+         WHERE t.quest_id = v_task.quest_id
+           AND utp.status IS DISTINCT FROM 'COMPLETED'
+    ) THEN
+        UPDATE user_quest_progress
+           SET status = 'COMPLETED', updated_at = NOW()
+         WHERE user_id = p_user_id AND quest_id = v_task.quest_id;
+        v_quest_completed := TRUE;
+    END IF;
+
+    INSERT INTO user_progress_counters (user_id, completed_tasks, completed_quests, total_xp)
+    VALUES (p_user_id, 1, CASE WHEN v_quest_completed THEN 1 ELSE 0 END, v_task.xp_reward)
+    ON CONFLICT (user_id) DO UPDATE
+       SET completed_tasks  = user_progress_counters.completed_tasks + EXCLUDED.completed_tasks,
+           completed_quests = user_progress_counters.completed_quests + EXCLUDED.completed_quests,
+           total_xp         = user_progress_counters.total_xp + EXCLUDED.total_xp,
+           updated_at       = NOW()
+    RETURNING completed_tasks, completed_quests INTO v_completed_tasks, v_completed_quests;
+
+    RETURN QUERY SELECT v_progress.id, v_progress.user_id, v_progress.task_id, v_progress.status,
+                        v_progress.gained_xp, v_progress.updated_at, TRUE, v_task.quest_id,
+                        v_quest_completed, v_total_xp, v_completed_tasks, v_completed_quests;
+END;
+$$;
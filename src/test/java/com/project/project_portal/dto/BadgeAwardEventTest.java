@@ -0,0 +1,95 @@
+package com.project.project_portal.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that BadgeAwardEvent.mergeWith spans from the earliest starting point
+ * to the latest end point whatever order the events are merged in.
+ */
+class BadgeAwardEventTest {
+
+    // Three completions of one user: the second one completes a quest
+    private static final Supplier<BadgeAwardEvent> FIRST = () -> new BadgeAwardEvent(11L, "alice", 5, 1, false, 50, 10);
+    private static final Supplier<BadgeAwardEvent> SECOND = () -> new BadgeAwardEvent(12L, "alice", 6, 2, true, 70, 20);
+    private static final Supplier<BadgeAwardEvent> THIRD = () -> new BadgeAwardEvent(13L, "alice", 7, 2, false, 75, 5);
+
+    @Test
+    void singleEventDerivesItsStartingPoint() {
+        BadgeAwardEvent first = FIRST.get();
+        BadgeAwardEvent second = SECOND.get();
+
+        assertEquals(4, first.tasksBefore());
+        assertEquals(1, first.questsBefore());
+        assertEquals(List.of(11L), first.outboxIds());
+        assertEquals(5, second.tasksBefore());
+        assertEquals(1, second.questsBefore());
+    }
+
+    @Test
+    void mergedEventSpansBothCompletions() {
+        BadgeAwardEvent merged = FIRST.get().mergeWith(SECOND.get());
+
+        assertEquals(4, merged.tasksBefore());
+        assertEquals(1, merged.questsBefore());
+        assertEquals(6, merged.getCompletedTasks());
+        assertEquals(2, merged.getCompletedQuests());
+        assertTrue(merged.getQuestCompleted());
+        assertEquals(70, merged.getTotalXp());
+        assertEquals(30, merged.getGainedXp());
+        assertEquals(12L, merged.getId());
+        assertEquals(List.of(11L, 12L), merged.outboxIds());
+    }
+
+    @Test
+    void mergeIsIndependentOfOrder() {
+        List<Object> expected = state(FIRST.get().mergeWith(SECOND.get()).mergeWith(THIRD.get()));
+
+        assertEquals(expected, state(THIRD.get().mergeWith(FIRST.get()).mergeWith(SECOND.get())));
+        assertEquals(expected, state(SECOND.get().mergeWith(THIRD.get()).mergeWith(FIRST.get())));
+        assertEquals(expected, state(FIRST.get().mergeWith(THIRD.get().mergeWith(SECOND.get()))));
+        assertEquals(expected, state(THIRD.get().mergeWith(SECOND.get().mergeWith(FIRST.get()))));
+    }
+
+    @Test
+    void mergeOfAllThreeCoversEveryRow() {
+        BadgeAwardEvent merged = THIRD.get().mergeWith(FIRST.get().mergeWith(SECOND.get()));
+
+        assertEquals(4, merged.tasksBefore());
+        assertEquals(1, merged.questsBefore());
+        assertEquals(7, merged.getCompletedTasks());
+        assertTrue(merged.getQuestCompleted());
+        assertEquals(75, merged.getTotalXp());
+        assertEquals(35, merged.getGainedXp());
+        assertEquals(13L, merged.getId());
+        assertEquals(List.of(11L, 12L, 13L), merged.outboxIds().stream().sorted().toList());
+    }
+
+    @Test
+    void mergeWithoutQuestCompletionKeepsQuestCount() {
+        BadgeAwardEvent merged = SECOND.get();
+        merged.mergeWith(THIRD.get());
+        BadgeAwardEvent later = THIRD.get().mergeWith(new BadgeAwardEvent(14L, "alice", 8, 2, false, 80, 5));
+
+        assertTrue(merged.getQuestCompleted());
+        assertFalse(later.getQuestCompleted());
+        assertEquals(2, later.questsBefore());
+        assertEquals(6, later.tasksBefore());
+        assertEquals(10, later.getGainedXp());
+    }
+
+    /**
+     * The fields badge evaluation reads, with the outbox rows in a fixed order.
+     */
+    private static List<Object> state(BadgeAwardEvent event) {
+        return List.of(event.getId(), event.tasksBefore(), event.questsBefore(), event.getCompletedTasks(),
+                event.getCompletedQuests(), event.getQuestCompleted(), event.getTotalXp(), event.getGainedXp(),
+                event.outboxIds().stream().sorted().toList());
+    }
+}
@@ -0,0 +1,197 @@
+package com.project.project_portal.repo;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ProgressKeyBenchmarkTest measures what V24 (BIGINT row keys for the progress
+ * and award tables) changes on a seeded PostgreSQL database: the index size of
+ * user_task_progress, user_quest_progress and user_badges, and the latency of
+ * the hot lookups findByUserIdAndTaskId and findByUserIdAndQuestId.
+ *
+ * The schema is migrated up to V23, seeded and measured, then migrated to the
+ * latest version, which re-keys the seeded rows, and measured again. The
+ * numbers are printed; the test fails only if the indexes of a re-keyed table
+ * got bigger. Only the three tables' references to users, tasks, quests and
+ * badges were re-keyed (see V26 for the scope); the parents' index growth is
+ * reported so the net effect is visible.
+ *
+ * Runs only when KEY_BENCHMARK_DB_URL is set (with KEY_BENCHMARK_DB_USER and
+ * KEY_BENCHMARK_DB_PASSWORD), e.g. jdbc:postgresql://localhost:5432/learning_db.
+ */
+class ProgressKeyBenchmarkTest {
+
+    private static final String SCHEMA = "key_benchmark";
+
+    private static final List<String> TABLES = List.of("user_task_progress", "user_quest_progress", "user_badges");
+
+    /**
+     * The parents gain a (row_key) index each; reported next to the re-keyed tables.
+     */
+    private static final List<String> PARENT_TABLES = List.of("users", "tasks", "quests", "badges");
+
+    private static final int SAMPLES = 1000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 10;
+
+    private static final String SEED = """
+            INSERT INTO topics (id, name)
+            SELECT 'kb-topic-' || t, 'Topic ' || t FROM generate_series(1, 100) t;
+            INSERT INTO quests (id, topic_id, name, order_index, task_count)
+            SELECT 'kb-quest-' || q, 'kb-topic-' || (q % 100 + 1), 'Quest ' || q, q / 100, 10
+              FROM generate_series(1, 2000) q;
+            INSERT INTO tasks (id, quest_id, title, order_index, xp_reward)
+            SELECT 'kb-task-' || t, 'kb-quest-' || (t % 2000 + 1), 'Task ' || t, t / 2000, 10
+              FROM generate_series(1, 20000) t;
+            INSERT INTO users (id, name, email)
+            SELECT gen_random_uuid()::text, 'User ' || u, 'user' || u || '@key.benchmark'
+              FROM generate_series(1, 50000) u;
+            INSERT INTO user_task_progress (user_id, task_id, status, gained_xp)
+            SELECT u.id, 'kb-task-' || ((u.n * 7 + k * 13) % 20000 + 1), (k % 3)::SMALLINT, 10
+              FROM (SELECT id, row_number() OVER (ORDER BY id) AS n FROM users) u, generate_series(1, 20) k;
+            INSERT INTO user_quest_progress (user_id, quest_id, status, gained_xp, completed_tasks)
+            SELECT u.id, 'kb-quest-' || ((u.n * 7 + k * 13) % 2000 + 1), (1 + k % 2)::SMALLINT, 10, 1
+              FROM (SELECT id, row_number() OVER (ORDER BY id) AS n FROM users) u, generate_series(1, 5) k;
+            INSERT INTO user_badges (user_id, badge_id)
+            SELECT u.id, b.id FROM users u CROSS JOIN LATERAL (SELECT id FROM badges ORDER BY id LIMIT 2) b;
+            """;
+
+    private static final String TASK_LOOKUP_V23 =
+            "SELECT * FROM user_task_progress WHERE user_id = ? AND task_id = ?";
+    private static final String QUEST_LOOKUP_V23 =
+            "SELECT * FROM user_quest_progress WHERE user_id = ? AND quest_id = ?";
+    private static final String TASK_LOOKUP =
+            "SELECT * FROM user_task_progress_view WHERE user_id = ? AND task_id = ?";
+    private static final String QUEST_LOOKUP =
+            "SELECT * FROM user_quest_progress_view WHERE user_id = ? AND quest_id = ?";
+
+    @Test
+    void rowKeysShrinkProgressIndexes() throws SQLException {
+        String url = System.getenv("KEY_BENCHMARK_DB_URL");
+        Assumptions.assumeTrue(url != null && !url.isBlank(), "KEY_BENCHMARK_DB_URL is not set");
+        String user = System.getenv().getOrDefault("KEY_BENCHMARK_DB_USER", "demo");
+        String password = System.getenv().getOrDefault("KEY_BENCHMARK_DB_PASSWORD", "demo");
+
+        Flyway before = flyway(url, user, password).target(MigrationVersion.fromVersion("23")).load();
+        before.clean();
+        before.migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            execute(connection, "SET search_path TO " + SCHEMA);
+            execute(connection, SEED);
+            execute(connection, "VACUUM ANALYZE");
+
+            List<String[]> taskPairs = sample(connection, "user_task_progress", "task_id");
+            List<String[]> questPairs = sample(connection, "user_quest_progress", "quest_id");
+
+            Map<String, Long> indexBytesBefore = indexBytes(connection);
+            double taskMicrosBefore = lookupMicros(connection, TASK_LOOKUP_V23, taskPairs);
+            double questMicrosBefore = lookupMicros(connection, QUEST_LOOKUP_V23, questPairs);
+
+            flyway(url, user, password).load().migrate();
+            execute(connection, "VACUUM ANALYZE");
+
+            Map<String, Long> indexBytesAfter = indexBytes(connection);
+            double taskMicrosAfter = lookupMicros(connection, TASK_LOOKUP, taskPairs);
+            double questMicrosAfter = lookupMicros(connection, QUEST_LOOKUP, questPairs);
+
+            StringBuilder report = new StringBuilder("Progress row keys, V23 -> latest\n");
+            for (String table : indexBytesBefore.keySet()) {
+                report.append(String.format("  %-22s indexes %,12d -> %,12d bytes%n",
+                        table, indexBytesBefore.get(table), indexBytesAfter.get(table)));
+            }
+            report.append(String.format("  findByUserIdAndTaskId  %8.1f -> %8.1f us%n", taskMicrosBefore, taskMicrosAfter));
+            report.append(String.format("  findByUserIdAndQuestId %8.1f -> %8.1f us%n", questMicrosBefore, questMicrosAfter));
+            System.out.print(report);
+
+            for (String table : TABLES) {
+                assertTrue(indexBytesAfter.get(table) < indexBytesBefore.get(table),
+                        () -> "Indexes of " + table + " did not shrink:\n" + report);
+            }
+        }
+    }
+
+    private static FluentConfiguration flyway(String url, String user, String password) {
+        return Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration")
+                .cleanDisabled(false);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Picks existing (user, item) pairs by string ID, so both schema versions look up the same rows.
+     */
+    private static List<String[]> sample(Connection connection, String table, String itemColumn) throws SQLException {
+        List<String[]> pairs = new ArrayList<>(SAMPLES);
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT user_id, " + itemColumn + " FROM " + table
+                     + " ORDER BY random() LIMIT " + SAMPLES)) {
+            while (rows.next()) {
+                pairs.add(new String[] {rows.getString(1), rows.getString(2)});
+            }
+        }
+        return pairs;
+    }
+
+    private static Map<String, Long> indexBytes(Connection connection) throws SQLException {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_indexes_size(to_regclass(?))")) {
+            for (String table : Stream.concat(TABLES.stream(), PARENT_TABLES.stream()).toList()) {
+                statement.setString(1, SCHEMA + "." + table);
+                try (ResultSet rows = statement.executeQuery()) {
+                    rows.next();
+                    sizes.put(table, rows.getLong(1));
+                }
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Mean latency of one lookup over the sampled pairs, after warm-up rounds.
+     */
+    private static double lookupMicros(Connection connection, String sql, List<String[]> pairs) throws SQLException {
+        long elapsed = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (String[] pair : pairs) {
+                    statement.setString(1, pair[0]);
+                    statement.setString(2, pair[1]);
+                    try (ResultSet rows = statement.executeQuery()) {
+                        assertTrue(rows.next(), () -> "No row for " + pair[0] + ", " + pair[1]);
+                    }
+                }
+                if (round >= WARMUP_ROUNDS) {
+                    elapsed += System.nanoTime() - start;
+                }
+            }
+        }
+        return elapsed / 1000.0 / ((long) ROUNDS * pairs.size());
+    }
+}
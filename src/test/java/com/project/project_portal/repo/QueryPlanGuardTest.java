@@ -0,0 +1,391 @@
+package com.project.project_portal.repo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.data.r2dbc.repository.Query;
+
+import java.lang.reflect.Method;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QueryPlanGuardTest runs EXPLAIN for every repository query against a seeded
+ * PostgreSQL database and fails if a query reads a large table with a
+ * sequential scan.
+ *
+ * EXPLAIN of a query that calls a database function (complete_task,
+ * complete_tasks) only shows a Function Scan, so those queries are also run
+ * once inside a rolled-back transaction with auto_explain logging the plan of
+ * every nested statement, including the triggers they fire. Task moves are run
+ * the same way for the task counter trigger. Loading auto_explain and setting
+ * its parameters needs a superuser connection.
+ *
+ * The lookups of COMPLETED progress made by the counter triggers are checked
+ * with EXPLAIN as well, which shows whether they need a partial index.
+ *
+ * The @Query methods are read from the repository interfaces; derived queries
+ * are listed with their equivalent SQL. The schema is migrated into its own
+ * schema (plan_guard) with the application's Flyway migrations and seeded with
+ * enough rows for the planner to prefer indexes where they exist.
+ *
+ * Runs only when PLAN_GUARD_DB_URL is set (with PLAN_GUARD_DB_USER and
+ * PLAN_GUARD_DB_PASSWORD), e.g. jdbc:postgresql://localhost:5432/learning_db.
+ */
+class QueryPlanGuardTest {
+
+    private static final String SCHEMA = "plan_guard";
+
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            BadgeAwardOutboxRepository.class, BadgeRepository.class, IdempotencyKeyRepository.class,
+            QuestRepository.class, TaskRepository.class, TopicRepository.class, UserBadgeRepository.class,
+            UserQuestProgressRepository.class,
+            UserRepository.class, UserTaskProgressRepository.class, XpLedgerRepository.class);
+
+    private static final Map<String, String> DERIVED_QUERIES = Map.ofEntries(
+            Map.entry("UserRepository.findByEmail", "SELECT * FROM users WHERE email = :email"),
+            Map.entry("QuestRepository.findByTopicIdOrderByOrderIndexAsc",
+                    "SELECT * FROM quests WHERE topic_id = :topicId ORDER BY order_index ASC"),
+            Map.entry("TaskRepository.findByQuestId", "SELECT * FROM tasks WHERE quest_id = :questId"),
+            Map.entry("TaskRepository.findByQuestIdOrderByOrderIndexAsc",
+                    "SELECT * FROM tasks WHERE quest_id = :questId ORDER BY order_index ASC"),
+            Map.entry("UserBadgeRepository.findByUserId", "SELECT * FROM user_badges_view WHERE user_id = :userId"),
+            Map.entry("UserBadgeRepository.findByUserIdOrderByEarnedAtAsc",
+                    "SELECT * FROM user_badges_view WHERE user_id = :userId ORDER BY earned_at ASC"),
+            Map.entry("UserBadgeRepository.findByUserIdAndBadgeId",
+                    "SELECT * FROM user_badges_view WHERE user_id = :userId AND badge_id = :badgeId"),
+            Map.entry("UserQuestProgressRepository.findByUserId",
+                    "SELECT * FROM user_quest_progress_view WHERE user_id = :userId"),
+            Map.entry("UserQuestProgressRepository.findByUserIdAndQuestId",
+                    "SELECT * FROM user_quest_progress_view WHERE user_id = :userId AND quest_id = :questId"),
+            Map.entry("UserTaskProgressRepository.findByUserId",
+                    "SELECT * FROM user_task_progress_view WHERE user_id = :userId"),
+            Map.entry("UserTaskProgressRepository.findByUserIdAndTaskId",
+                    "SELECT * FROM user_task_progress_view WHERE user_id = :userId AND task_id = :taskId"));
+
+    /**
+     * Lookups of COMPLETED (2) progress made by the counter triggers and their
+     * resynchronisation, which no repository query covers.
+     */
+    private static final Map<String, String> COMPLETION_LOOKUPS = Map.ofEntries(
+            Map.entry("completed tasks of a user",
+                    "SELECT COUNT(*) FROM user_task_progress utp " +
+                            "WHERE utp.user_key = (SELECT u.row_key FROM users u WHERE u.id = :userId) " +
+                            "AND utp.status = 2"),
+            Map.entry("completed tasks of a user in a quest",
+                    "SELECT COUNT(*) FROM user_task_progress utp JOIN tasks t ON t.row_key = utp.task_key " +
+                            "WHERE utp.user_key = (SELECT u.row_key FROM users u WHERE u.id = :userId) " +
+                            "AND t.quest_id = :questId AND utp.status = 2"),
+            Map.entry("completed quests of a user",
+                    "SELECT COUNT(*) FROM user_quest_progress uqp " +
+                            "WHERE uqp.user_key = (SELECT u.row_key FROM users u WHERE u.id = :userId) " +
+                            "AND uqp.status = 2"),
+            Map.entry("users who completed a task",
+                    "SELECT utp.user_key FROM user_task_progress utp " +
+                            "WHERE utp.task_key = (SELECT t.row_key FROM tasks t WHERE t.id = :taskId) " +
+                            "AND utp.status = 2"));
+
+    /**
+     * Statements whose triggers are checked through auto_explain, named after the trigger they exercise.
+     */
+    private static final Map<String, String> TRIGGER_STATEMENTS = Map.of(
+            "count_quest_tasks: task moved to another quest",
+            "UPDATE tasks SET quest_id = :questId WHERE id = :taskId RETURNING id");
+
+    /**
+     * Queries that read a whole table on purpose.
+     */
+    private static final Set<String> FULL_SCANS = Set.of(
+            "UserRepository.findAllXp");
+
+    /**
+     * Tables seeded at scale; a sequential scan on any of them fails the guard.
+     */
+    private static final Set<String> GUARDED_TABLES = Set.of(
+            "users", "quests", "tasks", "user_task_progress", "user_quest_progress",
+            "user_badges", "xp_ledger", "badge_award_outbox");
+
+    /**
+     * Functions of the schema whose bodies are checked through auto_explain.
+     */
+    private static final Set<String> FUNCTIONS = Set.of("complete_task", "complete_tasks");
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):([A-Za-z]\\w*)");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+    private static final Pattern FUNCTION_CALL = Pattern.compile("\\bFROM\\s+(\\w+)\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    private static final String SEED = """
+            INSERT INTO topics (id, name)
+            SELECT 'pg-topic-' || t, 'Topic ' || t FROM generate_series(1, 100) t;
+            INSERT INTO quests (id, topic_id, name, order_index)
+            SELECT 'pg-quest-' || q, 'pg-topic-' || (q % 100 + 1), 'Quest ' || q, q / 100
+              FROM generate_series(1, 2000) q;
+            INSERT INTO tasks (id, quest_id, title, order_index, xp_reward)
+            SELECT 'pg-task-' || t, 'pg-quest-' || (t % 2000 + 1), 'Task ' || t, t / 2000, 10
+              FROM generate_series(1, 20000) t;
+            INSERT INTO users (id, name, email, total_xp)
+            SELECT 'pg-user-' || u, 'User ' || u, 'user' || u || '@plan.guard', u % 1000
+              FROM generate_series(1, 20000) u;
+            INSERT INTO user_task_progress (user_key, task_key, status, gained_xp)
+            SELECT u.row_key, t.row_key, p.status, 10
+              FROM (SELECT 'pg-user-' || u AS user_id, 'pg-task-' || ((u * 7 + k * 13) % 20000 + 1) AS task_id,
+                           (k % 3)::SMALLINT AS status
+                      FROM generate_series(1, 20000) u, generate_series(1, 10) k) p
+              JOIN users u ON u.id = p.user_id
+              JOIN tasks t ON t.id = p.task_id;
+            INSERT INTO user_quest_progress (user_key, quest_key, status, gained_xp, completed_tasks)
+            SELECT u.row_key, q.row_key, p.status, p.gained_xp, p.completed_tasks
+              FROM (SELECT 'pg-user-' || u AS user_id, 'pg-quest-' || ((u * 7 + k * 13) % 2000 + 1) AS quest_id,
+                           (1 + k % 2)::SMALLINT AS status, (k % 2) * 10 AS gained_xp, k % 2 AS completed_tasks
+                      FROM generate_series(1, 20000) u, generate_series(1, 5) k) p
+              JOIN users u ON u.id = p.user_id
+              JOIN quests q ON q.id = p.quest_id
+            ON CONFLICT (user_key, quest_key) DO NOTHING;
+            INSERT INTO user_badges (user_key, badge_key)
+            SELECT u.row_key, b.row_key FROM users u
+              CROSS JOIN LATERAL (SELECT row_key FROM badges ORDER BY id LIMIT 2) b
+             WHERE u.id LIKE 'pg-user-%';
+            INSERT INTO xp_ledger (user_id, task_id, delta)
+            SELECT 'pg-user-' || u, 'pg-task-' || (k * 100), 10
+              FROM generate_series(1, 20000) u, generate_series(1, 10) k;
+            INSERT INTO badge_award_outbox (user_id, completed_tasks, completed_quests, quest_completed,
+                                            total_xp, gained_xp, processed_at)
+            SELECT 'pg-user-' || u, k, 0, FALSE, 10 * k, 10, NOW()
+              FROM generate_series(1, 20000) u, generate_series(1, 5) k;
+            ANALYZE;
+            """;
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        String url = System.getenv("PLAN_GUARD_DB_URL");
+        Assumptions.assumeTrue(url != null && !url.isBlank(), "PLAN_GUARD_DB_URL is not set");
+        String user = System.getenv().getOrDefault("PLAN_GUARD_DB_USER", "demo");
+        String password = System.getenv().getOrDefault("PLAN_GUARD_DB_PASSWORD", "demo");
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration")
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA);
+            statement.execute(SEED);
+        }
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesUseIndexes() {
+        Map<String, String> queries = annotatedQueries();
+        queries.putAll(DERIVED_QUERIES);
+        FULL_SCANS.forEach(queries::remove);
+
+        return queries.entrySet().stream()
+                .map(query -> DynamicTest.dynamicTest(query.getKey(), () -> assertNoSeqScan(query.getValue())));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> functionBodiesUseIndexes() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        Set<String> called = new HashSet<>();
+        annotatedQueries().forEach((name, sql) -> {
+            Matcher call = FUNCTION_CALL.matcher(sql);
+            if (call.find() && FUNCTIONS.contains(call.group(1))) {
+                queries.put(name, sql);
+                called.add(call.group(1));
+            }
+        });
+        assertEquals(FUNCTIONS, called, "No repository query calls some of the guarded functions");
+
+        return queries.entrySet().stream()
+                .map(query -> DynamicTest.dynamicTest(query.getKey(),
+                        () -> assertNoNestedSeqScan(query.getValue())));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> completionLookupsUseIndexes() {
+        return COMPLETION_LOOKUPS.entrySet().stream()
+                .map(query -> DynamicTest.dynamicTest(query.getKey(), () -> assertNoSeqScan(query.getValue())));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> triggerBodiesUseIndexes() {
+        return TRIGGER_STATEMENTS.entrySet().stream()
+                .map(statement -> DynamicTest.dynamicTest(statement.getKey(),
+                        () -> assertNoNestedSeqScan(statement.getValue())));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> fullScanExemptionsStillExist() {
+        return FULL_SCANS.stream().map(name -> DynamicTest.dynamicTest(name, () -> {
+            String[] parts = name.split("\\.");
+            Class<?> repository = REPOSITORIES.stream()
+                    .filter(candidate -> candidate.getSimpleName().equals(parts[0]))
+                    .findFirst().orElseThrow();
+            assertTrue(Stream.of(repository.getDeclaredMethods()).anyMatch(m -> m.getName().equals(parts[1])),
+                    "Exempted query no longer exists: " + name);
+        }));
+    }
+
+    private static Map<String, String> annotatedQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    queries.put(repository.getSimpleName() + "." + method.getName(), query.value());
+                }
+            }
+        }
+        return queries;
+    }
+
+    private static void assertNoSeqScan(String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement statement = prepare("EXPLAIN " + sql);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                plan.add(rows.getString(1));
+            }
+        }
+        assertNoGuardedSeqScan(plan);
+    }
+
+    /**
+     * Runs the query with auto_explain reporting each nested statement's plan as
+     * a notice, then rolls back whatever the called function or fired triggers wrote.
+     */
+    private static void assertNoNestedSeqScan(String sql) throws SQLException {
+        List<String> plans = new ArrayList<>();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOAD 'auto_explain'");
+                statement.execute("SET LOCAL auto_explain.log_min_duration = 0");
+                statement.execute("SET LOCAL auto_explain.log_nested_statements = on");
+                statement.execute("SET LOCAL auto_explain.log_level = notice");
+                statement.execute("SET LOCAL client_min_messages = notice");
+            }
+            try (PreparedStatement statement = prepare(sql)) {
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        // Drain the result so every nested statement runs
+                    }
+                }
+                for (SQLWarning warning = statement.getWarnings(); warning != null; warning = warning.getNextWarning()) {
+                    plans.add(warning.getMessage());
+                }
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+
+        assertTrue(plans.size() > 1, () -> "auto_explain reported no nested plans:\n" + String.join("\n", plans));
+        assertNoGuardedSeqScan(plans);
+    }
+
+    private static void assertNoGuardedSeqScan(List<String> plan) {
+        for (String line : plan) {
+            Matcher seqScan = SEQ_SCAN.matcher(line);
+            while (seqScan.find()) {
+                assertFalse(GUARDED_TABLES.contains(seqScan.group(1)),
+                        () -> "Sequential scan in plan:\n" + String.join("\n", plan));
+            }
+        }
+    }
+
+    /**
+     * Binds the query's named parameters to sample values.
+     */
+    private static PreparedStatement prepare(String sql) throws SQLException {
+        List<String> parameters = new ArrayList<>();
+        Matcher matcher = NAMED_PARAMETER.matcher(sql);
+        StringBuilder jdbcSql = new StringBuilder();
+        while (matcher.find()) {
+            parameters.add(matcher.group(1));
+            matcher.appendReplacement(jdbcSql, "?");
+        }
+        matcher.appendTail(jdbcSql);
+
+        PreparedStatement statement = connection.prepareStatement(jdbcSql.toString());
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, sampleValue(parameters.get(i)));
+            }
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    private static Object sampleValue(String parameter) throws SQLException {
+        return switch (parameter) {
+            case "userId" -> "pg-user-4242";
+            case "taskId" -> "pg-task-4242";
+            case "questId" -> "pg-quest-424";
+            case "topicId" -> "pg-topic-42";
+            case "badgeId" -> "badge-1";
+            case "email" -> "user4242@plan.guard";
+            case "name" -> "User 4242";
+            case "id" -> "pg-user-4242";
+            case "afterId", "afterQuestId", "afterTaskId" -> "pg-";
+            case "afterEarnedAt" -> LocalDateTime.of(2000, 1, 1, 0, 0);
+            case "limit" -> 21;
+            case "delta" -> 10;
+            case "minAgeSeconds", "ttlSeconds", "retentionSeconds" -> 60L;
+            case "idempotencyKey" -> "pg-key-4242";
+            case "requestFingerprint" -> "POST /api/progress/tasks/pg-task-4242/complete?userId=pg-user-4242";
+            case "statusCode" -> 200;
+            case "version" -> 0L;
+            case "responseBody" -> "{}";
+            case "beforeId" -> Long.MAX_VALUE;
+            case "taskIds" -> array("varchar", "pg-task-1", "pg-task-2");
+            case "badgeIds" -> array("varchar", "badge-1", "badge-2");
+            case "userIds" -> array("varchar", "pg-user-1", "pg-user-2");
+            case "ids" -> array("bigint", 1L, 2L);
+            default -> throw new IllegalArgumentException("Add a sample value for query parameter :" + parameter);
+        };
+    }
+
+    private static Array array(String type, Object... values) throws SQLException {
+        return connection.createArrayOf(type, values);
+    }
+}
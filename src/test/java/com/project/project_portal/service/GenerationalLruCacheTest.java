@@ -0,0 +1,197 @@
+package com.project.project_portal.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks when GenerationalLruCache caches a loaded value: loads are driven by
+ * hand through sinks, so changes can be placed before, during or after them.
+ */
+class GenerationalLruCacheTest {
+
+    private final GenerationalLruCache<AtomicInteger> cache = new GenerationalLruCache<>(2);
+
+    @Test
+    void loadedValueIsCachedAndReused() {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger value = new AtomicInteger(7);
+
+        assertSame(value, cache.getOrLoad("a", () -> {
+            loads.incrementAndGet();
+            return Mono.just(value);
+        }).block());
+        assertSame(value, cache.getOrLoad("a", () -> {
+            loads.incrementAndGet();
+            return Mono.just(new AtomicInteger());
+        }).block());
+
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    @Test
+    void leastRecentlyUsedKeyIsEvicted() {
+        cache.put("a", new AtomicInteger(1));
+        cache.put("b", new AtomicInteger(2));
+        cache.get("a");
+        cache.put("c", new AtomicInteger(3));
+
+        assertEquals(1, cache.get("a").get());
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c").get());
+    }
+
+    @Test
+    void updateChangesCachedValueInPlace() {
+        cache.put("a", new AtomicInteger(1));
+        cache.update("a", AtomicInteger::incrementAndGet);
+        cache.update("missing", AtomicInteger::incrementAndGet);
+
+        assertEquals(2, cache.get("a").get());
+        assertNull(cache.get("missing"));
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    @Test
+    void loadOverlappingUpdateOfUncachedKeyIsNotCached() {
+        Load load = start("a");
+        cache.update("a", AtomicInteger::incrementAndGet);
+        load.complete(1);
+
+        assertEquals(1, load.result().get().get());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    @Test
+    void loadOverlappingInvalidateIsNotCached() {
+        Load load = start("a");
+        cache.invalidate("a");
+        load.complete(1);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void loadOverlappingClearIsNotCached() {
+        Load load = start("a");
+        cache.clear();
+        load.complete(1);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void loadStartedDuringChangeIsNotCached() {
+        cache.beginChange("a");
+        Load load = start("a");
+        load.complete(1);
+        cache.endChange("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    @Test
+    void loadSpanningWholeChangeIsNotCached() {
+        Load load = start("a");
+        cache.beginChange("a");
+        cache.endChange("a");
+        load.complete(1);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void loadOutlivingChangeStartIsNotCached() {
+        Load load = start("a");
+        cache.beginChange("a");
+        load.complete(1);
+        cache.endChange("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    @Test
+    void loadAfterChangeEndedIsCached() {
+        cache.beginChange("a");
+        cache.endChange("a");
+        Load load = start("a");
+        load.complete(1);
+
+        assertEquals(1, cache.get("a").get());
+    }
+
+    @Test
+    void changeOfOtherKeyDoesNotAffectLoad() {
+        Load load = start("a");
+        cache.beginChange("b");
+        cache.invalidate("b");
+        load.complete(1);
+        cache.endChange("b");
+
+        assertEquals(1, cache.get("a").get());
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    @Test
+    void concurrentLoadsCacheTheFirstValue() {
+        Load first = start("a");
+        Load second = start("a");
+        first.complete(1);
+        second.complete(2);
+
+        assertEquals(1, cache.get("a").get());
+        assertEquals(1, second.result().get().get());
+    }
+
+    @Test
+    void failedAndCancelledLoadsStopBeingTracked() {
+        Sinks.One<AtomicInteger> failing = Sinks.one();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        cache.getOrLoad("a", failing::asMono).subscribe(value -> { }, error::set);
+        Disposable cancelled = cache.getOrLoad("b", () -> Sinks.<AtomicInteger>one().asMono()).subscribe();
+        assertEquals(2, cache.trackedKeys());
+
+        failing.tryEmitError(new IllegalStateException("boom"));
+        cancelled.dispose();
+
+        assertEquals("boom", error.get().getMessage());
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.trackedKeys());
+    }
+
+    private Load start(String key) {
+        Load load = new Load();
+        cache.getOrLoad(key, load.sink::asMono).subscribe(load.result::set);
+        return load;
+    }
+
+    /**
+     * A load whose value is emitted by the test.
+     */
+    private static final class Load {
+
+        private final Sinks.One<AtomicInteger> sink = Sinks.one();
+        private final AtomicReference<AtomicInteger> result = new AtomicReference<>();
+
+        private void complete(int value) {
+            sink.tryEmitValue(new AtomicInteger(value));
+        }
+
+        private AtomicReference<AtomicInteger> result() {
+            return result;
+        }
+    }
+}
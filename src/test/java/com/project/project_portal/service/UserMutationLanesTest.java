@@ -0,0 +1,198 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.exception.MutationRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks ordering, coalescing, backpressure and failure isolation of UserMutationLanes.
+ * Mutations complete through sinks emitted by the test, so each step of a
+ * lane is observed synchronously.
+ */
+class UserMutationLanesTest {
+
+    private UserMutationLanes lanes;
+
+    @AfterEach
+    void destroy() {
+        if (lanes != null) {
+            lanes.destroy();
+        }
+    }
+
+    @Test
+    void mutationsOfOneUserRunOneAtATimeInOrder() {
+        lanes = new UserMutationLanes(4, 16, Duration.ofSeconds(10));
+        List<String> started = new ArrayList<>();
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+
+        CompletableFuture<String> firstResult = lanes.submit("alice", "1", () -> {
+            started.add("1");
+            return first.asMono();
+        }).toFuture();
+        CompletableFuture<String> secondResult = lanes.submit("alice", "2", () -> {
+            started.add("2");
+            return second.asMono();
+        }).toFuture();
+
+        assertEquals(List.of("1"), started);
+        first.tryEmitValue("one");
+        assertEquals("one", firstResult.getNow(null));
+        assertEquals(List.of("1", "2"), started);
+        assertFalse(secondResult.isDone());
+
+        second.tryEmitValue("two");
+        assertEquals("two", secondResult.getNow(null));
+    }
+
+    @Test
+    void usersOnDifferentLanesRunInParallel() {
+        lanes = new UserMutationLanes(2, 16, Duration.ofSeconds(10));
+        // "a" and "b" hash to different lanes of two
+        Sinks.One<String> blocked = Sinks.one();
+        lanes.submit("a", "1", blocked::asMono).toFuture();
+
+        CompletableFuture<String> other = lanes.submit("b", "1", () -> Mono.just("done")).toFuture();
+
+        assertEquals("done", other.getNow(null));
+    }
+
+    @Test
+    void identicalMutationsAreCoalescedUntilTheyFinish() {
+        lanes = new UserMutationLanes(4, 16, Duration.ofSeconds(10));
+        AtomicInteger runs = new AtomicInteger();
+        Sinks.One<String> sink = Sinks.one();
+
+        CompletableFuture<String> first = lanes.submit("alice", "complete:t1", () -> {
+            runs.incrementAndGet();
+            return sink.asMono();
+        }).toFuture();
+        CompletableFuture<String> second = lanes.submit("alice", "complete:t1", () -> {
+            runs.incrementAndGet();
+            return Mono.just("second");
+        }).toFuture();
+        sink.tryEmitValue("first");
+
+        assertEquals("first", first.getNow(null));
+        assertEquals("first", second.getNow(null));
+        assertEquals(1, runs.get());
+
+        CompletableFuture<String> third = lanes.submit("alice", "complete:t1", () -> {
+            runs.incrementAndGet();
+            return Mono.just("third");
+        }).toFuture();
+        assertEquals("third", third.getNow(null));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void sameKeyOfAnotherUserIsNotCoalesced() {
+        lanes = new UserMutationLanes(4, 16, Duration.ofSeconds(10));
+        Sinks.One<String> blocked = Sinks.one();
+        lanes.submit("alice", "complete:t1", blocked::asMono).toFuture();
+
+        CompletableFuture<String> other = lanes.submit("bob", "complete:t1", () -> Mono.just("bob")).toFuture();
+        blocked.tryEmitValue("alice");
+
+        assertEquals("bob", other.getNow(null));
+    }
+
+    @Test
+    void failedMutationDoesNotStopItsLane() {
+        lanes = new UserMutationLanes(1, 16, Duration.ofSeconds(10));
+
+        CompletableFuture<String> failed = lanes.submit("alice", "1",
+                () -> Mono.<String>error(new IllegalStateException("boom"))).toFuture();
+        CompletableFuture<String> empty = lanes.submit("alice", "2", Mono::<String>empty).toFuture();
+        CompletableFuture<String> next = lanes.submit("alice", "3", () -> Mono.just("next")).toFuture();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        assertEquals("boom", error.getCause().getMessage());
+        assertTrue(empty.isDone());
+        assertNull(empty.getNow("not empty"));
+        assertEquals("next", next.getNow(null));
+    }
+
+    @Test
+    void stuckMutationTimesOutAndLaneMovesOn() throws Exception {
+        lanes = new UserMutationLanes(1, 16, Duration.ofMillis(100));
+
+        CompletableFuture<String> stuck = lanes.submit("alice", "1", Mono::<String>never).toFuture();
+        CompletableFuture<String> next = lanes.submit("alice", "2", () -> Mono.just("next")).toFuture();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> stuck.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals("next", next.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fullLaneRejectsInsteadOfOvertakingQueuedMutations() {
+        lanes = new UserMutationLanes(1, 2, Duration.ofSeconds(10));
+        List<String> started = new ArrayList<>();
+        Sinks.One<String> blocked = Sinks.one();
+        lanes.submit("alice", "running", blocked::asMono).toFuture();
+
+        // How many fit depends on what the lane's consumer has taken off the queue
+        List<CompletableFuture<String>> queued = new ArrayList<>();
+        CompletableFuture<String> rejected = null;
+        for (int i = 0; i < 64 && rejected == null; i++) {
+            String key = String.valueOf(i);
+            CompletableFuture<String> result = lanes.submit("alice", key, () -> {
+                started.add(key);
+                return Mono.just(key);
+            }).toFuture();
+            if (result.isCompletedExceptionally()) {
+                rejected = result;
+            } else {
+                queued.add(result);
+            }
+        }
+
+        assertNotNull(rejected, "a full lane rejects new mutations");
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(MutationRejectedException.class, error.getCause());
+        assertEquals(List.of(), started);
+
+        blocked.tryEmitValue("done");
+        assertEquals(queued.size(), started.size());
+        for (int i = 0; i < started.size(); i++) {
+            assertEquals(String.valueOf(i), started.get(i));
+        }
+        assertEquals("retry", lanes.submit("alice", String.valueOf(queued.size()), () -> Mono.just("retry")).block());
+    }
+
+    @Test
+    void withoutLanesMutationsRunDirectly() {
+        lanes = new UserMutationLanes(0, 16, Duration.ofSeconds(10));
+        AtomicInteger runs = new AtomicInteger();
+
+        Mono<String> mutation = lanes.submit("alice", "1", () -> {
+            runs.incrementAndGet();
+            return Mono.just("direct");
+        });
+        assertEquals(0, runs.get());
+        assertEquals("direct", mutation.block());
+        assertEquals("direct", mutation.block());
+        assertEquals(2, runs.get());
+    }
+}
@@ -0,0 +1,187 @@
+package com.project.project_portal.service;
+
+import com.project.project_portal.dto.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks XpRanking against a sorted list of (user, XP) pairs: XP descending,
+ * then user ID ascending.
+ */
+class XpRankingTest {
+
+    private static final Comparator<Map.Entry<String, Long>> RANK_ORDER =
+            Comparator.<Map.Entry<String, Long>>comparingLong(Map.Entry::getValue).reversed()
+                    .thenComparing(Map.Entry::getKey);
+
+    private final XpRanking ranking = new XpRanking();
+    private final Map<String, Long> reference = new HashMap<>();
+
+    @Test
+    void tiesAreOrderedByUserId() {
+        set("carol", 50);
+        set("alice", 50);
+        set("bob", 50);
+        set("dave", 80);
+
+        assertRanks("dave", "alice", "bob", "carol");
+        assertEquals(1, ranking.entryOf("dave").getRank());
+        assertEquals(3, ranking.entryOf("bob").getRank());
+    }
+
+    @Test
+    void scoreChangesMoveUsers() {
+        set("alice", 10);
+        set("bob", 20);
+        set("carol", 30);
+
+        set("alice", 40);
+        assertRanks("alice", "carol", "bob");
+
+        set("carol", 5);
+        assertRanks("alice", "bob", "carol");
+
+        set("bob", 40);
+        assertRanks("alice", "bob", "carol");
+
+        // An unchanged score keeps the user in place
+        set("bob", 40);
+        assertRanks("alice", "bob", "carol");
+    }
+
+    @Test
+    void addStartsFromZeroAndOfferKeepsNewerValues() {
+        ranking.add("alice", 15);
+        reference.put("alice", 15L);
+        ranking.add("alice", 5);
+        reference.put("alice", 20L);
+
+        ranking.offer("alice", 1);
+        ranking.offer("bob", 30);
+        reference.put("bob", 30L);
+
+        assertRanks("bob", "alice");
+    }
+
+    @Test
+    void removedUsersAreNotRanked() {
+        set("alice", 10);
+        set("bob", 20);
+        set("carol", 30);
+
+        remove("bob");
+        remove("nobody");
+
+        assertNull(ranking.entryOf("bob"));
+        assertTrue(ranking.around("bob", 2).isEmpty());
+        assertRanks("carol", "alice");
+
+        remove("alice");
+        remove("carol");
+        assertEquals(0, ranking.size());
+        assertTrue(ranking.top(10).isEmpty());
+    }
+
+    @Test
+    void aroundIsClippedAtTheEnds() {
+        for (int i = 0; i < 10; i++) {
+            set("user-" + i, i * 10L);
+        }
+
+        List<LeaderboardEntry> first = ranking.around("user-9", 2);
+        assertEquals(List.of("user-9", "user-8", "user-7"), userIds(first));
+        assertEquals(1, first.get(0).getRank());
+
+        List<LeaderboardEntry> last = ranking.around("user-0", 2);
+        assertEquals(List.of("user-2", "user-1", "user-0"), userIds(last));
+        assertEquals(8, last.get(0).getRank());
+    }
+
+    @Test
+    void randomUpdatesMatchSortedReference() {
+        Random random = new Random(42);
+        for (int step = 0; step < 20_000; step++) {
+            String userId = "user-" + random.nextInt(500);
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                remove(userId);
+            } else if (operation < 3) {
+                long delta = random.nextInt(50);
+                ranking.add(userId, delta);
+                reference.merge(userId, delta, Long::sum);
+            } else {
+                // A narrow XP range produces many ties
+                set(userId, random.nextInt(100));
+            }
+
+            if (step % 1000 == 0) {
+                assertMatchesReference(random);
+            }
+        }
+        assertMatchesReference(random);
+    }
+
+    private void set(String userId, long xp) {
+        ranking.update(userId, xp);
+        reference.put(userId, xp);
+    }
+
+    private void remove(String userId) {
+        ranking.remove(userId);
+        reference.remove(userId);
+    }
+
+    private void assertRanks(String... userIds) {
+        assertEquals(List.of(userIds), userIds(ranking.top(userIds.length + 1)));
+        assertMatchesReference(new Random(0));
+    }
+
+    /**
+     * Compares sizes, every user's rank, the full top list and a few neighbour lists.
+     */
+    private void assertMatchesReference(Random random) {
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(reference.entrySet());
+        sorted.sort(RANK_ORDER);
+
+        assertEquals(sorted.size(), ranking.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            LeaderboardEntry entry = ranking.entryOf(sorted.get(i).getKey());
+            assertEquals(i + 1, entry.getRank(), () -> "rank of " + entry.getUserId());
+            assertEquals(sorted.get(i).getValue().longValue(), entry.getXp());
+        }
+
+        List<LeaderboardEntry> top = ranking.top(sorted.size() + 1);
+        assertEquals(sorted.size(), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(i + 1, top.get(i).getRank());
+            assertEquals(sorted.get(i).getKey(), top.get(i).getUserId());
+        }
+
+        for (int probe = 0; probe < 5 && !sorted.isEmpty(); probe++) {
+            int index = random.nextInt(sorted.size());
+            int radius = random.nextInt(4);
+            List<LeaderboardEntry> around = ranking.around(sorted.get(index).getKey(), radius);
+            int from = Math.max(0, index - radius);
+            int to = Math.min(sorted.size(), index + radius + 1);
+            assertEquals(to - from, around.size());
+            for (int i = from; i < to; i++) {
+                assertEquals(i + 1, around.get(i - from).getRank());
+                assertEquals(sorted.get(i).getKey(), around.get(i - from).getUserId());
+            }
+        }
+    }
+
+    private static List<String> userIds(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getUserId).toList();
+    }
+}